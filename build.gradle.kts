@@ -31,8 +31,34 @@ dependencies {
     compileOnly("me.clip:placeholderapi:2.11.7")
     implementation("dev.dejvokep:boosted-yaml:1.3.6")
     implementation("net.kyori:adventure-text-minimessage:4.26.1")
+
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("org.openjdk.jol:jol-core:0.17")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    // Paper trae el driver de SQLite en el servidor; los tests lo necesitan por su cuenta
+    testRuntimeOnly("org.xerial:sqlite-jdbc:3.47.1.0")
+}
+
+// Los tests cargan clases que usan la API de Paper y de CustomFishing
+configurations.testImplementation {
+    extendsFrom(configurations.compileOnly.get())
 }
 
 tasks.test {
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
+}
+
+// Mediciones de tiempo: no forman parte de los tests, se lanzan con ./gradlew benchmark
+tasks.register<Test>("benchmark") {
+    description = "Runs the timing benchmarks tagged 'benchmark'."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testLogging.showStandardStreams = true
 }
\ No newline at end of file
@@ -9,6 +9,8 @@ import CesarCosmico.placeholderapi.FishingStatsExpansion;
 import CesarCosmico.services.GlobalStatsService;
 import CesarCosmico.services.RankingService;
 import CesarCosmico.storage.StorageManager;
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.data.StatLayout;
 import CesarCosmico.actions.FishingStatContext;
 import io.papermc.paper.plugin.lifecycle.event.LifecycleEventManager;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
@@ -46,6 +48,7 @@ public class CustomFishingStats extends JavaPlugin {
 
     private BukkitTask autoSaveTask;
     private BukkitTask rankingCacheTask;
+    private BukkitTask journalFlushTask;
 
     @Override
     public void onEnable() {
@@ -59,6 +62,7 @@ public class CustomFishingStats extends JavaPlugin {
         registerFeatures();
         scheduleAutoSave();
         scheduleRankingCache();
+        scheduleJournalFlush();
     }
 
     @Override
@@ -118,6 +122,7 @@ public class CustomFishingStats extends JavaPlugin {
         }
 
         if (!categories.isEmpty()) {
+            categories.forEach(category -> StatLayout.slot(type, category));
             customFishingCategories.put(type, categories);
         }
     }
@@ -129,14 +134,15 @@ public class CustomFishingStats extends JavaPlugin {
         this.displayNamesManager = new DisplayNamesManager(this);
 
         boolean enableLog = configManager.getConfig().getBoolean("storage.auto-save.log", true);
-        this.globalStatsService = new GlobalStatsService(getLogger(), getDataFolder(), enableLog);
-        this.rankingService = new RankingService(storageManager, getDataFolder(), customFishingCategories);
-
-        storageManager.start();
+        this.globalStatsService = new GlobalStatsService(getLogger(), getDataFolder(), enableLog,
+                storageManager.getFileWriter());
+        this.rankingService = new RankingService(storageManager, customFishingCategories);
+        rankingService.configureCache(configManager.getConfig().getConfigurationSection("rankings.cache"));
     }
 
     private void loadData() {
         globalStatsService.load();
+        storageManager.start();
     }
 
     private void registerFeatures() {
@@ -188,7 +194,9 @@ public class CustomFishingStats extends JavaPlugin {
         }
 
         storageManager.performAutoSaveNow();
-        globalStatsService.autoSave();
+        if (!storageManager.isJournalEnabled()) {
+            globalStatsService.autoSave();
+        }
 
         if (enableLog) {
             getLogger().info("Auto-save completed");
@@ -207,10 +215,30 @@ public class CustomFishingStats extends JavaPlugin {
                 cacheInterval);
     }
 
+    /**
+     * Vuelca el buffer del diario cada segundo para que un cierre inesperado pierda como
+     * mucho ese intervalo de capturas.
+     */
+    private void scheduleJournalFlush() {
+        if (journalFlushTask != null && !journalFlushTask.isCancelled()) {
+            journalFlushTask.cancel();
+        }
+
+        if (!storageManager.isJournalEnabled()) return;
+
+        this.journalFlushTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this,
+                storageManager::flushJournal,
+                20L,
+                20L);
+    }
+
     private void cancelTasks() {
         if (autoSaveTask != null && !autoSaveTask.isCancelled()) {
             autoSaveTask.cancel();
         }
+        if (journalFlushTask != null && !journalFlushTask.isCancelled()) {
+            journalFlushTask.cancel();
+        }
         if (rankingCacheTask != null && !rankingCacheTask.isCancelled()) {
             rankingCacheTask.cancel();
         }
@@ -231,115 +259,67 @@ public class CustomFishingStats extends JavaPlugin {
         }
     }
 
-    public void trackStats(Player player, FishingStatContext context) {
-        if (player != null) {
-            storageManager.modifyOnlinePlayerDataLazy(player.getUniqueId(),
-                    playerData -> {
-                        playerData.addStats(context);
-                        return null;
-                    });
-        }
+    /**
+     * Registra los contextos de una acción de CustomFishing, ya resueltos a ids al cargar su
+     * configuración.
+     */
+    public void trackStats(Player player, FishingStatContext[] contexts) {
+        PlayerData playerData = player != null
+                ? storageManager.getOnlinePlayerSnapshot(player.getUniqueId())
+                : null;
+
+        storageManager.recordStats(playerData, contexts);
 
-        globalStatsService.increment(context);
-        rankingService.invalidateCategoryCache(context.getType(), context.getCategory());
+        if (playerData != null) {
+            rankingService.markDirty(playerData, contexts);
+        }
     }
 
+    /**
+     * Cambios de los administradores: pasan por el diario igual que las capturas, así que un
+     * cierre inesperado no los pierde aunque el jugador esté conectado.
+     */
     public CompletableFuture<Void> addStatsTransactional(UUID uuid, FishingStatContext context) {
+        FishingStatContext[] contexts = {context};
         if (uuid == null) {
-            globalStatsService.increment(context);
-            rankingService.invalidateCategoryCache(context.getType(), context.getCategory());
+            storageManager.recordStats(null, contexts);
             return CompletableFuture.completedFuture(null);
         }
 
         return storageManager.modifyPlayerData(uuid, playerData -> {
-            playerData.addStats(context);
+            storageManager.recordStats(playerData, contexts);
+            rankingService.updatePlayerScore(playerData, context);
             return null;
-        }).thenRun(() -> {
-            globalStatsService.increment(context);
-            rankingService.invalidateCategoryCache(context.getType(), context.getCategory());
         });
     }
 
+    /**
+     * Resta hasta la cantidad pedida sin bajar de cero y devuelve lo que se restó. A un
+     * jugador se le resta lo que tenga y lo mismo a las globales.
+     */
     public CompletableFuture<Integer> removeStatsTransactional(UUID uuid, FishingStatContext context) {
         if (uuid == null) {
-            String type = context.getType();
-            String category = context.getCategory();
-            int requested = context.getAmount();
-
-            int current = context.hasItem()
-                    ? globalStatsService.getCategoryItems(type, category)
-                    .getOrDefault(context.getItem(), 0)
-                    : globalStatsService.getCategoryTotal(type, category);
-
-            int actuallyRemoved = Math.min(current, requested);
-
-            if (actuallyRemoved > 0) {
-                FishingStatContext adjustedContext = FishingStatContext.builder()
-                        .type(type)
-                        .category(category)
-                        .amount(actuallyRemoved)
-                        .item(context.hasItem() ? context.getItem() : null)
-                        .build();
-
-                globalStatsService.decrement(adjustedContext);
-                rankingService.invalidateCategoryCache(type, category);
-            }
-
-            return CompletableFuture.completedFuture(actuallyRemoved);
+            return CompletableFuture.completedFuture(storageManager.recordRemoval(null, context));
         }
 
         return storageManager.modifyPlayerData(uuid, playerData -> {
-            String type = context.getType();
-            String category = context.getCategory();
-            int requested = context.getAmount();
-
-            int current = context.hasItem()
-                    ? playerData.getItemAmount(type, category, context.getItem())
-                    : playerData.getCategoryTotal(type, category);
-
-            int actuallyRemoved = Math.min(current, requested);
-
-            if (actuallyRemoved > 0) {
-                FishingStatContext adjustedContext = FishingStatContext.builder()
-                        .type(type)
-                        .category(category)
-                        .amount(actuallyRemoved)
-                        .item(context.hasItem() ? context.getItem() : null)
-                        .build();
-
-                playerData.removeStats(adjustedContext);
+            int removed = storageManager.recordRemoval(playerData, context);
+            if (removed > 0) {
+                rankingService.updatePlayerScore(playerData, context);
             }
-
-            return actuallyRemoved;
-        }).thenApply(actuallyRemoved -> {
-            if (actuallyRemoved > 0) {
-                FishingStatContext adjustedContext = FishingStatContext.builder()
-                        .type(context.getType())
-                        .category(context.getCategory())
-                        .amount(actuallyRemoved)
-                        .item(context.hasItem() ? context.getItem() : null)
-                        .build();
-
-                globalStatsService.decrement(adjustedContext);
-                rankingService.invalidateCategoryCache(context.getType(), context.getCategory());
-            }
-            return actuallyRemoved;
+            return removed;
         });
     }
 
-    public void notifyPlayerDataChanged(UUID uuid) {
-        rankingService.invalidatePlayerCache(uuid);
-    }
-
-    public int getCategoryTotal(String type, String category) {
+    public long getCategoryTotal(String type, String category) {
         return globalStatsService.getCategoryTotal(type, category);
     }
 
-    public Map<String, Integer> getCategoryItems(String type, String category) {
+    public Map<String, Long> getCategoryItems(String type, String category) {
         return globalStatsService.getCategoryItems(type, category);
     }
 
-    public int getGlobalTotal(String type) {
+    public long getGlobalTotal(String type) {
         return globalStatsService.getTotalByType(type);
     }
 
@@ -370,14 +350,6 @@ public class CustomFishingStats extends JavaPlugin {
         return new ArrayList<>(allCategories);
     }
 
-    public List<Map.Entry<String, Integer>> getTopPlayers(String type, String category, int limit) {
-        return rankingService.getTopPlayers(type, category, limit);
-    }
-
-    public int getPlayerRank(UUID uuid, String type, String category) {
-        return rankingService.getPlayerRank(uuid, type, category);
-    }
-
     public RankingService getRankingService() {
         return rankingService;
     }
@@ -390,10 +362,21 @@ public class CustomFishingStats extends JavaPlugin {
         return storageManager;
     }
 
+    public GlobalStatsService getGlobalStatsService() {
+        return globalStatsService;
+    }
+
     public ConfigManager getConfigManager() {
         return configManager;
     }
 
+    /**
+     * Expansión de PlaceholderAPI, o null si PlaceholderAPI no está instalado.
+     */
+    public FishingStatsExpansion getPlaceholderExpansion() {
+        return papiExpansion;
+    }
+
     public DisplayNamesManager getDisplayNamesManager() {
         return displayNamesManager;
     }
@@ -403,23 +386,22 @@ public class CustomFishingStats extends JavaPlugin {
     }
 
     public void reloadPlugin() {
-        if (storageManager != null) {
-            storageManager.saveAllDataSync();
-        }
-        if (globalStatsService != null) {
-            globalStatsService.save();
-        }
+        // Las estadísticas en memoria siguen siendo las buenas: se guardan, pero no se releen
+        storageManager.checkpoint();
 
         configManager.reload();
         messagesManager.reload();
+        if (papiExpansion != null) {
+            papiExpansion.reload();
+        }
         storageManager.reload();
         displayNamesManager.reload();
         loadCustomFishingCategories();
-        globalStatsService.load();
 
         scheduleAutoSave();
         scheduleRankingCache();
 
+        rankingService.configureCache(configManager.getConfig().getConfigurationSection("rankings.cache"));
         rankingService.clearCache();
         rankingService.recalculateAll();
     }
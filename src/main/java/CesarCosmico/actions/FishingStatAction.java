@@ -119,19 +119,19 @@ public class FishingStatAction {
 
     /**
      * Crea la acción que se ejecutará cuando se cumplan las condiciones
-     * OPTIMIZED: Usa trackStats que no persiste inmediatamente
+     * OPTIMIZED: Usa trackStats que no persiste inmediatamente. Los contextos se resuelven a
+     * ranuras de StatLayout al construirse, así que ejecutarla solo suma en los contadores
      */
-    private Action<Player> createAction(List<FishingStatContext> contexts, boolean globalOnly, MathValue<Player> chance) {
+    private Action<Player> createAction(List<FishingStatContext> contextList, boolean globalOnly, MathValue<Player> chance) {
+        FishingStatContext[] contexts = contextList.toArray(new FishingStatContext[0]);
+
         return (Context<Player> ctxPlayer) -> {
             if (Math.random() > chance.evaluate(ctxPlayer)) {
                 return;
             }
 
             Player player = globalOnly ? null : ctxPlayer.holder();
-
-            for (FishingStatContext context : contexts) {
-                plugin.trackStats(player, context);
-            }
+            plugin.trackStats(player, contexts);
         };
     }
 
@@ -1,5 +1,7 @@
 package CesarCosmico.actions;
 
+import CesarCosmico.storage.data.StatLayout;
+
 import java.util.Objects;
 
 public class FishingStatContext {
@@ -8,11 +10,19 @@ public class FishingStatContext {
     private final String item;
     private final int amount;
 
+    // Ids de StatLayout, resueltos una vez al construir el contexto
+    private final int typeId;
+    private final int slot;
+    private final int itemId;
+
     private FishingStatContext(Builder builder) {
         this.type = builder.type;
         this.category = builder.category;
         this.item = builder.item;
         this.amount = builder.amount;
+        this.slot = StatLayout.slot(type, category);
+        this.typeId = StatLayout.slotType(slot);
+        this.itemId = hasItem() ? StatLayout.itemId(item) : -1;
     }
 
     public String getType() {
@@ -31,6 +41,21 @@ public class FishingStatContext {
         return amount;
     }
 
+    public int getTypeId() {
+        return typeId;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Id del objeto, o -1 si el contexto no tiene objeto.
+     */
+    public int getItemId() {
+        return itemId;
+    }
+
     public boolean hasItem() {
         return item != null && !item.isEmpty();
     }
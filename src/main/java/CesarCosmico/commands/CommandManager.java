@@ -39,6 +39,8 @@ public class CommandManager {
                 .then(RemovePlayerStatsCommand.create(plugin))
                 .then(AddGlobalStatsCommand.create(plugin))
                 .then(RemoveGlobalStatsCommand.create(plugin))
+                .then(IndexCommand.create(plugin))
+                .then(MetricsCommand.create(plugin))
                 .build();
     }
 
@@ -24,7 +24,7 @@ import org.bukkit.configuration.file.YamlConfiguration;
 import java.io.File;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @SuppressWarnings("UnstableApiUsage")
 public class GlobalStatsCommand extends BaseCommand {
@@ -111,9 +111,9 @@ public class GlobalStatsCommand extends BaseCommand {
             return 0;
         }
 
-        Map<String, Integer> categoryValues = new HashMap<>();
+        Map<String, Long> categoryValues = new HashMap<>();
         for (String category : categories) {
-            int total = plugin.getCategoryTotal(type, category);
+            long total = plugin.getCategoryTotal(type, category);
             if (total > 0) {
                 categoryValues.put(category, total);
             }
@@ -126,7 +126,7 @@ public class GlobalStatsCommand extends BaseCommand {
             }
         }
 
-        for (Map.Entry<String, Integer> entry : categoryValues.entrySet()) {
+        for (Map.Entry<String, Long> entry : categoryValues.entrySet()) {
             if (!categoryOrder.contains(entry.getKey())) {
                 String displayName = plugin.getDisplayNamesManager().getCategoryDisplayString(entry.getKey());
                 entries.add(new StatEntry(displayName, entry.getValue()));
@@ -138,7 +138,7 @@ public class GlobalStatsCommand extends BaseCommand {
             return 0;
         }
 
-        int grandTotal = entries.stream().mapToInt(StatEntry::value).sum();
+        long grandTotal = entries.stream().mapToLong(StatEntry::value).sum();
 
         int totalPages = (int) Math.ceil((double) entries.size() / ENTRIES_PER_PAGE);
 
@@ -160,7 +160,7 @@ public class GlobalStatsCommand extends BaseCommand {
     private int executeCompetition(CommandContext<CommandSourceStack> ctx, int page) {
         List<List<StatEntry>> sections = new ArrayList<>();
         List<String> sectionNames = new ArrayList<>();
-        List<Integer> sectionTotals = new ArrayList<>();
+        List<Long> sectionTotals = new ArrayList<>();
 
         List<StatEntry> countSection = new ArrayList<>();
         List<String> countKeys = List.of("max_size_count", "min_size_count", "total_size_count", "infernal_count");
@@ -168,7 +168,7 @@ public class GlobalStatsCommand extends BaseCommand {
             addCompetitionEntry(countSection, key);
         }
         if (!countSection.isEmpty()) {
-            int countTotal = countSection.stream().mapToInt(StatEntry::value).sum();
+            long countTotal = countSection.stream().mapToLong(StatEntry::value).sum();
             sections.add(countSection);
             sectionNames.add("count");
             sectionTotals.add(countTotal);
@@ -180,7 +180,7 @@ public class GlobalStatsCommand extends BaseCommand {
             addCompetitionEntry(topsSection, key);
         }
         if (!topsSection.isEmpty()) {
-            int topsTotal = topsSection.stream().mapToInt(StatEntry::value).sum();
+            long topsTotal = topsSection.stream().mapToLong(StatEntry::value).sum();
             sections.add(topsSection);
             sectionNames.add("tops");
             sectionTotals.add(topsTotal);
@@ -193,7 +193,7 @@ public class GlobalStatsCommand extends BaseCommand {
             addCompetitionEntry(participationSection, key);
         }
         if (!participationSection.isEmpty()) {
-            int participationTotal = participationSection.stream().mapToInt(StatEntry::value).sum();
+            long participationTotal = participationSection.stream().mapToLong(StatEntry::value).sum();
             sections.add(participationSection);
             sectionNames.add("participation");
             sectionTotals.add(participationTotal);
@@ -208,7 +208,7 @@ public class GlobalStatsCommand extends BaseCommand {
         }
 
         List<StatEntry> selectedPage = sections.get(page - 1);
-        int sectionTotal = sectionTotals.get(page - 1);
+        long sectionTotal = sectionTotals.get(page - 1);
         String sectionName = sectionNames.get(page - 1);
 
         String unitType = "competition_" + sectionName;
@@ -218,7 +218,7 @@ public class GlobalStatsCommand extends BaseCommand {
     }
 
     private void addCompetitionEntry(List<StatEntry> entries, String category) {
-        int value = plugin.getCategoryTotal("competition", category);
+        long value = plugin.getCategoryTotal("competition", category);
         if (value > 0) {
             String displayName = plugin.getDisplayNamesManager().getCategoryDisplayString(category);
             entries.add(new StatEntry(displayName, value));
@@ -226,14 +226,14 @@ public class GlobalStatsCommand extends BaseCommand {
     }
 
     private void displayStatsWithUnit(CommandContext<CommandSourceStack> ctx, String type,
-                                      int page, List<StatEntry> entries, int grandTotal,
+                                      int page, List<StatEntry> entries, long grandTotal,
                                       int totalPages, String unitType) {
         Component fullDisplay = buildDisplayWithUnit(type, page, totalPages, entries, grandTotal, unitType);
         ctx.getSource().getSender().sendMessage(fullDisplay);
     }
 
     private Component buildDisplayWithUnit(String type, int page, int totalPages,
-                                           List<StatEntry> entries, int grandTotal, String unitType) {
+                                           List<StatEntry> entries, long grandTotal, String unitType) {
         String typeDisplay = plugin.getDisplayNamesManager().getTypeDisplayString(type);
         String formattedGrandTotal = messages.formatNumber(grandTotal);
         String unit = plugin.getDisplayNamesManager().getUnitString(unitType);
@@ -271,13 +271,13 @@ public class GlobalStatsCommand extends BaseCommand {
     }
 
     private void displayStats(CommandContext<CommandSourceStack> ctx, String type,
-                              int page, List<StatEntry> allEntries, int grandTotal, int totalPages) {
+                              int page, List<StatEntry> allEntries, long grandTotal, int totalPages) {
         Component fullDisplay = buildDisplay(type, page, totalPages, allEntries, grandTotal);
         ctx.getSource().getSender().sendMessage(fullDisplay);
     }
 
     private Component buildDisplay(String type, int page, int totalPages,
-                                   List<StatEntry> entries, int grandTotal) {
+                                   List<StatEntry> entries, long grandTotal) {
         String typeDisplay = plugin.getDisplayNamesManager().getTypeDisplayString(type);
         String formattedGrandTotal = messages.formatNumber(grandTotal);
         String unit = plugin.getDisplayNamesManager().getUnitString(type);
@@ -334,7 +334,7 @@ public class GlobalStatsCommand extends BaseCommand {
             return 0;
         }
 
-        Map<String, Integer> categoryTotals = new HashMap<>();
+        Map<String, Long> categoryTotals = new HashMap<>();
         StorageManager storage = customFishing.getStorageManager();
         StatisticsManager statsManager = customFishing.getStatisticsManager();
 
@@ -345,7 +345,7 @@ public class GlobalStatsCommand extends BaseCommand {
                 List<String> categoryItems = statsManager.getCategoryMembers(category);
                 if (categoryItems == null || categoryItems.isEmpty()) continue;
 
-                AtomicInteger globalTotal = new AtomicInteger(0);
+                AtomicLong globalTotal = new AtomicLong(0);
 
                 List<CompletableFuture<Void>> futures = uniqueUsers.stream()
                         .map(uuid -> storage.getDataSource().getPlayerData(uuid, false, Runnable::run)
@@ -369,9 +369,9 @@ public class GlobalStatsCommand extends BaseCommand {
             String totalCategoryName = type.equals("fishes") ? "fishes" : "items";
             List<String> totalCategoryItems = statsManager.getCategoryMembers(totalCategoryName);
 
-            int grandTotal = 0;
+            long grandTotal = 0;
             if (totalCategoryItems != null && !totalCategoryItems.isEmpty()) {
-                AtomicInteger total = new AtomicInteger(0);
+                AtomicLong total = new AtomicLong(0);
 
                 List<CompletableFuture<Void>> futures = uniqueUsers.stream()
                         .map(uuid -> storage.getDataSource().getPlayerData(uuid, false, Runnable::run)
@@ -403,7 +403,7 @@ public class GlobalStatsCommand extends BaseCommand {
                 }
             }
 
-            for (Map.Entry<String, Integer> entry : categoryTotals.entrySet()) {
+            for (Map.Entry<String, Long> entry : categoryTotals.entrySet()) {
                 if (!categoryOrder.contains(entry.getKey())) {
                     String displayName = plugin.getDisplayNamesManager().getCategoryDisplayString(entry.getKey());
                     entries.add(new StatEntry(displayName, entry.getValue()));
@@ -474,5 +474,5 @@ public class GlobalStatsCommand extends BaseCommand {
         e.printStackTrace();
     }
 
-    private record StatEntry(String name, int value) {}
+    private record StatEntry(String name, long value) {}
 }
\ No newline at end of file
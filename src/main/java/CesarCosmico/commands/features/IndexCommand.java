@@ -0,0 +1,83 @@
+package CesarCosmico.commands.features;
+
+import CesarCosmico.CustomFishingStats;
+import CesarCosmico.commands.BaseCommand;
+import CesarCosmico.storage.StorageManager;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+
+@SuppressWarnings("UnstableApiUsage")
+public class IndexCommand extends BaseCommand {
+
+    public IndexCommand(CustomFishingStats plugin) {
+        super(plugin);
+    }
+
+    public static LiteralArgumentBuilder<CommandSourceStack> create(CustomFishingStats plugin) {
+        IndexCommand cmd = new IndexCommand(plugin);
+
+        return LiteralArgumentBuilder.<CommandSourceStack>literal("index")
+                .requires(source -> source.getSender().hasPermission("customfishingstats.admin.index"))
+                .then(LiteralArgumentBuilder.<CommandSourceStack>literal("rebuild")
+                        .executes(cmd::rebuild))
+                .then(LiteralArgumentBuilder.<CommandSourceStack>literal("verify")
+                        .executes(cmd::verify));
+    }
+
+    private int rebuild(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        sendPrefixed(sender, "admin.index.rebuild_start");
+
+        plugin.getStorageManager().rebuildScoreIndex()
+                .thenAccept(report -> Bukkit.getScheduler().runTask(plugin, () ->
+                        sendPrefixed(sender, "admin.index.rebuild_success",
+                                Placeholder.parsed("players", messages.formatNumber(report.getPlayers())),
+                                Placeholder.parsed("time", String.valueOf(report.getScanMillis())))
+                ))
+                .exceptionally(throwable -> {
+                    handleError(sender, throwable);
+                    return null;
+                });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private int verify(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        sendPrefixed(sender, "admin.index.verify_start");
+
+        plugin.getStorageManager().verifyScoreIndex()
+                .thenAccept(report -> Bukkit.getScheduler().runTask(plugin, () -> sendReport(sender, report)))
+                .exceptionally(throwable -> {
+                    handleError(sender, throwable);
+                    return null;
+                });
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private void sendReport(CommandSender sender, StorageManager.IndexReport report) {
+        boolean consistent = report.getMismatched() == 0
+                && report.getMissing() == 0
+                && report.getOrphaned() == 0;
+
+        sendMultiLineMessage(sender, consistent ? "admin.index.verify_ok" : "admin.index.verify_mismatch",
+                Placeholder.parsed("players", messages.formatNumber(report.getPlayers())),
+                Placeholder.parsed("mismatched", String.valueOf(report.getMismatched())),
+                Placeholder.parsed("missing", String.valueOf(report.getMissing())),
+                Placeholder.parsed("orphaned", String.valueOf(report.getOrphaned())),
+                Placeholder.parsed("index_time", String.valueOf(report.getIndexMillis())),
+                Placeholder.parsed("scan_time", String.valueOf(report.getScanMillis())));
+    }
+
+    private void handleError(CommandSender sender, Throwable throwable) {
+        plugin.getLogger().severe("Error in IndexCommand: " + throwable.getMessage());
+        Bukkit.getScheduler().runTask(plugin, () ->
+                sendPrefixed(sender, "errors.operation_failed"));
+    }
+}
@@ -0,0 +1,99 @@
+package CesarCosmico.commands.features;
+
+import CesarCosmico.CustomFishingStats;
+import CesarCosmico.commands.BaseCommand;
+import CesarCosmico.placeholderapi.FishingStatsExpansion;
+import CesarCosmico.services.RankingService;
+import CesarCosmico.storage.StorageExecutor;
+import CesarCosmico.storage.StorageManager;
+import CesarCosmico.storage.method.file.AtomicFileWriter;
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import org.bukkit.command.CommandSender;
+
+@SuppressWarnings("UnstableApiUsage")
+public class MetricsCommand extends BaseCommand {
+
+    public MetricsCommand(CustomFishingStats plugin) {
+        super(plugin);
+    }
+
+    public static LiteralArgumentBuilder<CommandSourceStack> create(CustomFishingStats plugin) {
+        MetricsCommand cmd = new MetricsCommand(plugin);
+
+        return LiteralArgumentBuilder.<CommandSourceStack>literal("metrics")
+                .requires(source -> source.getSender().hasPermission("customfishingstats.admin.metrics"))
+                .executes(cmd::execute);
+    }
+
+    private int execute(CommandContext<CommandSourceStack> ctx) {
+        CommandSender sender = ctx.getSource().getSender();
+        StorageManager storage = plugin.getStorageManager();
+        StorageManager.SaveResult lastSave = storage.getLastSave();
+
+        sendMultiLineMessage(sender, "admin.metrics.storage",
+                Placeholder.parsed("written", String.valueOf(storage.getPlayersWritten())),
+                Placeholder.parsed("skipped", String.valueOf(storage.getPlayersSkipped())),
+                Placeholder.parsed("last_written", String.valueOf(lastSave.getWritten())),
+                Placeholder.parsed("last_skipped", String.valueOf(lastSave.getSkipped())),
+                Placeholder.parsed("last_failed", String.valueOf(lastSave.getFailed())),
+                Placeholder.parsed("dirty", String.valueOf(storage.getDirtyPlayerCount())),
+                Placeholder.parsed("coalesced", String.valueOf(storage.getSaveQueue().getCoalesced())),
+                Placeholder.parsed("in_flight", String.valueOf(storage.getSaveQueue().getInFlight())),
+                Placeholder.parsed("journal_seq", storage.isJournalEnabled()
+                        ? String.valueOf(storage.getJournalSeq()) : "-"));
+
+        StorageExecutor executor = storage.getStorageExecutor();
+        sendMultiLineMessage(sender, "admin.metrics.io",
+                Placeholder.parsed("threads", String.valueOf(executor.getThreads())),
+                Placeholder.parsed("active", String.valueOf(executor.getActiveCount())),
+                Placeholder.parsed("queued", String.valueOf(executor.getQueued())),
+                Placeholder.parsed("peak", String.valueOf(executor.getPeakQueued())),
+                Placeholder.parsed("capacity", String.valueOf(executor.getQueueCapacity())),
+                Placeholder.parsed("completed", String.valueOf(executor.getCompleted())),
+                Placeholder.parsed("overflowed", String.valueOf(executor.getOverflowed())),
+                Placeholder.parsed("overflow_queued", String.valueOf(executor.getOverflowQueued())));
+
+        AtomicFileWriter fileWriter = storage.getFileWriter();
+        long fileWrites = fileWriter.getWrites();
+        sendMultiLineMessage(sender, "admin.metrics.files",
+                Placeholder.parsed("writes", String.valueOf(fileWrites)),
+                Placeholder.parsed("fsync", fileWriter.isFsync()
+                        ? String.format("%.2f", fileWrites == 0 ? 0.0 : fileWriter.getFsyncNanos() / 1_000_000.0 / fileWrites)
+                        : "-"),
+                Placeholder.parsed("recoveries", String.valueOf(fileWriter.getBackupRecoveries())));
+
+        RankingService rankings = plugin.getRankingService();
+        long scoreChanges = rankings.getScoreChanges();
+        long leaderboardUpdates = rankings.getLeaderboardUpdates();
+        sendMultiLineMessage(sender, "admin.metrics.rankings",
+                Placeholder.parsed("changes", String.valueOf(scoreChanges)),
+                Placeholder.parsed("updates", String.valueOf(leaderboardUpdates)),
+                Placeholder.parsed("per_change", String.format("%.2f", scoreChanges == 0 ? 0.0 : (double) leaderboardUpdates / scoreChanges)),
+                Placeholder.parsed("stale", String.valueOf(rankings.getRankingsMarkedStale())),
+                Placeholder.parsed("cache_hits", String.valueOf(rankings.getCacheHits())),
+                Placeholder.parsed("cache_misses", String.valueOf(rankings.getCacheMisses())),
+                Placeholder.parsed("stale_served", String.valueOf(rankings.getStaleServed())),
+                Placeholder.parsed("recalculations", String.valueOf(rankings.getRecalculations())),
+                Placeholder.parsed("evictions", String.valueOf(rankings.getCacheEvictions())),
+                Placeholder.parsed("cached", String.valueOf(rankings.getCachedRankingCount())),
+                Placeholder.parsed("weight", String.valueOf(rankings.getCachedWeight())),
+                Placeholder.parsed("max_weight", String.valueOf(rankings.getMaxCacheWeight())));
+
+        FishingStatsExpansion expansion = plugin.getPlaceholderExpansion();
+        if (expansion != null) {
+            long hits = expansion.getCacheHits();
+            long lookups = hits + expansion.getCacheMisses();
+            sendMultiLineMessage(sender, "admin.metrics.placeholders",
+                    Placeholder.parsed("hits", String.valueOf(hits)),
+                    Placeholder.parsed("misses", String.valueOf(expansion.getCacheMisses())),
+                    Placeholder.parsed("hit_rate", String.format("%.1f", lookups == 0 ? 0.0 : hits * 100.0 / lookups)),
+                    Placeholder.parsed("compiled", String.valueOf(expansion.getCompiledCount())));
+        }
+
+        return Command.SINGLE_SUCCESS;
+    }
+}
@@ -15,10 +15,14 @@ import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @SuppressWarnings("UnstableApiUsage")
 public class TopCommand extends BaseCommand {
@@ -104,33 +108,74 @@ public class TopCommand extends BaseCommand {
         if (!validateType(ctx, type)) return 0;
 
         boolean isAll = category.equalsIgnoreCase("all");
-        List<RankingService.PlayerRankEntry> allPlayers = fetchRegularPlayers(ctx, type, category, isAll);
+        if (!isAll && !validateCategory(ctx, type, category)) return 0;
 
-        if (allPlayers == null || allPlayers.isEmpty()) return 0;
-        if (!validatePage(ctx, page, allPlayers.size())) return 0;
+        CommandSender sender = ctx.getSource().getSender();
+        int offset = (page - 1) * ENTRIES_PER_PAGE;
+        CompletableFuture<RankingService.RankingPage> rankingPage = plugin.getRankingService()
+                .getRankingPageAsync(type, isAll ? null : category, offset, ENTRIES_PER_PAGE);
 
-        displayRanking(ctx, type, category, page, allPlayers, isAll);
+        whenReady(sender, rankingPage, result -> {
+            if (result.getTotal() == 0) {
+                sendPrefixed(sender, "top.no_data",
+                        Placeholder.parsed("type", type),
+                        Placeholder.parsed("category", isAll ? "all" : category));
+                return;
+            }
+            if (!validatePage(sender, page, result.getTotal())) return;
+
+            displayRanking(sender, type, category, page, result, isAll);
+        });
         return com.mojang.brigadier.Command.SINGLE_SUCCESS;
     }
 
     private int executeProgress(CommandContext<CommandSourceStack> ctx, String category, int page) {
         if (!validateProgressCategory(ctx, category)) return 0;
 
-        List<RankingService.PlayerProgressEntry> allPlayersProgress = fetchProgressPlayers(ctx, category);
-        if (allPlayersProgress == null || allPlayersProgress.isEmpty()) return 0;
+        CommandSender sender = ctx.getSource().getSender();
+        CompletableFuture<List<RankingService.PlayerProgressEntry>> progress = plugin.getRankingService()
+                .getTopPlayersByProgressAsync(category, Integer.MAX_VALUE);
 
-        List<RankingService.PlayerRankEntry> allPlayers = allPlayersProgress.stream()
-                .map(entry -> new RankingService.PlayerRankEntry(
-                        entry.getUuid(),
-                        entry.getName(),
-                        (int) Math.round(entry.getProgress() * 10)
-                ))
-                .toList();
+        whenReady(sender, progress, allPlayersProgress -> {
+            if (allPlayersProgress.isEmpty()) {
+                sendPrefixed(sender, "top.no_data_progress",
+                        Placeholder.parsed("category", category));
+                return;
+            }
+            if (!validatePage(sender, page, allPlayersProgress.size())) return;
+
+            int startIndex = (page - 1) * ENTRIES_PER_PAGE;
+            int endIndex = Math.min(startIndex + ENTRIES_PER_PAGE, allPlayersProgress.size());
+
+            List<RankingService.PlayerRankEntry> pageEntries = allPlayersProgress.subList(startIndex, endIndex).stream()
+                    .map(entry -> new RankingService.PlayerRankEntry(
+                            entry.getUuid(),
+                            entry.getName(),
+                            (int) Math.round(entry.getProgress() * 10)
+                    ))
+                    .toList();
+
+            displayRanking(sender, "progress", category, page,
+                    new RankingService.RankingPage(allPlayersProgress.size(), pageEntries), false);
+        });
+        return com.mojang.brigadier.Command.SINGLE_SUCCESS;
+    }
 
-        if (!validatePage(ctx, page, allPlayers.size())) return 0;
+    /**
+     * Muestra el resultado cuando esté listo, siempre en el hilo principal. Si ya estaba en
+     * caché se muestra en el momento; si no, el comando no espera al cálculo.
+     */
+    private <T> void whenReady(CommandSender sender, CompletableFuture<T> future, Consumer<T> render) {
+        if (future.isDone() && !future.isCompletedExceptionally() && Bukkit.isPrimaryThread()) {
+            render.accept(future.join());
+            return;
+        }
 
-        displayRanking(ctx, "progress", category, page, allPlayers, false);
-        return com.mojang.brigadier.Command.SINGLE_SUCCESS;
+        future.thenAccept(result -> Bukkit.getScheduler().runTask(plugin, () -> render.accept(result)))
+                .exceptionally(throwable -> {
+                    handleError(sender, throwable);
+                    return null;
+                });
     }
 
     private boolean validateType(CommandContext<CommandSourceStack> ctx, String type) {
@@ -143,6 +188,23 @@ public class TopCommand extends BaseCommand {
         return true;
     }
 
+    private boolean validateCategory(CommandContext<CommandSourceStack> ctx, String type, String category) {
+        boolean valid;
+        if (type.equals("category")) {
+            valid = plugin.getRankingService().isValidCustomFishingCategory(category);
+        } else {
+            List<String> availableCategories = plugin.getCategoriesByType(type);
+            valid = availableCategories != null && availableCategories.contains(category);
+        }
+
+        if (!valid) {
+            sendPrefixed(ctx.getSource().getSender(), "top.invalid_category",
+                    Placeholder.parsed("type", type),
+                    Placeholder.parsed("category", category));
+        }
+        return valid;
+    }
+
     private boolean validateProgressCategory(CommandContext<CommandSourceStack> ctx, String category) {
         if (!plugin.getRankingService().isValidCustomFishingCategory(category)) {
             sendPrefixed(ctx.getSource().getSender(), "top.invalid_category",
@@ -152,11 +214,11 @@ public class TopCommand extends BaseCommand {
         return true;
     }
 
-    private boolean validatePage(CommandContext<CommandSourceStack> ctx, int page, int totalEntries) {
+    private boolean validatePage(CommandSender sender, int page, int totalEntries) {
         int totalPages = (int) Math.ceil((double) totalEntries / ENTRIES_PER_PAGE);
 
         if (page > totalPages) {
-            sendPrefixed(ctx.getSource().getSender(), "top.invalid_page",
+            sendPrefixed(sender, "top.invalid_page",
                     Placeholder.parsed("page", String.valueOf(page)),
                     Placeholder.parsed("max_page", String.valueOf(totalPages)));
             return false;
@@ -164,65 +226,15 @@ public class TopCommand extends BaseCommand {
         return true;
     }
 
-    private List<RankingService.PlayerRankEntry> fetchRegularPlayers(CommandContext<CommandSourceStack> ctx,
-                                                                     String type, String category, boolean isAll) {
-        List<RankingService.PlayerRankEntry> players;
-
-        if (isAll) {
-            players = plugin.getRankingService().getTopPlayersByTypeWithUUID(type, Integer.MAX_VALUE);
-        } else if (type.equals("category")) {
-            if (!plugin.getRankingService().isValidCustomFishingCategory(category)) {
-                sendPrefixed(ctx.getSource().getSender(), "top.invalid_category",
-                        Placeholder.parsed("type", type),
-                        Placeholder.parsed("category", category));
-                return null;
-            }
-            players = plugin.getRankingService().getTopPlayersWithUUID(type, category, Integer.MAX_VALUE);
-        } else {
-            List<String> availableCategories = plugin.getCategoriesByType(type);
-            if (availableCategories == null || !availableCategories.contains(category)) {
-                sendPrefixed(ctx.getSource().getSender(), "top.invalid_category",
-                        Placeholder.parsed("type", type),
-                        Placeholder.parsed("category", category));
-                return null;
-            }
-            players = plugin.getRankingService().getTopPlayersWithUUID(type, category, Integer.MAX_VALUE);
-        }
-
-        if (players.isEmpty()) {
-            sendPrefixed(ctx.getSource().getSender(), "top.no_data",
-                    Placeholder.parsed("type", type),
-                    Placeholder.parsed("category", isAll ? "all" : category));
-            return null;
-        }
-
-        return players;
-    }
-
-    private List<RankingService.PlayerProgressEntry> fetchProgressPlayers(CommandContext<CommandSourceStack> ctx,
-                                                                          String category) {
-        List<RankingService.PlayerProgressEntry> players =
-                plugin.getRankingService().getTopPlayersByProgressWithUUID(category, Integer.MAX_VALUE);
-
-        if (players.isEmpty()) {
-            sendPrefixed(ctx.getSource().getSender(), "top.no_data_progress",
-                    Placeholder.parsed("category", category));
-            return null;
-        }
-
-        return players;
-    }
-
-    private void displayRanking(CommandContext<CommandSourceStack> ctx, String type, String category,
-                                int page, List<RankingService.PlayerRankEntry> allPlayers, boolean isAll) {
-        int totalPages = (int) Math.ceil((double) allPlayers.size() / ENTRIES_PER_PAGE);
+    private void displayRanking(CommandSender sender, String type, String category,
+                                int page, RankingService.RankingPage rankingPage, boolean isAll) {
+        int totalPages = (int) Math.ceil((double) rankingPage.getTotal() / ENTRIES_PER_PAGE);
         int startIndex = (page - 1) * ENTRIES_PER_PAGE;
-        int endIndex = Math.min(startIndex + ENTRIES_PER_PAGE, allPlayers.size());
 
-        List<RankingService.PlayerRankEntry> pageEntries = allPlayers.subList(startIndex, endIndex);
-        Component fullDisplay = buildDisplay(type, isAll ? "all" : category, page, totalPages, pageEntries, startIndex);
+        Component fullDisplay = buildDisplay(type, isAll ? "all" : category, page, totalPages,
+                rankingPage.getEntries(), startIndex);
 
-        ctx.getSource().getSender().sendMessage(fullDisplay);
+        sender.sendMessage(fullDisplay);
     }
 
     private Component buildDisplay(String type, String category, int page, int totalPages,
@@ -317,4 +329,11 @@ public class TopCommand extends BaseCommand {
                 Placeholder.parsed("error", e.getMessage()));
         plugin.getLogger().severe("Error in TopCommand: " + e.getMessage());
     }
+
+    private void handleError(CommandSender sender, Throwable throwable) {
+        plugin.getLogger().severe("Error in TopCommand: " + throwable.getMessage());
+        Bukkit.getScheduler().runTask(plugin, () ->
+                sendPrefixed(sender, "errors.unknown_error",
+                        Placeholder.parsed("error", String.valueOf(throwable.getMessage()))));
+    }
 }
\ No newline at end of file
@@ -44,6 +44,54 @@ public class ConfigManager {
                 "Create custom languages by copying and editing language files"
         ));
 
+        defaultConfig.set("storage.method", "yaml");
+        defaultConfig.setComments("storage.method", List.of(
+                "Player data backend: yaml, binary or sqlite",
+                "Switching to binary or sqlite migrates storage/data/*.yml once; the YAML files are kept",
+                "sqlite stores everything in storage/stats.db",
+                "sqlite uses the SQLite driver bundled with Paper; if the database cannot be opened, yaml is used"
+        ));
+
+        defaultConfig.set("storage.binary.memory-mapped", false);
+        defaultConfig.setComments("storage.binary.memory-mapped", List.of(
+                "Read binary player files through memory-mapped buffers"
+        ));
+
+        defaultConfig.set("storage.fsync", true);
+        defaultConfig.setComments("storage.fsync", List.of(
+                "Force player and global stats files to disk before replacing them, and the journal on each flush",
+                "Safer against power loss at the cost of slower writes. The previous file is kept as .bak",
+                "Without it the journal survives a server crash but a power loss can drop its last seconds"
+        ));
+
+        defaultConfig.set("storage.journal.enabled", true);
+        defaultConfig.setComments("storage.journal.enabled", List.of(
+                "Append each stat change to storage/journal instead of rewriting player files",
+                "The journal is replayed on startup after a crash. Requires a restart to change"
+        ));
+
+        defaultConfig.set("storage.journal.compact-interval", 1800);
+        defaultConfig.setComments("storage.journal.compact-interval", List.of(
+                "Seconds between journal compactions, which write changed players and global stats",
+                "The journal is also compacted on shutdown"
+        ));
+
+        defaultConfig.set("storage.io.threads", 2);
+        defaultConfig.setComments("storage.io.threads", List.of(
+                "Threads dedicated to reading and writing player data"
+        ));
+
+        defaultConfig.set("storage.io.queue-size", 1000);
+        defaultConfig.setComments("storage.io.queue-size", List.of(
+                "Maximum pending storage operations. When full, new operations wait in an overflow",
+                "list instead of running on the thread that submitted them"
+        ));
+
+        defaultConfig.set("storage.io.shutdown-timeout", 30);
+        defaultConfig.setComments("storage.io.shutdown-timeout", List.of(
+                "Seconds to wait on shutdown for pending storage operations to finish"
+        ));
+
         defaultConfig.set("storage.auto-save.enabled", true);
         defaultConfig.setComments("storage.auto-save.enabled", List.of(
                 "Enable automatic saving of player data and global stats"
@@ -65,6 +113,46 @@ public class ConfigManager {
                 "Storage and auto-save configuration"
         ));
 
+        defaultConfig.set("placeholders.loading", "...");
+        defaultConfig.setComments("placeholders.loading", List.of(
+                "Text shown by PlaceholderAPI placeholders while a player or ranking is loaded in the background",
+                "Placeholders never wait for disk reads or ranking calculations"
+        ));
+
+        defaultConfig.set("placeholders.cache-ttl", 1000);
+        defaultConfig.setComments("placeholders.cache-ttl", List.of(
+                "Milliseconds a placeholder result is reused before it is computed again",
+                "Global and top placeholders are shared by all viewers, player and rank placeholders are cached per player",
+                "Set to 0 to compute every request"
+        ));
+
+        defaultConfig.set("rankings.cache.ttl", 300);
+        defaultConfig.setComments("rankings.cache.ttl", List.of(
+                "Seconds a CustomFishing (category and progress) ranking is considered fresh",
+                "Expired rankings keep being shown while they are recalculated in the background"
+        ));
+
+        defaultConfig.set("rankings.cache.refresh-ahead", 0.8);
+        defaultConfig.setComments("rankings.cache.refresh-ahead", List.of(
+                "Fraction of the ttl after which a ranking is recalculated in the background the next time it is viewed"
+        ));
+
+        defaultConfig.set("rankings.cache.max-entries", 256);
+        defaultConfig.setComments("rankings.cache.max-entries", List.of(
+                "Maximum cached rankings per type; the least recently viewed are discarded first"
+        ));
+
+        defaultConfig.set("rankings.cache.max-weight", 200000);
+        defaultConfig.setComments("rankings.cache.max-weight", List.of(
+                "Maximum player entries kept across all cached rankings (roughly 150 bytes each)",
+                "When exceeded, the least recently viewed rankings are discarded regardless of type"
+        ));
+
+        defaultConfig.set("rankings.cache.types.progress.ttl", 600);
+        defaultConfig.setComments("rankings.cache.types", List.of(
+                "Per-type overrides of ttl, refresh-ahead and max-entries"
+        ));
+
         try {
             defaultConfig.save(configFile);
         } catch (Exception e) {
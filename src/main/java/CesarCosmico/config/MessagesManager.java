@@ -97,7 +97,7 @@ public class MessagesManager {
         return miniMessage.deserialize(raw);
     }
 
-    public String formatNumber(int number) {
+    public String formatNumber(long number) {
         return String.format("%,d", number);
     }
 
@@ -0,0 +1,41 @@
+package CesarCosmico.placeholderapi;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Lectura sin esperas de datos que pueden no estar en memoria: si no están, se lanza una
+ * única carga por clave y se devuelve null sin esperarla. Cuando la carga termina, bien o
+ * mal, la siguiente petición que no los encuentre vuelve a intentarlo.
+ */
+final class BackgroundLoads<K, V> {
+    private final Function<K, V> cached;
+    private final Function<K, CompletableFuture<?>> loader;
+    private final Set<K> loading = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param cached devuelve lo que ya está en memoria, o null
+     * @param loader carga en segundo plano y deja el resultado donde {@code cached} lo encuentre
+     */
+    BackgroundLoads(Function<K, V> cached, Function<K, CompletableFuture<?>> loader) {
+        this.cached = cached;
+        this.loader = loader;
+    }
+
+    V get(K key) {
+        V value = cached.apply(key);
+        if (value != null) return value;
+
+        if (loading.add(key)) {
+            try {
+                loader.apply(key).whenComplete((result, throwable) -> loading.remove(key));
+            } catch (RuntimeException e) {
+                loading.remove(key);
+                throw e;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package CesarCosmico.placeholderapi;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché acotada de placeholders ya compilados, por texto de parámetros, y de los valores
+ * resueltos para cada jugador.
+ *
+ * Las consultas no toman ningún bloqueo: cada entrada solo recuerda la generación en que se
+ * usó por última vez, que avanza con cada compilación nueva. Al llenarse se descarta de una
+ * vez la cuarta parte menos usada recientemente, así que ordenar solo ocurre de tarde en
+ * tarde y nunca en una consulta que acierta. Un valor nuevo o sustituido cuenta como
+ * compilación.
+ */
+final class CompiledCache<K, V> {
+    private final int maxSize;
+    private final int evictTo;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private final AtomicLong generation = new AtomicLong();
+
+    CompiledCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.evictTo = maxSize - Math.max(1, maxSize / 4);
+    }
+
+    /**
+     * Devuelve lo compilado para {@code key}, compilándolo con {@code compiler} si no está.
+     * El compilador no debe devolver null; si dos hilos compilan a la vez, se queda el primero.
+     */
+    V get(K key, Function<K, V> compiler) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            entry.touch(generation.get());
+            return entry.value;
+        }
+
+        Entry<V> created = new Entry<>(compiler.apply(key), generation.incrementAndGet());
+        entry = entries.putIfAbsent(key, created);
+        if (entry != null) {
+            entry.touch(generation.get());
+            return entry.value;
+        }
+
+        if (entries.size() > maxSize) {
+            evict();
+        }
+        return created.value;
+    }
+
+    /**
+     * Valor guardado para {@code key}, o null, sin compilar nada.
+     */
+    V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) return null;
+
+        entry.touch(generation.get());
+        return entry.value;
+    }
+
+    /**
+     * Guarda o sustituye el valor de {@code key}.
+     */
+    void put(K key, V value) {
+        Entry<V> previous = entries.put(key, new Entry<>(value, generation.incrementAndGet()));
+        if (previous == null && entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        synchronized (evictionLock) {
+            if (entries.size() <= maxSize) return;
+
+            List<Map.Entry<K, Entry<V>>> oldest = new ArrayList<>(entries.entrySet());
+            oldest.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+            for (int i = 0; i < oldest.size() - evictTo; i++) {
+                entries.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile long lastUsed;
+
+        private Entry(V value, long generation) {
+            this.value = value;
+            this.lastUsed = generation;
+        }
+
+        // Solo escribe si ha habido compilaciones desde el último uso
+        private void touch(long generation) {
+            if (lastUsed != generation) {
+                lastUsed = generation;
+            }
+        }
+    }
+}
@@ -1,23 +1,61 @@
 package CesarCosmico.placeholderapi;
 
 import CesarCosmico.CustomFishingStats;
+import CesarCosmico.services.GlobalStatsService;
+import CesarCosmico.services.RankingService.PlayerRankEntry;
 import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.data.StatLayout;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Placeholders de CustomFishingStats. Solo leen datos que ya están en memoria: si un jugador
+ * o un ranking todavía no se ha cargado, se pide en segundo plano y mientras tanto se
+ * devuelve el texto de placeholders.loading.
+ *
+ * Cada texto de parámetros distinto se analiza una sola vez y se guarda ya compilado (con
+ * sus claves y contadores resueltos) en una caché acotada, porque los scoreboards piden
+ * los mismos pocos placeholders miles de veces por segundo. Además, el resultado de cada
+ * placeholder se reutiliza durante placeholders.cache-ttl milisegundos: una vez para todos
+ * los jugadores en los globales y rankings, y una vez por jugador en los personales.
+ */
 public class FishingStatsExpansion extends PlaceholderExpansion {
+    private static final int MAX_COMPILED = 1024;
+    // Al superarlo, cada placeholder personal descarta de una vez los resultados usados hace más tiempo
+    private static final int MAX_PLAYER_RESULTS = 256;
+    // Marca en la caché los parámetros que no corresponden a ningún placeholder
+    private static final CompiledPlaceholder UNKNOWN = player -> null;
 
     private final CustomFishingStats plugin;
     private final PlaceholderParser parser;
+    private final BackgroundLoads<UUID, PlayerData> playerData;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final CompiledCache<String, CompiledPlaceholder> compiled = new CompiledCache<>(MAX_COMPILED);
+    private volatile String loadingText;
+    private volatile long cacheTtlNanos;
 
     public FishingStatsExpansion(CustomFishingStats plugin) {
         this.plugin = plugin;
         this.parser = new PlaceholderParser();
+        this.playerData = new BackgroundLoads<>(uuid -> plugin.getStorageManager().getCachedPlayerData(uuid),
+                uuid -> plugin.getStorageManager().loadPlayerData(uuid));
+        reload();
+    }
+
+    /**
+     * Lee placeholders.loading y placeholders.cache-ttl. Se llama al crear la expansión y al
+     * recargar la configuración, no en cada petición.
+     */
+    public void reload() {
+        loadingText = plugin.getConfigManager().getConfig().getString("placeholders.loading", "...");
+        cacheTtlNanos = plugin.getConfigManager().getConfig().getLong("placeholders.cache-ttl", 1000L) * 1_000_000L;
     }
 
     @Override
@@ -46,203 +84,303 @@ public class FishingStatsExpansion extends PlaceholderExpansion {
     @Override
     @Nullable
     public String onRequest(OfflinePlayer player, @NotNull String params) {
-        PlaceholderRequest request = parser.parse(params);
-        if (request == null) return null;
+        return compiled.get(params, this::compile).resolve(player);
+    }
 
-        return switch (request.getMainCategory()) {
-            case "player" -> handlePlayer(player, request);
-            case "global" -> handleGlobal(request);
-            case "top" -> handleTop(request);
-            case "rank" -> handleRank(player, request);
-            default -> null;
-        };
+    private CompiledPlaceholder compile(String params) {
+        CompiledPlaceholder placeholder = parser.compile(params);
+        return placeholder != null ? placeholder : UNKNOWN;
     }
 
-    private String handlePlayer(OfflinePlayer player, PlaceholderRequest request) {
-        if (player == null) return "0";
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
 
-        PlayerData data = loadPlayerData(player);
-        if (data == null) return "0";
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
 
-        String[] args = request.getArgs();
+    public int getCompiledCount() {
+        return compiled.size();
+    }
 
-        if (args.length == 2 && args[1].equals("types")) {
-            return String.valueOf(data.getAllTypes().size());
-        }
+    /**
+     * Datos del jugador si ya están en memoria. Si no, lanza una única carga asíncrona (queda
+     * en la caché offline) y devuelve null para que el placeholder muestre el texto de carga.
+     */
+    private PlayerData getCachedPlayerData(OfflinePlayer player) {
+        return playerData.get(player.getUniqueId());
+    }
 
-        if (args.length == 3 && args[1].equals("total")) {
-            return String.valueOf(data.getTotalByType(args[2]));
-        }
+    /**
+     * Placeholder ya analizado: solo queda leer los valores actuales.
+     */
+    @FunctionalInterface
+    private interface CompiledPlaceholder {
+        String resolve(OfflinePlayer player);
+    }
 
-        if (args.length >= 5 && args[1].equals("category")) {
-            return handlePlayerCategory(data, args);
+    private record CachedValue(String value, long expiresAt) {
+        private boolean isFresh(long now) {
+            return now - expiresAt < 0;
         }
-
-        return null;
     }
 
-    private String handlePlayerCategory(PlayerData data, String[] args) {
-        String action = args[2];
-        String type = args[3];
-
-        if (action.equals("total") && args.length >= 5) {
-            String category = join(args, 4, args.length);
-            return String.valueOf(data.getCategoryTotal(type, category));
+    /**
+     * Reutiliza el resultado de un placeholder mientras no caduque. El texto de carga no se
+     * guarda, para mostrar el valor real en cuanto esté disponible.
+     */
+    private final class CachedPlaceholder implements CompiledPlaceholder {
+        private final CompiledPlaceholder delegate;
+        private final boolean perPlayer;
+        private final CompiledCache<UUID, CachedValue> playerResults;
+        private volatile CachedValue sharedResult;
+
+        private CachedPlaceholder(CompiledPlaceholder delegate, boolean perPlayer) {
+            this.delegate = delegate;
+            this.perPlayer = perPlayer;
+            this.playerResults = perPlayer ? new CompiledCache<>(MAX_PLAYER_RESULTS) : null;
         }
 
-        if (action.equals("item") && args.length >= 6) {
-
-            String categoryOpt1 = join(args, 4, args.length - 1);
-            String itemOpt1 = args[args.length - 1];
-            int amountOpt1 = data.getItemAmount(type, categoryOpt1, itemOpt1);
+        @Override
+        public String resolve(OfflinePlayer player) {
+            UUID uuid = perPlayer && player != null ? player.getUniqueId() : null;
+            long now = System.nanoTime();
 
-            if (amountOpt1 > 0) {
-                return String.valueOf(amountOpt1);
+            CachedValue cached = uuid != null ? playerResults.peek(uuid) : sharedResult;
+            if (cached != null && cached.isFresh(now)) {
+                cacheHits.increment();
+                return cached.value();
             }
 
-            String fullKey = join(args, 4, args.length);
-            int amountOpt2 = data.getItemAmount(type, "", fullKey);
+            cacheMisses.increment();
+            String value = delegate.resolve(player);
 
-            if (amountOpt2 > 0) {
-                return String.valueOf(amountOpt2);
+            long ttl = cacheTtlNanos;
+            if (ttl > 0 && value != null && !value.equals(loadingText)) {
+                store(uuid, new CachedValue(value, now + ttl));
             }
+            return value;
+        }
 
-            if (args.length >= 7) {
-                String categoryOpt3 = join(args, 4, 6);
-                String itemOpt3 = join(args, 6, args.length);
-                int amountOpt3 = data.getItemAmount(type, categoryOpt3, itemOpt3);
-
-                if (amountOpt3 > 0) {
-                    return String.valueOf(amountOpt3);
-                }
+        private void store(UUID uuid, CachedValue value) {
+            if (uuid == null) {
+                sharedResult = value;
+            } else {
+                playerResults.put(uuid, value);
             }
-
-            return "0";
         }
-
-        return null;
     }
 
-    private String handleGlobal(PlaceholderRequest request) {
-        String[] args = request.getArgs();
-
-        switch (args[1]) {
-            case "types":
-                return String.valueOf(plugin.getAllTypes().size());
+    /**
+     * Contador concreto (tipo, categoría y opcionalmente objeto). Los ids de
+     * {@link StatLayout} se buscan la primera vez que existen y después se reutilizan, ya que
+     * no cambian mientras el servidor está encendido.
+     */
+    private static final class CounterHandle {
+        private final String type;
+        private final String category;
+        private final String item;
+        private volatile int typeId = -1;
+        private volatile int slot = -1;
+        private volatile int itemId = -1;
+
+        private CounterHandle(String type, String category, String item) {
+            this.type = type;
+            this.category = category;
+            this.item = item;
+        }
 
-            case "total":
-                if (args.length != 3) return null;
-                return String.valueOf(plugin.getGlobalTotal(args[2]));
+        private int typeId() {
+            int id = typeId;
+            if (id < 0) {
+                id = StatLayout.findTypeId(type);
+                typeId = id;
+            }
+            return id;
+        }
 
-            case "category":
-                if (args.length < 5) return null;
-                return handleGlobalCategory(args);
+        private int slot() {
+            int id = slot;
+            if (id < 0) {
+                id = StatLayout.findSlot(type, category);
+                slot = id;
+            }
+            return id;
         }
 
-        return null;
+        private int itemId() {
+            int id = itemId;
+            if (id < 0) {
+                id = StatLayout.findItemId(item);
+                itemId = id;
+            }
+            return id;
+        }
     }
 
-    private String handleGlobalCategory(String[] args) {
-        String action = args[2];
-        String type = args[3];
+    private class PlaceholderParser {
+        public CompiledPlaceholder compile(String params) {
+            String[] args = params.toLowerCase().split("_");
+            if (args.length < 2) return null;
 
-        if (action.equals("total")) {
-            String category = join(args, 4, args.length);
-            return String.valueOf(plugin.getCategoryTotal(type, category));
+            CompiledPlaceholder placeholder = switch (args[0]) {
+                case "player" -> compilePlayer(args);
+                case "global" -> compileGlobal(args);
+                case "top" -> compileTop(args);
+                case "rank" -> compileRank(args);
+                default -> null;
+            };
+            if (placeholder == null) return null;
+
+            boolean perPlayer = args[0].equals("player") || args[0].equals("rank");
+            return new CachedPlaceholder(placeholder, perPlayer);
         }
 
-        if (action.equals("item") && args.length >= 6) {
-            String category = join(args, 4, args.length - 1);
-            String item = args[args.length - 1];
+        private CompiledPlaceholder compilePlayer(String[] args) {
+            if (args.length == 2 && args[1].equals("types")) {
+                return forPlayer(data -> String.valueOf(data.getAllTypes().size()));
+            }
 
-            Map<String, Integer> items = plugin.getCategoryItems(type, category);
-            return String.valueOf(items.getOrDefault(item, 0));
-        }
+            if (args.length == 3 && args[1].equals("total")) {
+                CounterHandle handle = new CounterHandle(args[2], null, null);
+                return forPlayer(data -> String.valueOf(data.getTotalByType(handle.typeId())));
+            }
 
-        return null;
-    }
+            if (args.length < 5 || !args[1].equals("category")) return null;
 
-    private String handleTop(PlaceholderRequest request) {
-        String[] args = request.getArgs();
+            String action = args[2];
+            String type = args[3];
 
-        if (args.length < 7) return null;
-        if (!args[1].equals("category")) return null;
+            if (action.equals("total")) {
+                CounterHandle handle = new CounterHandle(type, join(args, 4, args.length), null);
+                return forPlayer(data -> String.valueOf(data.getCategoryTotal(handle.slot())));
+            }
 
-        String field = args[2];
-        String type = args[3];
+            if (action.equals("item") && args.length >= 6) {
+                CounterHandle[] candidates = itemCandidates(args, type);
+                return forPlayer(data -> {
+                    for (CounterHandle handle : candidates) {
+                        long amount = data.getItemAmount(handle.slot(), handle.itemId());
+                        if (amount > 0) {
+                            return String.valueOf(amount);
+                        }
+                    }
+                    return "0";
+                });
+            }
 
-        int position;
-        try {
-            position = Integer.parseInt(args[args.length - 1]);
-        } catch (NumberFormatException e) {
             return null;
         }
 
-        String category = join(args, 4, args.length - 1);
-        var top = plugin.getTopPlayers(type, category, position);
+        /**
+         * Un objeto puede contener guiones bajos, igual que la categoría, así que se prueban
+         * en orden: último argumento como objeto, la clave entera sin categoría y, con
+         * suficientes argumentos, los dos primeros como categoría.
+         */
+        private CounterHandle[] itemCandidates(String[] args, String type) {
+            List<CounterHandle> candidates = new ArrayList<>(3);
+            candidates.add(new CounterHandle(type, join(args, 4, args.length - 1), args[args.length - 1]));
+            candidates.add(new CounterHandle(type, "", join(args, 4, args.length)));
+            if (args.length >= 7) {
+                candidates.add(new CounterHandle(type, join(args, 4, 6), join(args, 6, args.length)));
+            }
+            return candidates.toArray(new CounterHandle[0]);
+        }
+
+        private CompiledPlaceholder forPlayer(Function<PlayerData, String> reader) {
+            return player -> {
+                if (player == null) return "0";
 
-        if (position < 1 || position > top.size()) {
-            return field.equals("name") ? "---" : "0";
+                PlayerData data = getCachedPlayerData(player);
+                if (data == null) return loadingText;
+                return reader.apply(data);
+            };
         }
 
-        var entry = top.get(position - 1);
-        return field.equals("name")
-                ? entry.getKey()
-                : String.valueOf(entry.getValue());
-    }
+        private CompiledPlaceholder compileGlobal(String[] args) {
+            GlobalStatsService globalStats = plugin.getGlobalStatsService();
 
-    private String handleRank(OfflinePlayer player, PlaceholderRequest request) {
-        if (player == null) return "N/A";
+            switch (args[1]) {
+                case "types":
+                    return player -> String.valueOf(plugin.getAllTypes().size());
 
-        String[] args = request.getArgs();
-        if (args.length < 5) return "N/A";
-        if (!args[1].equals("category")) return null;
+                case "total":
+                    if (args.length != 3) return null;
+                    CounterHandle typeHandle = new CounterHandle(args[2], null, null);
+                    return player -> String.valueOf(globalStats.getTotalByType(typeHandle.typeId()));
 
-        String type = args[2];
-        String category = join(args, 3, args.length);
+                case "category":
+                    if (args.length < 5) return null;
+                    break;
 
-        int rank = plugin.getPlayerRank(player.getUniqueId(), type, category);
-        return rank > 0 ? String.valueOf(rank) : "N/A";
-    }
+                default:
+                    return null;
+            }
+
+            String action = args[2];
+            String type = args[3];
+
+            if (action.equals("total")) {
+                CounterHandle handle = new CounterHandle(type, join(args, 4, args.length), null);
+                return player -> String.valueOf(globalStats.getCategoryTotal(handle.slot()));
+            }
+
+            if (action.equals("item") && args.length >= 6) {
+                CounterHandle handle = new CounterHandle(type, join(args, 4, args.length - 1), args[args.length - 1]);
+                return player -> String.valueOf(globalStats.getItemAmount(handle.slot(), handle.itemId()));
+            }
 
-    private PlayerData loadPlayerData(OfflinePlayer player) {
-        try {
-            CompletableFuture<PlayerData> future =
-                    plugin.getStorageManager().loadPlayerData(player.getUniqueId());
-            return future.get();
-        } catch (Exception e) {
             return null;
         }
-    }
 
-    private String join(String[] array, int from, int to) {
-        return String.join("_", java.util.Arrays.copyOfRange(array, from, to));
-    }
+        private CompiledPlaceholder compileTop(String[] args) {
+            if (args.length < 7) return null;
+            if (!args[1].equals("category")) return null;
 
-    private static class PlaceholderParser {
-        public PlaceholderRequest parse(String params) {
-            String[] args = params.toLowerCase().split("_");
-            if (args.length < 2) return null;
+            boolean nameField = args[2].equals("name");
+            String type = args[3];
 
-            return new PlaceholderRequest(args[0], args);
-        }
-    }
+            int position;
+            try {
+                position = Integer.parseInt(args[args.length - 1]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
 
-    private static class PlaceholderRequest {
-        private final String mainCategory;
-        private final String[] args;
+            String empty = nameField ? "---" : "0";
+            if (position < 1) {
+                return player -> empty;
+            }
 
-        public PlaceholderRequest(String mainCategory, String[] args) {
-            this.mainCategory = mainCategory;
-            this.args = args;
+            String category = join(args, 4, args.length - 1);
+            return player -> {
+                List<PlayerRankEntry> top = plugin.getRankingService().peekTopPlayers(type, category, position);
+                if (top == null) return loadingText;
+                if (position > top.size()) return empty;
+
+                PlayerRankEntry entry = top.get(position - 1);
+                return nameField ? entry.getName() : String.valueOf(entry.getScore());
+            };
         }
 
-        public String getMainCategory() {
-            return mainCategory;
+        private CompiledPlaceholder compileRank(String[] args) {
+            if (args.length < 5) return player -> "N/A";
+            if (!args[1].equals("category")) return null;
+
+            String type = args[2];
+            String category = join(args, 3, args.length);
+            return player -> {
+                if (player == null) return "N/A";
+
+                int rank = plugin.getRankingService().peekPlayerRank(player.getUniqueId(), type, category);
+                if (rank < 0) return loadingText;
+                return rank > 0 ? String.valueOf(rank) : "N/A";
+            };
         }
 
-        public String[] getArgs() {
-            return args;
+        private String join(String[] array, int from, int to) {
+            return String.join("_", Arrays.copyOfRange(array, from, to));
         }
     }
 }
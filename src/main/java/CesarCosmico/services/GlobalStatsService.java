@@ -1,15 +1,19 @@
 package CesarCosmico.services;
 
 import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.storage.data.StatCounters;
+import CesarCosmico.storage.data.StatLayout;
+import CesarCosmico.storage.data.StripedCounters;
+import CesarCosmico.storage.method.file.AtomicFileWriter;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 public class GlobalStatsService {
@@ -17,15 +21,52 @@ public class GlobalStatsService {
     private final Logger logger;
     private final File storageFolder;
     private final boolean enableAutoSaveLog;
+    private final AtomicFileWriter fileWriter;
 
-    private final Map<String, Map<String, Map<String, Integer>>> globalStats = new ConcurrentHashMap<>();
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final StripedCounters globalStats = new StripedCounters();
     private volatile boolean statsModified = false;
+    /*
+     * Solo la modifican los incrementos del diario y la carga inicial. Los incrementos de
+     * distintos hilos pueden llegar fuera de orden, así que solo avanza. Ningún cambio toma
+     * bloqueos: que contadores y secuencia correspondan a los mismos cambios lo garantiza
+     * quien copia, con las escrituras del diario en pausa.
+     */
+    private final AtomicLong journalSeq = new AtomicLong();
+
+    // Las copias se numeran en el orden en que se toman; solo se escribe una más nueva que la última
+    private final Object snapshotLock = new Object();
+    private long snapshotVersion = 0L;
+    private long writtenVersion = 0L;
+
+    /**
+     * Copia de las estadísticas globales y de la secuencia del diario que incluyen, con la
+     * versión que indica en qué orden se tomó.
+     */
+    public static class Snapshot {
+        private final StatCounters counters;
+        private final long journalSeq;
+        private final long version;
+
+        private Snapshot(StatCounters counters, long journalSeq, long version) {
+            this.counters = counters;
+            this.journalSeq = journalSeq;
+            this.version = version;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getJournalSeq() {
+            return journalSeq;
+        }
+    }
 
-    public GlobalStatsService(Logger logger, File dataFolder, boolean enableAutoSaveLog) {
+    public GlobalStatsService(Logger logger, File dataFolder, boolean enableAutoSaveLog, AtomicFileWriter fileWriter) {
         this.logger = logger;
         this.storageFolder = new File(dataFolder, "storage");
         this.enableAutoSaveLog = enableAutoSaveLog;
+        this.fileWriter = fileWriter;
 
         if (!storageFolder.exists()) {
             storageFolder.mkdirs();
@@ -33,128 +74,83 @@ public class GlobalStatsService {
     }
 
     public void increment(FishingStatContext context) {
-        String type = context.getType();
-        String category = context.getCategory();
-        int amount = context.getAmount();
-
-        lock.writeLock().lock();
-        try {
-            Map<String, Map<String, Integer>> typeData = globalStats.computeIfAbsent(type,
-                    k -> new ConcurrentHashMap<>());
-            Map<String, Integer> categoryData = typeData.computeIfAbsent(category,
-                    k -> new ConcurrentHashMap<>());
+        increment(context, 0L);
+    }
 
-            categoryData.merge("total", amount, Integer::sum);
+    /**
+     * Aplica un incremento registrado en el diario. Si la secuencia ya está incluida en los
+     * datos cargados (reproducción tras un reinicio) se ignora.
+     */
+    public void increment(FishingStatContext context, long seq) {
+        if (seq > 0 && seq <= journalSeq.get()) return;
 
-            if (context.hasItem()) {
-                categoryData.merge(context.getItem(), amount, Integer::sum);
-            }
+        globalStats.add(context.getSlot(), context.getItemId(), context.getAmount());
+        if (seq > 0) {
+            journalSeq.accumulateAndGet(seq, Math::max);
+        }
+        markModified();
+    }
 
-            statsModified = true;
-        } finally {
-            lock.writeLock().unlock();
+    /**
+     * Aplica varios incrementos recién añadidos al diario. {@code firstSeq} es la secuencia del
+     * primero y las demás son consecutivas; sin diario vale 0. A diferencia de la reproducción,
+     * no se descarta ninguno: otro hilo puede haber aplicado ya una secuencia posterior.
+     */
+    public void increment(FishingStatContext[] contexts, long firstSeq) {
+        for (FishingStatContext context : contexts) {
+            globalStats.add(context.getSlot(), context.getItemId(), context.getAmount());
+        }
+        if (firstSeq > 0) {
+            journalSeq.accumulateAndGet(firstSeq + contexts.length - 1, Math::max);
         }
+        markModified();
     }
 
     public void decrement(FishingStatContext context) {
-        String type = context.getType();
-        String category = context.getCategory();
-        int amount = context.getAmount();
-
-        lock.writeLock().lock();
-        try {
-            Map<String, Map<String, Integer>> typeData = globalStats.get(type);
-            if (typeData == null) return;
-
-            Map<String, Integer> categoryData = typeData.get(category);
-            if (categoryData == null) return;
-
-            int currentTotal = categoryData.getOrDefault("total", 0);
-            int newTotal = Math.max(0, currentTotal - amount);
-
-            if (newTotal > 0) {
-                categoryData.put("total", newTotal);
-            } else {
-                categoryData.remove("total");
-            }
-
-            if (context.hasItem()) {
-                String itemId = context.getItem();
-                int currentItem = categoryData.getOrDefault(itemId, 0);
-                int newItem = Math.max(0, currentItem - amount);
-
-                if (newItem > 0) {
-                    categoryData.put(itemId, newItem);
-                } else {
-                    categoryData.remove(itemId);
-                }
-            }
-
-            cleanupEmptyStats(type, category, typeData, categoryData);
-            statsModified = true;
-        } finally {
-            lock.writeLock().unlock();
-        }
+        decrement(context, 0L);
     }
 
-    private void cleanupEmptyStats(String type, String category,
-                                   Map<String, Map<String, Integer>> typeData,
-                                   Map<String, Integer> categoryData) {
-        if (categoryData.isEmpty() || (categoryData.size() == 1 &&
-                categoryData.containsKey("total") && categoryData.get("total") == 0)) {
-            typeData.remove(category);
+    /**
+     * Aplica una resta recién añadida al diario, o sin diario con {@code seq} 0. Como en
+     * {@link #increment(FishingStatContext[], long)}, no se descarta por la secuencia: en la
+     * reproducción es quien llama el que comprueba {@link #getJournalSeq()}.
+     */
+    public void decrement(FishingStatContext context, long seq) {
+        boolean removed = globalStats.remove(context.getSlot(), context.getItemId(), context.getAmount());
+        if (seq > 0) {
+            journalSeq.accumulateAndGet(seq, Math::max);
         }
-        if (typeData.isEmpty()) {
-            globalStats.remove(type);
+        if (removed || seq > 0) {
+            markModified();
         }
     }
 
-    public int getCategoryTotal(String type, String category) {
-        lock.readLock().lock();
-        try {
-            Map<String, Map<String, Integer>> typeData = globalStats.get(type);
-            if (typeData == null) return 0;
-            Map<String, Integer> categoryData = typeData.get(category);
-            if (categoryData == null) return 0;
-            return categoryData.getOrDefault("total", 0);
-        } finally {
-            lock.readLock().unlock();
-        }
+    public long getCategoryTotal(String type, String category) {
+        return globalStats.getTotal(StatLayout.findSlot(type, category));
     }
 
-    public Map<String, Integer> getCategoryItems(String type, String category) {
-        lock.readLock().lock();
-        try {
-            Map<String, Map<String, Integer>> typeData = globalStats.get(type);
-            if (typeData == null) return new HashMap<>();
-            Map<String, Integer> categoryData = typeData.get(category);
-            if (categoryData == null) return new HashMap<>();
-            Map<String, Integer> items = new HashMap<>(categoryData);
-            items.remove("total");
-            return items;
-        } finally {
-            lock.readLock().unlock();
-        }
+    public long getCategoryTotal(int slot) {
+        return globalStats.getTotal(slot);
+    }
+
+    public long getItemAmount(int slot, int itemId) {
+        return globalStats.getItem(slot, itemId);
+    }
+
+    public Map<String, Long> getCategoryItems(String type, String category) {
+        return globalStats.getItems(StatLayout.findSlot(type, category));
     }
 
     public Set<String> getCategoriesByType(String type) {
-        lock.readLock().lock();
-        try {
-            Map<String, Map<String, Integer>> typeData = globalStats.get(type);
-            if (typeData == null) return new HashSet<>();
-            return new HashSet<>(typeData.keySet());
-        } finally {
-            lock.readLock().unlock();
-        }
+        return globalStats.getCategories(StatLayout.findTypeId(type));
     }
 
     public Set<String> getAllTypes() {
-        lock.readLock().lock();
-        try {
-            return new HashSet<>(globalStats.keySet());
-        } finally {
-            lock.readLock().unlock();
-        }
+        return globalStats.getTypes();
+    }
+
+    public long getJournalSeq() {
+        return journalSeq.get();
     }
 
     public boolean isGlobalOnlyCategory(String type, String category) {
@@ -167,68 +163,67 @@ public class GlobalStatsService {
                 category.startsWith("participation");
     }
 
-    public int getTotalByType(String type) {
-        lock.readLock().lock();
-        try {
-            Map<String, Map<String, Integer>> typeData = globalStats.get(type);
-            if (typeData == null) return 0;
-            return typeData.values().stream()
-                    .mapToInt(categoryData -> categoryData.getOrDefault("total", 0))
-                    .sum();
-        } finally {
-            lock.readLock().unlock();
-        }
+    public long getTotalByType(String type) {
+        return globalStats.getTypeTotal(StatLayout.findTypeId(type));
+    }
+
+    public long getTotalByType(int typeId) {
+        return globalStats.getTypeTotal(typeId);
     }
 
+    /**
+     * Sustituye lo que haya en memoria por lo guardado. Solo debe llamarse al arrancar: después
+     * la memoria siempre es más reciente que el disco.
+     */
     public void load() {
         File globalStatsFile = new File(storageFolder, "global_stats.yml");
-        if (!globalStatsFile.exists()) {
+        YamlConfiguration config;
+        try {
+            config = fileWriter.read(globalStatsFile, this::parse);
+        } catch (IOException e) {
+            logger.severe("Failed to load global stats: " + e.getMessage());
+            return;
+        }
+        if (config == null) {
             return;
         }
 
-        YamlConfiguration config = YamlConfiguration.loadConfiguration(globalStatsFile);
         ConfigurationSection contextsSection = config.getConfigurationSection("contexts");
 
-        lock.writeLock().lock();
-        try {
-            globalStats.clear();
-
-            if (contextsSection == null) {
-                loadLegacyFormat(config);
-                return;
-            }
+        globalStats.clear();
+        journalSeq.set(config.getLong("journal-seq", 0L));
 
+        if (contextsSection == null) {
+            loadLegacyFormat(config);
+        } else {
             loadHierarchicalFormat(contextsSection);
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Un fichero guardado nunca está vacío (siempre lleva journal-seq); si lo está, se trata
+     * como dañado para recurrir a la copia.
+     */
+    private YamlConfiguration parse(File file) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(file);
+        if (config.getKeys(false).isEmpty()) {
+            throw new InvalidConfigurationException("Empty global stats file");
+        }
+        return config;
+    }
+
     private void loadHierarchicalFormat(ConfigurationSection contextsSection) {
         for (String type : contextsSection.getKeys(false)) {
             ConfigurationSection typeSection = contextsSection.getConfigurationSection(type);
             if (typeSection == null) continue;
 
-            Map<String, Map<String, Integer>> typeData = new ConcurrentHashMap<>();
-
             for (String category : typeSection.getKeys(false)) {
                 ConfigurationSection categorySection = typeSection.getConfigurationSection(category);
                 if (categorySection == null) continue;
 
-                Map<String, Integer> categoryData = new ConcurrentHashMap<>();
-                categoryData.put("total", categorySection.getInt("total", 0));
-
-                ConfigurationSection itemsSection = categorySection.getConfigurationSection("items");
-                if (itemsSection != null) {
-                    for (String itemId : itemsSection.getKeys(false)) {
-                        categoryData.put(itemId, itemsSection.getInt(itemId, 0));
-                    }
-                }
-
-                typeData.put(category, categoryData);
+                loadCategory(type, category, categorySection);
             }
-
-            globalStats.put(type, typeData);
         }
     }
 
@@ -246,81 +241,114 @@ public class GlobalStatsService {
             ConfigurationSection contextData = oldContexts.getConfigurationSection(contextKey);
             if (contextData == null) continue;
 
-            Map<String, Integer> data = new ConcurrentHashMap<>();
-            data.put("total", contextData.getInt("total", 0));
+            loadCategory(type, category, contextData);
+        }
 
-            ConfigurationSection itemsSection = contextData.getConfigurationSection("items");
-            if (itemsSection != null) {
-                for (String itemId : itemsSection.getKeys(false)) {
-                    data.put(itemId, itemsSection.getInt(itemId, 0));
-                }
+        statsModified = true;
+    }
+
+    private void loadCategory(String type, String category, ConfigurationSection categorySection) {
+        int slot = StatLayout.slot(type, category);
+        globalStats.setTotal(slot, categorySection.getLong("total", 0L));
+
+        ConfigurationSection itemsSection = categorySection.getConfigurationSection("items");
+        if (itemsSection != null) {
+            for (String itemId : itemsSection.getKeys(false)) {
+                globalStats.setItem(slot, StatLayout.itemId(itemId), itemsSection.getLong(itemId, 0L));
             }
+        }
+    }
 
-            globalStats.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
-                    .put(category, data);
+    /**
+     * Copia las estadísticas y la secuencia de los cambios que incluyen, sin detener los
+     * incrementos. Con el diario activo debe llamarse con sus escrituras en pausa
+     * ({@link CesarCosmico.storage.journal.StatJournal#pauseAppends()}): así toda secuencia
+     * asignada está aplicada y ninguna otra puede aplicarse durante la copia.
+     */
+    public Snapshot snapshot() {
+        synchronized (snapshotLock) {
+            return new Snapshot(globalStats.snapshot(), journalSeq.get(), ++snapshotVersion);
         }
+    }
 
-        statsModified = true;
+    /**
+     * Copia y guarda. Con el diario activo solo vale con sus escrituras detenidas (al
+     * cerrar); durante la partida se guarda con la copia que toma la compactación.
+     */
+    public boolean save() {
+        return save(snapshot());
     }
 
-    public void save() {
+    /**
+     * Escribe una copia ya tomada. Los incrementos no esperan ni a la serialización ni a la
+     * escritura. Si dos guardados se solapan, una copia más antigua que la ya escrita se
+     * descarta en lugar de sobrescribirla.
+     */
+    public boolean save(Snapshot snapshot) {
         File globalStatsFile = new File(storageFolder, "global_stats.yml");
         YamlConfiguration config = new YamlConfiguration();
 
-        lock.readLock().lock();
         try {
+            config.set("journal-seq", snapshot.journalSeq);
             ConfigurationSection contextsSection = config.createSection("contexts");
 
-            for (Map.Entry<String, Map<String, Map<String, Integer>>> typeEntry : globalStats.entrySet()) {
-                String type = typeEntry.getKey();
-                Map<String, Map<String, Integer>> typeData = typeEntry.getValue();
-
-                ConfigurationSection typeSection = contextsSection.createSection(type);
+            snapshot.counters.forEach(new StatCounters.StatVisitor<RuntimeException>() {
+                private ConfigurationSection itemsSection;
 
-                for (Map.Entry<String, Map<String, Integer>> categoryEntry : typeData.entrySet()) {
-                    String category = categoryEntry.getKey();
-                    Map<String, Integer> categoryData = categoryEntry.getValue();
-
-                    int total = categoryData.getOrDefault("total", 0);
-                    Map<String, Integer> items = new HashMap<>(categoryData);
-                    items.remove("total");
-
-                    if (total == 0 && items.isEmpty()) continue;
+                @Override
+                public void category(String type, String category, long total, int itemCount) {
+                    ConfigurationSection typeSection = contextsSection.getConfigurationSection(type);
+                    if (typeSection == null) {
+                        typeSection = contextsSection.createSection(type);
+                    }
 
                     ConfigurationSection categorySection = typeSection.createSection(category);
                     categorySection.set("total", total);
+                    itemsSection = itemCount > 0 ? categorySection.createSection("items") : null;
+                }
 
-                    if (!items.isEmpty()) {
-                        ConfigurationSection itemsSection = categorySection.createSection("items");
-                        for (Map.Entry<String, Integer> itemEntry : items.entrySet()) {
-                            itemsSection.set(itemEntry.getKey(), itemEntry.getValue());
-                        }
-                    }
+                @Override
+                public void item(String item, long amount) {
+                    itemsSection.set(item, amount);
                 }
+            });
+
+            byte[] data = config.saveToString().getBytes(StandardCharsets.UTF_8);
+
+            synchronized (this) {
+                if (snapshot.version <= writtenVersion) {
+                    return true;
+                }
+                fileWriter.write(globalStatsFile, data);
+                writtenVersion = snapshot.version;
             }
 
-            config.save(globalStatsFile);
             if (enableAutoSaveLog) {
                 logger.info("Global stats saved");
             }
+            return true;
         } catch (IOException e) {
             logger.severe("Failed to save global stats: " + e.getMessage());
-        } finally {
-            lock.readLock().unlock();
+            return false;
         }
     }
 
     public void autoSave() {
         if (!statsModified) return;
 
-        lock.writeLock().lock();
-        try {
-            if (statsModified) {
-                save();
-                statsModified = false;
-            }
-        } finally {
-            lock.writeLock().unlock();
+        statsModified = false;
+        if (!save()) {
+            statsModified = true;
+        }
+    }
+
+    /**
+     * Solo escribe el indicador si cambia, para que los incrementos de varios hilos no
+     * compitan por la misma línea de caché.
+     */
+    private void markModified() {
+        if (!statsModified) {
+            statsModified = true;
         }
     }
 }
\ No newline at end of file
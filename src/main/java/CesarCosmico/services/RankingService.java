@@ -1,41 +1,91 @@
 package CesarCosmico.services;
 
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.services.ranking.Leaderboard;
+import CesarCosmico.services.ranking.RankingCache;
+import CesarCosmico.services.ranking.RankingCacheBudget;
+import CesarCosmico.services.ranking.RankingCachePolicy;
 import CesarCosmico.storage.StorageManager;
 import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.data.StatLayout;
+import CesarCosmico.storage.index.ScoreIndex;
 import net.momirealms.customfishing.api.BukkitCustomFishingPlugin;
 import net.momirealms.customfishing.api.storage.user.UserData;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
 
-import java.io.File;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class RankingService {
 
     private final StorageManager storageManager;
-    private final File dataFolder;
     private final BukkitCustomFishingPlugin customFishing;
     private final Map<String, Set<String>> customFishingCategoriesMap;
 
-    private final Map<String, CachedRanking> rankingCache = new ConcurrentHashMap<>();
+    /*
+     * Los rankings se identifican por un entero de StatLayout: la ranura (tipo, categoría), o
+     * el complemento (~) del id de tipo para el agregado de todo el tipo. Los de progreso se
+     * identifican por la categoría de CustomFishing.
+     */
+    private final Map<Integer, Leaderboard> leaderboards = new ConcurrentHashMap<>();
+    private final Map<Integer, CachedRanking> rankingCache = new ConcurrentHashMap<>();
     private final Map<String, CachedProgressRanking> progressRankingCache = new ConcurrentHashMap<>();
-    private final Set<String> calculatingKeys = ConcurrentHashMap.newKeySet();
+    // Cálculos en curso: quien pide una clave mientras se calcula espera al mismo futuro
+    private final Map<Integer, CompletableFuture<Leaderboard>> buildingLeaderboards = new ConcurrentHashMap<>();
+
+    // Política de caché y cálculos en curso de los rankings que se recalculan por completo
+    private final RankingCache<Integer, CachedRanking> customFishingRankings;
+    private final RankingCache<String, CachedProgressRanking> progressRankings;
+    private final Executor asyncExecutor = task -> Bukkit.getScheduler().runTaskAsynchronously(
+            Bukkit.getPluginManager().getPlugin("CustomFishingStats"), task);
+
+    // Jugadores cuyas puntuaciones cambiaron desde la última vez que se aplicaron
+    private final Queue<PlayerData> dirtyPlayers = new ConcurrentLinkedQueue<>();
+    private final Object applyLock = new Object();
+
+    /*
+     * Para cada objeto, las ranuras de los rankings de CustomFishing (category y progress)
+     * cuya categoría lo contiene. Se construye al primer uso y se descarta con la caché.
+     */
+    private volatile Map<Integer, int[]> customFishingItemSlots;
+
+    // Cambios de puntuación aplicados y rankings que ha tenido que tocar cada uno
+    private final LongAdder scoreChanges = new LongAdder();
+    private final LongAdder leaderboardUpdates = new LongAdder();
+    private final LongAdder rankingsMarkedStale = new LongAdder();
+
+    private static final int PROGRESS_TYPE = StatLayout.typeId("progress");
+    private static final int CATEGORY_TYPE = StatLayout.typeId("category");
+    // Ninguna clave de ranking vale esto: las ranuras son >= 0 y los agregados ~typeId > MIN_VALUE
+    private static final int NO_RANKING = Integer.MIN_VALUE;
 
     private final ExecutorService calculationExecutor;
     private volatile boolean isCalculating = false;
 
     private static final int MAX_THREADS = 4;
     private static final int BATCH_SIZE = 50;
-    private static final int CACHE_DURATION_MS = 5 * 60 * 1000;
+
+    // Política de caché por tipo para los rankings que se recalculan por completo
+    private volatile RankingCachePolicy defaultCachePolicy = RankingCachePolicy.DEFAULT;
+    private volatile Map<String, RankingCachePolicy> typeCachePolicies = Map.of();
+
+    private final LongAdder recalculations = new LongAdder();
+
+    // Peso máximo compartido por las dos cachés de rankings completos
+    private final RankingCacheBudget cacheBudget = new RankingCacheBudget(List.of(rankingCache, progressRankingCache));
 
     public static class PlayerRankEntry {
         private final UUID uuid;
         private final String name;
-        private final int score;
+        private final long score;
 
-        public PlayerRankEntry(UUID uuid, String name, int score) {
+        public PlayerRankEntry(UUID uuid, String name, long score) {
             this.uuid = uuid;
             this.name = name;
             this.score = score;
@@ -49,7 +99,7 @@ public class RankingService {
             return name;
         }
 
-        public int getScore() {
+        public long getScore() {
             return score;
         }
     }
@@ -78,10 +128,27 @@ public class RankingService {
         }
     }
 
-    public RankingService(StorageManager storageManager, File dataFolder,
+    public static class RankingPage {
+        private final int total;
+        private final List<PlayerRankEntry> entries;
+
+        public RankingPage(int total, List<PlayerRankEntry> entries) {
+            this.total = total;
+            this.entries = entries;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<PlayerRankEntry> getEntries() {
+            return entries;
+        }
+    }
+
+    public RankingService(StorageManager storageManager,
                           Map<String, Set<String>> customFishingCategoriesMap) {
         this.storageManager = storageManager;
-        this.dataFolder = new File(dataFolder, "storage/data");
         this.customFishing = BukkitCustomFishingPlugin.getInstance();
         this.customFishingCategoriesMap = customFishingCategoriesMap != null
                 ? Map.copyOf(customFishingCategoriesMap) : Map.of();
@@ -92,127 +159,366 @@ public class RankingService {
                     t.setDaemon(true);
                     return t;
                 });
+
+        this.customFishingRankings = new RankingCache<>(rankingCache, asyncExecutor,
+                key -> getCachePolicy(StatLayout.typeName(key >= 0 ? StatLayout.slotType(key) : ~key)),
+                key -> calculateRankings(new int[]{key})[0]);
+        this.progressRankings = new RankingCache<>(progressRankingCache, asyncExecutor,
+                category -> getCachePolicy("progress"), this::calculateProgressRanking);
     }
 
-    public List<PlayerRankEntry> getTopPlayersWithUUID(String type, String category, int limit) {
-        String cacheKey = type + ":" + category;
+    /**
+     * Ranking de progreso sin bloquear. Quien lo pide mientras ya se está calculando recibe
+     * el resultado de ese mismo cálculo.
+     */
+    public CompletableFuture<List<PlayerProgressEntry>> getTopPlayersByProgressAsync(String category, int limit) {
+        return progressRankings.get(category)
+                .thenApply(ranking -> ranking != null ? ranking.getTop(limit) : Collections.emptyList());
+    }
+
+    /**
+     * Página de un ranking sin bloquear; con {@code category} null, la del agregado del
+     * tipo. Si el ranking aún no existe, todas las peticiones concurrentes esperan al mismo
+     * cálculo en lugar de recibir una página vacía.
+     */
+    public CompletableFuture<RankingPage> getRankingPageAsync(String type, String category, int offset, int limit) {
+        applyPendingScores();
 
         if (!isCustomFishingType(type)) {
-            CachedRanking cached = rankingCache.get(cacheKey);
+            return getLeaderboardAsync(type, category).thenApply(leaderboard -> leaderboard.page(offset, limit));
+        }
+
+        return getCustomFishingRanking(type, category).thenApply(ranking -> ranking.getPage(offset, limit));
+    }
+
+    /**
+     * Top de un ranking sin bloquear nunca: solo lee rankings ya construidos. Si todavía no
+     * existe, lanza su cálculo en segundo plano y devuelve null. Un ranking de
+     * CustomFishing caducado se sigue devolviendo mientras se recalcula. Un tipo o una
+     * categoría desconocidos dan un top vacío sin construir nada.
+     */
+    public List<PlayerRankEntry> peekTopPlayers(String type, String category, int limit) {
+        applyPendingScores();
+        int cacheKey = findRankingKey(type, category);
+        if (cacheKey == NO_RANKING) return Collections.emptyList();
 
-            if (cached != null && !cached.isExpired()) {
-                return cached.getTop(limit);
+        if (!isCustomFishingType(type)) {
+            Leaderboard leaderboard = leaderboards.get(cacheKey);
+            if (leaderboard != null) {
+                return leaderboard.top(limit);
             }
+            getLeaderboardAsync(type, category);
+            return null;
+        }
 
-            if (calculatingKeys.contains(cacheKey)) {
-                if (cached != null) {
-                    return cached.getTop(limit);
-                }
-                return Collections.emptyList();
+        CachedRanking cached = customFishingRankings.peek(cacheKey);
+        return cached != null ? cached.getTop(limit) : null;
+    }
+
+    /**
+     * Posición del jugador sin bloquear nunca: devuelve -1 si el ranking aún se está
+     * calculando y 0 si el jugador no aparece o el ranking no existe.
+     */
+    public int peekPlayerRank(UUID targetUuid, String type, String category) {
+        applyPendingScores();
+        int cacheKey = findRankingKey(type, category);
+        if (cacheKey == NO_RANKING) return 0;
+
+        if (!isCustomFishingType(type)) {
+            Leaderboard leaderboard = leaderboards.get(cacheKey);
+            if (leaderboard != null) {
+                return leaderboard.rankOf(targetUuid);
             }
+            getLeaderboardAsync(type, category);
+            return -1;
         }
 
-        return calculateTopPlayers(type, category, limit);
+        CachedRanking cached = customFishingRankings.peek(cacheKey);
+        return cached != null ? cached.getRank(targetUuid) : -1;
     }
 
-    public List<Map.Entry<String, Integer>> getTopPlayers(String type, String category, int limit) {
-        return getTopPlayersWithUUID(type, category, limit).stream()
-                .map(entry -> Map.entry(entry.getName(), entry.getScore()))
-                .collect(Collectors.toList());
+    /**
+     * Ranking construido de una clave. Solo se construye una vez aunque lo pidan muchos a
+     * la vez: todos reciben el mismo futuro.
+     */
+    private CompletableFuture<Leaderboard> getLeaderboardAsync(String type, String category) {
+        int cacheKey = rankingKey(type, category);
+        Leaderboard leaderboard = leaderboards.get(cacheKey);
+        if (leaderboard != null) {
+            return CompletableFuture.completedFuture(leaderboard);
+        }
+
+        return singleFlight(asyncExecutor, buildingLeaderboards, cacheKey, () -> buildLeaderboard(type, category));
     }
 
-    public List<PlayerRankEntry> getTopPlayersByTypeWithUUID(String type, int limit) {
-        String cacheKey = type + ":__ALL__";
+    /**
+     * Ranking de CustomFishing en caché, aunque haya caducado; solo si todavía no existe
+     * hay que esperar a calcularlo.
+     */
+    private CompletableFuture<CachedRanking> getCustomFishingRanking(String type, String category) {
+        return customFishingRankings.get(rankingKey(type, category));
+    }
 
-        if (!isCustomFishingType(type)) {
-            CachedRanking cached = rankingCache.get(cacheKey);
+    /**
+     * Ejecuta una única vez por clave un cálculo en una tarea asíncrona. Quien llega
+     * mientras está en curso recibe el mismo futuro en lugar de lanzar otro cálculo.
+     */
+    static <K, T> CompletableFuture<T> singleFlight(Executor executor, Map<K, CompletableFuture<T>> inFlight,
+                                                    K key, Supplier<T> calculation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
 
-            if (cached != null && !cached.isExpired()) {
-                return cached.getTop(limit);
-            }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(calculation.get());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(key, future);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 
-            if (calculatingKeys.contains(cacheKey)) {
-                if (cached != null) {
-                    return cached.getTop(limit);
+    /**
+     * Anota qué estadísticas del jugador cambiaron sin tocar todavía los rankings. Es lo
+     * único que se hace en cada captura; el jugador se encola una vez por mucho que pesque y
+     * sus puntuaciones se aplican en {@link #applyPendingScores()}.
+     */
+    public void markDirty(PlayerData playerData, FishingStatContext[] contexts) {
+        boolean queued = false;
+        for (FishingStatContext context : contexts) {
+            queued |= playerData.markRankingDirty(context.getSlot(), context.getItemId());
+        }
+        if (queued) {
+            dirtyPlayers.add(playerData);
+        }
+    }
+
+    /**
+     * Aplica las puntuaciones pendientes solo a los rankings afectados: el de cada ranura
+     * que cambió, el agregado de su tipo y los de CustomFishing que contienen el objeto
+     * capturado. Se llama antes de cada consulta, por lo que los resultados nunca quedan
+     * por detrás de las capturas.
+     */
+    public void applyPendingScores() {
+        if (dirtyPlayers.isEmpty()) return;
+
+        synchronized (applyLock) {
+            PlayerData playerData;
+            while ((playerData = dirtyPlayers.poll()) != null) {
+                int[] changes = playerData.drainRankingChanges();
+                for (int i = 0; i < changes.length; i += 2) {
+                    int slot = changes[i];
+                    if (!containsSlot(changes, i, slot)) {
+                        updatePlayerScore(playerData, StatLayout.slotType(slot), slot);
+                    }
+                    markCustomFishingStale(changes[i + 1]);
                 }
-                return Collections.emptyList();
             }
         }
+    }
+
+    // La misma ranura aparece una vez por cada objeto distinto que cambió en ella
+    private static boolean containsSlot(int[] changes, int end, int slot) {
+        for (int i = 0; i < end; i += 2) {
+            if (changes[i] == slot) return true;
+        }
+        return false;
+    }
 
-        return calculateTopPlayersByType(type, limit);
+    /**
+     * Aplica a los rankings ya construidos la puntuación actual del jugador para
+     * (type, category) y para el agregado del tipo. Se llama justo después de
+     * modificar sus estadísticas, por lo que nunca requiere leer disco.
+     */
+    public void updatePlayerScore(PlayerData playerData, String type, String category) {
+        int slot = StatLayout.slot(type, category);
+        updatePlayerScore(playerData, StatLayout.slotType(slot), slot);
     }
 
-    public List<Map.Entry<String, Integer>> getTopPlayersByType(String type, int limit) {
-        return getTopPlayersByTypeWithUUID(type, limit).stream()
-                .map(entry -> Map.entry(entry.getName(), entry.getScore()))
-                .collect(Collectors.toList());
+    public void updatePlayerScore(PlayerData playerData, FishingStatContext context) {
+        updatePlayerScore(playerData, context.getTypeId(), context.getSlot());
     }
 
-    public List<PlayerProgressEntry> getTopPlayersByProgressWithUUID(String category, int limit) {
-        String cacheKey = "progress:" + category;
+    private void updatePlayerScore(PlayerData playerData, int typeId, int slot) {
+        scoreChanges.increment();
+        // Los rankings de CustomFishing se calculan con sus propios datos, no con estos
+        if (isCustomFishingType(typeId)) return;
+
+        UUID uuid = playerData.getUuid();
+        String name = playerData.getName();
+
+        Leaderboard categoryBoard = leaderboards.get(slot);
+        if (categoryBoard != null) {
+            categoryBoard.update(uuid, name, playerData.getCategoryTotal(slot));
+            leaderboardUpdates.increment();
+        }
+
+        Leaderboard typeBoard = leaderboards.get(~typeId);
+        if (typeBoard != null) {
+            typeBoard.update(uuid, name, playerData.getTotalByType(typeId));
+            leaderboardUpdates.increment();
+        }
+    }
 
-        if (calculatingKeys.contains(cacheKey)) {
-            CachedProgressRanking cached = progressRankingCache.get(cacheKey);
-            if (cached != null) {
-                return cached.getTop(limit);
+    /**
+     * Una captura cambia en CustomFishing el total de peces y las categorías que contienen
+     * el objeto, también su progreso. Esos rankings, si están en caché, se marcan como
+     * desactualizados: se siguen sirviendo hasta que se recalculan.
+     */
+    private void markCustomFishingStale(int itemId) {
+        if (rankingCache.isEmpty() && progressRankingCache.isEmpty()) return;
+
+        markStale(~CATEGORY_TYPE);
+        markStale(~PROGRESS_TYPE);
+
+        if (itemId < 0) return;
+        int[] slots = getCustomFishingItemSlots().get(itemId);
+        if (slots == null) return;
+
+        for (int slot : slots) {
+            markStale(rankingCache.get(slot));
+            if (StatLayout.slotType(slot) == PROGRESS_TYPE) {
+                markStale(progressRankingCache.get(StatLayout.slotCategory(slot)));
             }
-            return Collections.emptyList();
         }
+    }
 
-        return calculateTopPlayersByProgress(category, limit);
+    private void markStale(int cacheKey) {
+        markStale(rankingCache.get(cacheKey));
     }
 
-    public List<Map.Entry<String, Double>> getTopPlayersByProgress(String category, int limit) {
-        return getTopPlayersByProgressWithUUID(category, limit).stream()
-                .map(entry -> Map.entry(entry.getName(), entry.getProgress()))
-                .collect(Collectors.toList());
+    private void markStale(RankingCache.Entry cached) {
+        if (cached != null && cached.markStale()) {
+            rankingsMarkedStale.increment();
+        }
     }
 
-    public int getPlayerRank(UUID targetUuid, String type, String category) {
-        String cacheKey = type + ":" + category;
+    private Map<Integer, int[]> getCustomFishingItemSlots() {
+        Map<Integer, int[]> itemSlots = customFishingItemSlots;
+        if (itemSlots != null) return itemSlots;
 
-        if (!isCustomFishingType(type)) {
-            CachedRanking cached = rankingCache.get(cacheKey);
-            if (cached != null && !cached.isExpired()) {
-                return cached.getRank(getPlayerName(targetUuid));
+        Map<String, List<String>> membersByCategory = new HashMap<>();
+        for (String category : getCustomFishingCategories()) {
+            try {
+                List<String> members = customFishing.getStatisticsManager().getCategoryMembers(category);
+                if (members != null) {
+                    membersByCategory.put(category, members);
+                }
+            } catch (Exception e) {
+                // Categoría sin miembros legibles: ninguna captura la marca
             }
         }
 
-        calculateTopPlayers(type, category, 1000);
-        CachedRanking cached = rankingCache.get(cacheKey);
-        return cached != null ? cached.getRank(getPlayerName(targetUuid)) : 0;
+        itemSlots = itemSlots(membersByCategory);
+        customFishingItemSlots = itemSlots;
+        return itemSlots;
     }
 
-    public void invalidatePlayerCache(UUID uuid) {
-        String playerName = getPlayerName(uuid);
-        if (playerName == null) return;
-
-        rankingCache.entrySet().removeIf(entry -> {
-            CachedRanking cached = entry.getValue();
-            if (cached.containsPlayer(playerName)) {
-                return true;
+    /**
+     * Índice inverso de las categorías de CustomFishing: para cada objeto, las ranuras de
+     * category y de progress de todas las categorías que lo contienen.
+     */
+    static Map<Integer, int[]> itemSlots(Map<String, List<String>> membersByCategory) {
+        Map<Integer, List<Integer>> slotsByItem = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : membersByCategory.entrySet()) {
+            String category = entry.getKey();
+            for (String member : entry.getValue()) {
+                List<Integer> slots = slotsByItem.computeIfAbsent(StatLayout.itemId(member), k -> new ArrayList<>());
+                slots.add(StatLayout.slot("category", category));
+                slots.add(StatLayout.slot("progress", category));
             }
-            return false;
-        });
+        }
+
+        Map<Integer, int[]> itemSlots = new HashMap<>(slotsByItem.size() * 2);
+        for (Map.Entry<Integer, List<Integer>> entry : slotsByItem.entrySet()) {
+            itemSlots.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+        return itemSlots;
+    }
+
+    public long getScoreChanges() {
+        return scoreChanges.sum();
+    }
 
-        Set<String> typesToInvalidate = new HashSet<>();
-        for (String key : rankingCache.keySet()) {
-            if (key.contains(":")) {
-                String type = key.substring(0, key.indexOf(':'));
-                typesToInvalidate.add(type + ":__ALL__");
+    public long getLeaderboardUpdates() {
+        return leaderboardUpdates.sum();
+    }
+
+    public long getRankingsMarkedStale() {
+        return rankingsMarkedStale.sum();
+    }
+
+    /**
+     * Carga la política de caché general y la de cada tipo de la sección rankings.cache.
+     */
+    public void configureCache(ConfigurationSection section) {
+        RankingCachePolicy defaults = RankingCachePolicy.from(section, RankingCachePolicy.DEFAULT);
+        Map<String, RankingCachePolicy> types = new HashMap<>();
+
+        ConfigurationSection typesSection = section != null ? section.getConfigurationSection("types") : null;
+        if (typesSection != null) {
+            for (String type : typesSection.getKeys(false)) {
+                types.put(type, RankingCachePolicy.from(typesSection.getConfigurationSection(type), defaults));
             }
         }
-        typesToInvalidate.forEach(rankingCache::remove);
+
+        defaultCachePolicy = defaults;
+        typeCachePolicies = Map.copyOf(types);
+        cacheBudget.setMaxWeight(section != null
+                ? Math.max(1L, section.getLong("max-weight", RankingCacheBudget.DEFAULT_MAX_WEIGHT))
+                : RankingCacheBudget.DEFAULT_MAX_WEIGHT);
     }
 
-    public void invalidateCategoryCache(String type, String category) {
-        String cacheKey = type + ":" + category;
-        rankingCache.remove(cacheKey);
+    private RankingCachePolicy getCachePolicy(String type) {
+        return typeCachePolicies.getOrDefault(type, defaultCachePolicy);
+    }
 
-        String typeKey = type + ":__ALL__";
-        rankingCache.remove(typeKey);
+    public long getCacheHits() {
+        return customFishingRankings.getHits() + progressRankings.getHits();
     }
 
+    public long getCacheMisses() {
+        return customFishingRankings.getMisses() + progressRankings.getMisses();
+    }
+
+    public long getStaleServed() {
+        return customFishingRankings.getStaleServed() + progressRankings.getStaleServed();
+    }
+
+    public long getRecalculations() {
+        return recalculations.sum();
+    }
+
+    public long getCacheEvictions() {
+        return cacheBudget.getEvictions();
+    }
+
+    public int getCachedRankingCount() {
+        return rankingCache.size() + progressRankingCache.size();
+    }
+
+    public long getCachedWeight() {
+        return cacheBudget.getWeight();
+    }
+
+    public long getMaxCacheWeight() {
+        return cacheBudget.getMaxWeight();
+    }
+
+    /**
+     * Recalcula en segundo plano los rankings en caché que ya han caducado o superado el
+     * umbral de refresh-ahead, aunque nadie los haya consultado desde entonces.
+     */
     public void recalculateAll() {
         if (isCalculating) return;
 
@@ -221,25 +527,13 @@ public class RankingService {
                 () -> {
                     isCalculating = true;
                     try {
-                        // OPTIMIZED: Solo recalcular lo que está en caché
-                        Set<String> keysToRecalculate = new HashSet<>(rankingCache.keySet());
-
-                        for (String key : keysToRecalculate) {
-                            if (key.contains(":")) {
-                                String[] parts = key.split(":", 2);
-                                String type = parts[0];
-                                String category = parts.length > 1 ? parts[1] : null;
-
-                                if (category != null && !category.equals("__ALL__")) {
-                                    calculateTopPlayers(type, category, 1000);
-                                } else {
-                                    calculateTopPlayersByType(type, 1000);
-                                }
-                            }
-                        }
+                        applyPendingScores();
+
+                        recalculateRankings(customFishingRankings.dueKeys());
+                        progressRankings.recalculate(progressRankings.dueKeys());
 
-                        // Limpiar caché offline después de recalcular
-                        storageManager.clearOfflineCache();
+                        // Limpiar caché offline después de recalcular, salvo los cambios sin guardar
+                        storageManager.pruneOfflineCache(0);
                     } finally {
                         isCalculating = false;
                     }
@@ -247,9 +541,22 @@ public class RankingService {
         );
     }
 
+    private void putRanking(int cacheKey, CachedRanking ranking) {
+        int typeId = cacheKey >= 0 ? StatLayout.slotType(cacheKey) : ~cacheKey;
+        cacheBudget.put(rankingCache, cacheKey, ranking,
+                key -> (key >= 0 ? StatLayout.slotType(key) : ~key) == typeId,
+                getCachePolicy(StatLayout.typeName(typeId)).getMaxEntries());
+    }
+
+    private void putProgressRanking(String category, CachedProgressRanking ranking) {
+        cacheBudget.put(progressRankingCache, category, ranking, key -> true,
+                getCachePolicy("progress").getMaxEntries());
+    }
+
     public void clearCache() {
-        rankingCache.clear();
-        progressRankingCache.clear();
+        leaderboards.clear();
+        cacheBudget.clear();
+        customFishingItemSlots = null;
     }
 
     public boolean isValidCustomFishingCategory(String category) {
@@ -275,92 +582,166 @@ public class RankingService {
         return allCategories;
     }
 
-    private List<PlayerRankEntry> calculateTopPlayers(String type, String category, int limit) {
-        String cacheKey = type + ":" + category;
+    private int rankingKey(String type, String category) {
+        return category != null ? StatLayout.slot(type, category) : ~StatLayout.typeId(type);
+    }
 
-        if (!calculatingKeys.add(cacheKey)) {
-            CachedRanking cached = rankingCache.get(cacheKey);
-            if (cached != null) {
-                return cached.getTop(limit);
-            }
-            return Collections.emptyList();
+    /**
+     * Como {@link #rankingKey} pero sin registrar tipos ni categorías que nunca se han visto,
+     * para las consultas que llegan de placeholders con argumentos arbitrarios: devuelve
+     * {@link #NO_RANKING}. Las categorías de CustomFishing no pasan por las estadísticas
+     * propias, así que se registran solo si están configuradas.
+     */
+    private int findRankingKey(String type, String category) {
+        if (category == null) {
+            int typeId = StatLayout.findTypeId(type);
+            return typeId >= 0 ? ~typeId : NO_RANKING;
         }
 
-        try {
-            ConcurrentHashMap<UUID, PlayerRankEntry> playerScores = new ConcurrentHashMap<>();
-            Set<UUID> allPlayerUUIDs = getAllPlayerUUIDs();
+        int slot = StatLayout.findSlot(type, category);
+        if (slot >= 0) return slot;
+        return isCustomFishingType(type) && isValidCustomFishingCategory(category)
+                ? StatLayout.slot(type, category)
+                : NO_RANKING;
+    }
 
-            List<UUID> uuidList = new ArrayList<>(allPlayerUUIDs);
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
+    /**
+     * Construye el ranking de una clave con un único recorrido de todos los jugadores.
+     * A partir de ese momento se mantiene con {@link #updatePlayerScore}. Solo se llama
+     * desde {@link #getLeaderboardAsync}, que garantiza una construcción por clave.
+     */
+    private Leaderboard buildLeaderboard(String type, String category) {
+        int cacheKey = rankingKey(type, category);
 
-            for (int i = 0; i < uuidList.size(); i += BATCH_SIZE) {
-                int end = Math.min(i + BATCH_SIZE, uuidList.size());
-                List<UUID> batch = uuidList.subList(i, end);
+        try {
+            Leaderboard leaderboard = new Leaderboard();
+            ScoreIndex scoreIndex = storageManager.getScoreIndex();
 
-                CompletableFuture<Void> future = CompletableFuture.runAsync(() ->
-                        processBatch(batch, type, category, playerScores), calculationExecutor
-                );
-                futures.add(future);
+            if (scoreIndex.isReady()) {
+                fillFromScoreIndex(leaderboard, scoreIndex, type, category);
+            } else {
+                fillFromPlayerData(leaderboard, type, category);
             }
+            leaderboards.put(cacheKey, leaderboard);
+            resyncOnlinePlayers(leaderboard, type, category);
+            return leaderboard;
+        } catch (RuntimeException e) {
+            Bukkit.getLogger().severe("Error calculating ranking " + describe(type, category) + ": " + e.getMessage());
+            throw e;
+        }
+    }
 
-            CompletableFuture<Void> allOf = CompletableFuture.allOf(
-                    futures.toArray(new CompletableFuture[0])
-            );
-
-            try {
-                allOf.get(30, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-                Bukkit.getLogger().warning("Ranking calculation timeout for " + cacheKey);
-            }
+    /**
+     * Construcción leyendo los datos de cada jugador. Si no termina a tiempo o no se pudo
+     * leer algún jugador falla en lugar de devolver un ranking incompleto: no se publica y
+     * la siguiente consulta lo vuelve a construir.
+     */
+    private void fillFromPlayerData(Leaderboard leaderboard, String type, String category) {
+        List<UUID> uuidList = new ArrayList<>(getAllPlayerUUIDs());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        Map<UUID, Exception> skipped = new ConcurrentHashMap<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+
+        for (int i = 0; i < uuidList.size(); i += BATCH_SIZE) {
+            int end = Math.min(i + BATCH_SIZE, uuidList.size());
+            List<UUID> batch = uuidList.subList(i, end);
+
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                for (UUID uuid : batch) {
+                    if (abandoned.get()) return;
+                    try {
+                        String playerName = getPlayerName(uuid);
+                        if (playerName == null || playerName.isEmpty()) continue;
 
-            List<PlayerRankEntry> sorted = playerScores.values().stream()
-                    .sorted(Comparator.comparingInt(PlayerRankEntry::getScore).reversed())
-                    .collect(Collectors.toList());
+                        leaderboard.update(uuid, playerName, getStoredScore(uuid, type, category));
+                    } catch (Exception e) {
+                        skipped.put(uuid, e);
+                    }
+                }
+            }, calculationExecutor);
+            futures.add(future);
+        }
 
-            rankingCache.put(cacheKey, new CachedRanking(sorted));
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(30, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            abandoned.set(true);
+            throw new IllegalStateException("timed out after 30s, it will be rebuilt on the next request");
+        } catch (InterruptedException e) {
+            abandoned.set(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
 
-            return sorted.stream().limit(limit).collect(Collectors.toList());
-        } catch (Exception e) {
-            Bukkit.getLogger().severe("Error calculating ranking: " + e.getMessage());
-            return Collections.emptyList();
-        } finally {
-            calculatingKeys.remove(cacheKey);
+        if (!skipped.isEmpty()) {
+            StringBuilder players = new StringBuilder();
+            skipped.entrySet().stream().limit(10).forEach(entry -> players.append("\n  ")
+                    .append(entry.getKey()).append(": ").append(entry.getValue().getMessage()));
+            Bukkit.getLogger().warning("Could not read " + skipped.size() + " players for ranking "
+                    + describe(type, category) + ":" + players
+                    + (skipped.size() > 10 ? "\n  ..." : ""));
+            throw new IllegalStateException(skipped.size() + " players could not be read,"
+                    + " it will be rebuilt on the next request");
         }
     }
 
-    private void processBatch(List<UUID> batch, String type, String category,
-                              ConcurrentHashMap<UUID, PlayerRankEntry> playerScores) {
-        for (UUID uuid : batch) {
-            try {
-                String playerName = getPlayerName(uuid);
-                if (playerName == null || playerName.isEmpty()) continue;
-
-                int score = getPlayerScore(uuid, type, category);
-                if (score > 0) {
-                    playerScores.put(uuid, new PlayerRankEntry(uuid, playerName, score));
-                }
-            } catch (Exception e) {
-                // Skip player on error
+    /**
+     * Construcción en frío a partir del índice de puntuaciones: un único fichero ya cargado
+     * en memoria en lugar de abrir el YAML de cada jugador.
+     */
+    private void fillFromScoreIndex(Leaderboard leaderboard, ScoreIndex scoreIndex,
+                                    String type, String category) {
+        for (ScoreIndex.Summary summary : scoreIndex.getSummaries()) {
+            long score = category != null
+                    ? summary.getCategoryTotal(type, category)
+                    : summary.getTotalByType(type);
+            if (score <= 0) continue;
+
+            String playerName = summary.getName();
+            if (playerName == null || playerName.isEmpty()) {
+                playerName = getPlayerName(summary.getUuid());
             }
+            leaderboard.update(summary.getUuid(), playerName, score);
         }
     }
 
-    private List<PlayerRankEntry> calculateTopPlayersByType(String type, int limit) {
-        String cacheKey = type + ":__ALL__";
+    /**
+     * Los jugadores conectados pueden haber pescado mientras se construía el ranking;
+     * se reaplica su puntuación actual una vez publicado.
+     */
+    private void resyncOnlinePlayers(Leaderboard leaderboard, String type, String category) {
+        for (PlayerData playerData : storageManager.getOnlinePlayerSnapshots()) {
+            long score = category != null
+                    ? playerData.getCategoryTotal(type, category)
+                    : playerData.getTotalByType(type);
+            leaderboard.update(playerData.getUuid(), playerData.getName(), score);
+        }
+    }
 
-        if (!calculatingKeys.add(cacheKey)) {
-            CachedRanking cached = rankingCache.get(cacheKey);
-            if (cached != null) {
-                return cached.getTop(limit);
-            }
-            return Collections.emptyList();
+    /**
+     * Calcula a la vez varios rankings de CustomFishing con un único recorrido de los
+     * jugadores: el nombre y los datos de CustomFishing de cada uno se leen una sola vez y
+     * su puntuación se reparte entre todas las claves, en lugar de un recorrido completo por
+     * clave. Los rankings se guardan completos porque también sirven posiciones y páginas.
+     */
+    private CachedRanking[] calculateRankings(int[] cacheKeys) {
+        recalculations.add(cacheKeys.length);
+
+        // Miembros de cada categoría, o null si la clave es el agregado del tipo
+        List<List<String>> categoryMembers = new ArrayList<>(cacheKeys.length);
+        List<Map<UUID, PlayerRankEntry>> playerScores = new ArrayList<>(cacheKeys.length);
+
+        for (int cacheKey : cacheKeys) {
+            playerScores.add(new ConcurrentHashMap<>());
+            categoryMembers.add(cacheKey < 0 ? null : getCategoryMembers(StatLayout.slotCategory(cacheKey)));
         }
 
+        CachedRanking[] rankings = new CachedRanking[cacheKeys.length];
         try {
-            ConcurrentHashMap<UUID, PlayerRankEntry> playerScores = new ConcurrentHashMap<>();
-            Set<UUID> allPlayerUUIDs = getAllPlayerUUIDs();
-
-            List<UUID> uuidList = new ArrayList<>(allPlayerUUIDs);
+            List<UUID> uuidList = new ArrayList<>(getAllPlayerUUIDs());
             List<CompletableFuture<Void>> futures = new ArrayList<>();
 
             for (int i = 0; i < uuidList.size(); i += BATCH_SIZE) {
@@ -373,15 +754,17 @@ public class RankingService {
                             String playerName = getPlayerName(uuid);
                             if (playerName == null || playerName.isEmpty()) continue;
 
-                            int score = isCustomFishingType(type)
-                                    ? getCustomFishingTotal(uuid)
-                                    : getCustomTotalByType(uuid, type);
+                            UserData userData = getUserData(uuid);
+                            long[] scores = customFishingScores(userData != null ? userData.statistics() : null,
+                                    cacheKeys, categoryMembers);
 
-                            if (score > 0) {
-                                playerScores.put(uuid, new PlayerRankEntry(uuid, playerName, score));
+                            for (int k = 0; k < cacheKeys.length; k++) {
+                                if (scores[k] > 0) {
+                                    playerScores.get(k).put(uuid, new PlayerRankEntry(uuid, playerName, scores[k]));
+                                }
                             }
                         } catch (Exception e) {
-                            // Skip
+                            // Skip player on error
                         }
                     }
                 }, calculationExecutor);
@@ -392,35 +775,51 @@ public class RankingService {
                 CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
                         .get(30, TimeUnit.SECONDS);
             } catch (TimeoutException e) {
-                Bukkit.getLogger().warning("Ranking calculation timeout for " + cacheKey);
+                Bukkit.getLogger().warning("Ranking calculation timeout for " + cacheKeys.length + " rankings");
             }
 
-            List<PlayerRankEntry> sorted = playerScores.values().stream()
-                    .sorted(Comparator.comparingInt(PlayerRankEntry::getScore).reversed())
-                    .collect(Collectors.toList());
-
-            rankingCache.put(cacheKey, new CachedRanking(sorted));
+            for (int k = 0; k < cacheKeys.length; k++) {
+                List<PlayerRankEntry> sorted = playerScores.get(k).values().stream()
+                        .sorted(Comparator.comparingLong(PlayerRankEntry::getScore).reversed())
+                        .collect(Collectors.toList());
 
-            return sorted.stream().limit(limit).collect(Collectors.toList());
+                rankings[k] = new CachedRanking(sorted);
+                putRanking(cacheKeys[k], rankings[k]);
+            }
         } catch (Exception e) {
             Bukkit.getLogger().severe("Error calculating ranking: " + e.getMessage());
-            return Collections.emptyList();
-        } finally {
-            calculatingKeys.remove(cacheKey);
+            for (int k = 0; k < cacheKeys.length; k++) {
+                if (rankings[k] == null) {
+                    rankings[k] = new CachedRanking(Collections.emptyList());
+                }
+            }
         }
+        return rankings;
     }
 
-    private List<PlayerProgressEntry> calculateTopPlayersByProgress(String category, int limit) {
-        String cacheKey = "progress:" + category;
-
-        if (!calculatingKeys.add(cacheKey)) {
-            CachedProgressRanking cached = progressRankingCache.get(cacheKey);
-            if (cached != null) {
-                return cached.getTop(limit);
+    /**
+     * Recalcula con un único recorrido todas las claves que no se estén calculando ya. Se
+     * registran como cálculos en curso, así que quien las pida mientras tanto espera a este
+     * recorrido en lugar de lanzar otro.
+     */
+    private void recalculateRankings(Collection<Integer> cacheKeys) {
+        Map<Integer, CompletableFuture<CachedRanking>> owned = customFishingRankings.claim(cacheKeys);
+        if (owned.isEmpty()) return;
+
+        int[] keys = owned.keySet().stream().mapToInt(Integer::intValue).toArray();
+        CachedRanking[] rankings = null;
+        try {
+            rankings = calculateRankings(keys);
+        } finally {
+            for (int k = 0; k < keys.length; k++) {
+                customFishingRankings.complete(keys[k], owned.get(keys[k]),
+                        rankings != null ? rankings[k] : new CachedRanking(Collections.emptyList()));
             }
-            return Collections.emptyList();
         }
+    }
 
+    private CachedProgressRanking calculateProgressRanking(String category) {
+        recalculations.increment();
         try {
             ConcurrentHashMap<UUID, PlayerProgressEntry> playerProgress = new ConcurrentHashMap<>();
             Set<UUID> allPlayerUUIDs = getAllPlayerUUIDs();
@@ -429,7 +828,7 @@ public class RankingService {
                     .getCategoryMembers(category);
 
             if (categoryMembers == null || categoryMembers.isEmpty()) {
-                return Collections.emptyList();
+                return null;
             }
 
             int totalItems = categoryMembers.size();
@@ -463,21 +862,19 @@ public class RankingService {
                 CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
                         .get(30, TimeUnit.SECONDS);
             } catch (TimeoutException e) {
-                Bukkit.getLogger().warning("Progress calculation timeout for " + cacheKey);
+                Bukkit.getLogger().warning("Progress calculation timeout for " + category);
             }
 
             List<PlayerProgressEntry> sorted = playerProgress.values().stream()
                     .sorted(Comparator.comparingDouble(PlayerProgressEntry::getProgress).reversed())
                     .collect(Collectors.toList());
 
-            progressRankingCache.put(cacheKey, new CachedProgressRanking(sorted));
-
-            return sorted.stream().limit(limit).collect(Collectors.toList());
+            CachedProgressRanking ranking = new CachedProgressRanking(sorted);
+            putProgressRanking(category, ranking);
+            return ranking;
         } catch (Exception e) {
             Bukkit.getLogger().severe("Error calculating progress: " + e.getMessage());
-            return Collections.emptyList();
-        } finally {
-            calculatingKeys.remove(cacheKey);
+            return null;
         }
     }
 
@@ -503,103 +900,77 @@ public class RankingService {
     }
 
     private boolean isCustomFishingType(String type) {
-        return type.equals("progress") || type.equals("category");
+        return isCustomFishingType(StatLayout.findTypeId(type));
     }
 
-    private int getPlayerScore(UUID uuid, String type, String category) {
-        if (isCustomFishingType(type)) {
-            return getCustomFishingScore(uuid, category);
-        }
+    private boolean isCustomFishingType(int typeId) {
+        return typeId == PROGRESS_TYPE || typeId == CATEGORY_TYPE;
+    }
 
-        PlayerData cached = storageManager.getOnlinePlayerSnapshot(uuid);
-        if (cached == null) {
-            cached = storageManager.getOfflineCachedSnapshot(uuid);
-        }
+    private String describe(String type, String category) {
+        return category != null ? type + ":" + category : type;
+    }
 
-        if (cached != null) {
-            return cached.getCategoryTotal(type, category);
+    /**
+     * Puntuación guardada de un jugador; con {@code category} null, el total del tipo. Si no
+     * está en memoria se lee del almacenamiento, y un fallo al leerlo se propaga.
+     */
+    private long getStoredScore(UUID uuid, String type, String category) throws Exception {
+        PlayerData playerData = storageManager.getOnlinePlayerSnapshot(uuid);
+        if (playerData == null) {
+            playerData = storageManager.getOfflineCachedSnapshot(uuid);
+        }
+        if (playerData == null) {
+            playerData = storageManager.loadPlayerData(uuid).get(5, TimeUnit.SECONDS);
+            if (playerData == null) return 0;
         }
 
-        return getCustomScoreFromDisk(uuid, type, category);
+        return category != null ? playerData.getCategoryTotal(type, category) : playerData.getTotalByType(type);
     }
 
-    private int getCustomScoreFromDisk(UUID uuid, String type, String category) {
+    private List<String> getCategoryMembers(String category) {
         try {
-            PlayerData playerData = storageManager.loadPlayerData(uuid).get(5, TimeUnit.SECONDS);
-            if (playerData == null) return 0;
-            return playerData.getCategoryTotal(type, category);
+            return customFishing.getStatisticsManager().getCategoryMembers(category);
         } catch (Exception e) {
-            return 0;
+            return null;
         }
     }
 
-    private int getCustomTotalByType(UUID uuid, String type) {
-        PlayerData cached = storageManager.getOnlinePlayerSnapshot(uuid);
-        if (cached == null) {
-            cached = storageManager.getOfflineCachedSnapshot(uuid);
-        }
-
-        if (cached != null) {
-            return cached.getTotalByType(type);
-        }
-
-        try {
-            PlayerData playerData = storageManager.loadPlayerData(uuid).get(5, TimeUnit.SECONDS);
-            if (playerData == null) return 0;
-            return playerData.getTotalByType(type);
-        } catch (Exception e) {
-            return 0;
+    /**
+     * Puntuación del jugador en cada clave a partir de sus estadísticas de CustomFishing,
+     * cargadas una sola vez: el total de peces para el agregado del tipo y las capturas de
+     * la categoría para el resto.
+     */
+    static long[] customFishingScores(net.momirealms.customfishing.api.mechanic.statistic.FishingStatistics stats,
+                                      int[] cacheKeys, List<List<String>> categoryMembers) {
+        long[] scores = new long[cacheKeys.length];
+        if (stats == null) return scores;
+
+        for (int k = 0; k < cacheKeys.length; k++) {
+            scores[k] = cacheKeys[k] < 0
+                    ? stats.amountOfFishCaught()
+                    : categoryScore(stats, StatLayout.slotCategory(cacheKeys[k]), categoryMembers.get(k));
         }
+        return scores;
     }
 
-    private int getCustomFishingTotal(UUID uuid) {
-        try {
-            Optional<UserData> online = customFishing.getStorageManager().getOnlineUser(uuid);
-            if (online.isPresent()) {
-                var stats = online.get().statistics();
-                return stats != null ? stats.amountOfFishCaught() : 0;
-            }
-
-            CompletableFuture<Optional<net.momirealms.customfishing.api.storage.data.PlayerData>> future =
-                    customFishing.getStorageManager().getDataSource().getPlayerData(uuid, false, Runnable::run);
-            Optional<net.momirealms.customfishing.api.storage.data.PlayerData> optional =
-                    future.get(5, TimeUnit.SECONDS);
-
-            if (optional.isEmpty() || optional.get().statistics() == null) {
-                return 0;
-            }
-
-            int total = 0;
-            for (int value : optional.get().statistics().amountMap.values()) {
-                total += value;
+    /**
+     * Capturas de la categoría: la suma de sus miembros o, si no tiene, las del objeto con
+     * ese nombre.
+     */
+    private static long categoryScore(net.momirealms.customfishing.api.mechanic.statistic.FishingStatistics stats,
+                               String category, List<String> members) {
+        if (stats == null) return 0;
+
+        if (members != null && !members.isEmpty()) {
+            long total = 0;
+            for (String itemId : members) {
+                total += stats.getAmount(itemId);
             }
             return total;
-        } catch (Exception e) {
-            return 0;
         }
-    }
-
-    private int getCustomFishingScore(UUID uuid, String category) {
-        try {
-            UserData userData = getUserData(uuid);
-            if (userData == null) return 0;
 
-            net.momirealms.customfishing.api.mechanic.statistic.FishingStatistics stats = userData.statistics();
-            if (stats == null) return 0;
-
-            List<String> categoryMembers = customFishing.getStatisticsManager().getCategoryMembers(category);
-            if (categoryMembers != null && !categoryMembers.isEmpty()) {
-                int total = 0;
-                for (String itemId : categoryMembers) {
-                    total += stats.getAmount(itemId);
-                }
-                return total;
-            }
-
-            return stats.getAmount(category);
-        } catch (Exception e) {
-            return 0;
-        }
+        return stats.getAmount(category);
     }
 
     private UserData getUserData(UUID uuid) {
@@ -620,19 +991,12 @@ public class RankingService {
 
     private Set<UUID> getAllPlayerUUIDs() {
         Set<UUID> allUUIDs = ConcurrentHashMap.newKeySet();
+        ScoreIndex scoreIndex = storageManager.getScoreIndex();
 
-        if (dataFolder.exists()) {
-            File[] playerFiles = dataFolder.listFiles((dir, name) -> name.endsWith(".yml"));
-            if (playerFiles != null) {
-                for (File file : playerFiles) {
-                    try {
-                        UUID uuid = UUID.fromString(file.getName().replace(".yml", ""));
-                        allUUIDs.add(uuid);
-                    } catch (Exception e) {
-                        // Skip invalid files
-                    }
-                }
-            }
+        if (scoreIndex.isReady()) {
+            allUUIDs.addAll(scoreIndex.getPlayerUUIDs());
+        } else {
+            allUUIDs.addAll(storageManager.getStoredPlayerUUIDs());
         }
 
         try {
@@ -692,55 +1056,49 @@ public class RankingService {
         }
     }
 
-    private static class CachedRanking {
+    private static class CachedRanking extends RankingCache.Entry {
         private final List<PlayerRankEntry> ranking;
-        private final Set<String> playerSet;
-        private final long timestamp;
+        private final Map<UUID, Integer> positions;
 
         public CachedRanking(List<PlayerRankEntry> ranking) {
             this.ranking = ranking;
-            this.playerSet = new HashSet<>();
-            for (PlayerRankEntry entry : ranking) {
-                playerSet.add(entry.getName());
+            this.positions = new HashMap<>(ranking.size() * 2);
+            for (int i = 0; i < ranking.size(); i++) {
+                positions.put(ranking.get(i).getUuid(), i);
             }
-            this.timestamp = System.currentTimeMillis();
         }
 
-        public boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > CACHE_DURATION_MS;
+        @Override
+        public int getWeight() {
+            return ranking.size();
         }
 
         public List<PlayerRankEntry> getTop(int limit) {
             return ranking.stream().limit(limit).collect(Collectors.toList());
         }
 
-        public int getRank(String playerName) {
-            if (playerName == null) return 0;
-            for (int i = 0; i < ranking.size(); i++) {
-                if (ranking.get(i).getName().equals(playerName)) {
-                    return i + 1;
-                }
-            }
-            return 0;
+        public RankingPage getPage(int offset, int limit) {
+            int from = Math.min(Math.max(offset, 0), ranking.size());
+            int to = (int) Math.min((long) from + limit, ranking.size());
+            return new RankingPage(ranking.size(), new ArrayList<>(ranking.subList(from, to)));
         }
 
-        public boolean containsPlayer(String playerName) {
-            return playerSet.contains(playerName);
+        public int getRank(UUID uuid) {
+            Integer position = positions.get(uuid);
+            return position != null ? position + 1 : 0;
         }
     }
 
-    private static class CachedProgressRanking {
+    private static class CachedProgressRanking extends RankingCache.Entry {
         private final List<PlayerProgressEntry> ranking;
-        private final Set<String> playerSet;
-        private final long timestamp;
 
         public CachedProgressRanking(List<PlayerProgressEntry> ranking) {
             this.ranking = ranking;
-            this.playerSet = new HashSet<>();
-            for (PlayerProgressEntry entry : ranking) {
-                playerSet.add(entry.getName());
-            }
-            this.timestamp = System.currentTimeMillis();
+        }
+
+        @Override
+        public int getWeight() {
+            return ranking.size();
         }
 
         public List<PlayerProgressEntry> getTop(int limit) {
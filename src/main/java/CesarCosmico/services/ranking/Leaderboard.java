@@ -0,0 +1,235 @@
+package CesarCosmico.services.ranking;
+
+import CesarCosmico.services.RankingService.PlayerRankEntry;
+import CesarCosmico.services.RankingService.RankingPage;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ranking ordenado de una clave (type, category) mantenido de forma incremental.
+ *
+ * Internamente es un treap con tamaños de subárbol (order-statistic tree) ordenado por
+ * puntuación descendente y UUID ascendente, de modo que actualizar un jugador, obtener
+ * el top-N o una página cuesta O(log n + k) sin volver a recorrer el disco.
+ */
+public class Leaderboard {
+
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private Node root;
+
+    /**
+     * Establece la puntuación absoluta de un jugador. Una puntuación menor o igual a cero
+     * lo elimina del ranking.
+     */
+    public synchronized void update(UUID uuid, String name, long score) {
+        Node current = nodes.get(uuid);
+
+        if (current != null) {
+            if (current.score == score) {
+                if (name != null && !name.isEmpty()) {
+                    current.name = name;
+                }
+                return;
+            }
+            root = erase(root, current);
+            nodes.remove(uuid);
+            if (name == null || name.isEmpty()) {
+                name = current.name;
+            }
+        }
+
+        if (score <= 0 || name == null || name.isEmpty()) {
+            return;
+        }
+
+        Node node = new Node(uuid, name, score);
+        nodes.put(uuid, node);
+        root = insert(root, node);
+    }
+
+    public synchronized void remove(UUID uuid) {
+        Node current = nodes.remove(uuid);
+        if (current != null) {
+            root = erase(root, current);
+        }
+    }
+
+    /**
+     * Posición (1-based) del jugador en el ranking, o 0 si no aparece. Desciende desde la
+     * raíz acumulando tamaños de subárbol, por lo que cuesta O(log n).
+     */
+    public synchronized int rankOf(UUID uuid) {
+        Node target = nodes.get(uuid);
+        if (target == null) return 0;
+
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            if (node == target) {
+                return rank + size(node.left) + 1;
+            }
+            if (compare(target, node) < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return 0;
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    public synchronized List<PlayerRankEntry> top(int limit) {
+        return collect(0, limit);
+    }
+
+    /**
+     * Devuelve las entradas en las posiciones [offset, offset + limit) del ranking.
+     */
+    public synchronized List<PlayerRankEntry> range(int offset, int limit) {
+        return collect(offset, limit);
+    }
+
+    public synchronized RankingPage page(int offset, int limit) {
+        return new RankingPage(size(root), collect(offset, limit));
+    }
+
+    private List<PlayerRankEntry> collect(int offset, int limit) {
+        int total = size(root);
+        if (offset < 0 || offset >= total || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        int end = (int) Math.min((long) offset + limit, total);
+        List<PlayerRankEntry> result = new ArrayList<>(end - offset);
+        collect(root, offset, end, 0, result);
+        return result;
+    }
+
+    private void collect(Node node, int from, int to, int base, List<PlayerRankEntry> out) {
+        if (node == null || base >= to) return;
+
+        int leftSize = size(node.left);
+        int nodeIndex = base + leftSize;
+
+        if (from < nodeIndex) {
+            collect(node.left, from, to, base, out);
+        }
+        if (nodeIndex >= from && nodeIndex < to) {
+            out.add(new PlayerRankEntry(node.uuid, node.name, node.score));
+        }
+        if (nodeIndex + 1 < to) {
+            collect(node.right, from, to, nodeIndex + 1, out);
+        }
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            inserted.recalculate();
+            return inserted;
+        }
+
+        if (compare(inserted, node) < 0) {
+            node.left = insert(node.left, inserted);
+        } else {
+            node.right = insert(node.right, inserted);
+        }
+        node.recalculate();
+        return node;
+    }
+
+    private static Node erase(Node node, Node target) {
+        if (node == null) {
+            return null;
+        }
+
+        if (node == target) {
+            return merge(node.left, node.right);
+        }
+
+        if (compare(target, node) < 0) {
+            node.left = erase(node.left, target);
+        } else {
+            node.right = erase(node.right, target);
+        }
+        node.recalculate();
+        return node;
+    }
+
+    /**
+     * Divide el árbol en nodos menores que la clave y nodos mayores o iguales.
+     */
+    private static Node[] split(Node node, Node key) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+
+        if (compare(node, key) < 0) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            node.recalculate();
+            return new Node[]{node, parts[1]};
+        }
+
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        node.recalculate();
+        return new Node[]{parts[0], node};
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.recalculate();
+            return left;
+        }
+
+        right.left = merge(left, right.left);
+        right.recalculate();
+        return right;
+    }
+
+    private static int compare(Node a, Node b) {
+        int byScore = Long.compare(b.score, a.score);
+        return byScore != 0 ? byScore : a.uuid.compareTo(b.uuid);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node {
+        private final UUID uuid;
+        private final long score;
+        private final int priority;
+        private String name;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(UUID uuid, String name, long score) {
+            this.uuid = uuid;
+            this.name = name;
+            this.score = score;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+
+        private void recalculate() {
+            size = 1 + Leaderboard.size(left) + Leaderboard.size(right);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package CesarCosmico.services.ranking;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Rankings que se recalculan por completo, con la política de caché de su tipo.
+ *
+ * Una entrada caducada o desactualizada se sigue sirviendo mientras se recalcula en
+ * segundo plano, y cada clave se calcula una sola vez aunque la pidan muchos a la vez. El
+ * cálculo es quien guarda el resultado en {@code entries}, para que el dueño del mapa
+ * lleve su propia cuenta de peso y descartes.
+ */
+public class RankingCache<K, V extends RankingCache.Entry> {
+
+    private final Map<K, V> entries;
+    // Cálculos en curso: quien pide una clave mientras se calcula espera al mismo futuro
+    private final Map<K, CompletableFuture<V>> calculating = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final Function<K, RankingCachePolicy> policies;
+    private final Function<K, V> calculation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+
+    public RankingCache(Map<K, V> entries, Executor executor,
+                        Function<K, RankingCachePolicy> policies, Function<K, V> calculation) {
+        this.entries = entries;
+        this.executor = executor;
+        this.policies = policies;
+        this.calculation = calculation;
+    }
+
+    /**
+     * Entrada en caché aunque haya caducado; solo si todavía no existe hay que esperar a
+     * calcularla.
+     */
+    public CompletableFuture<V> get(K key) {
+        V cached = entries.get(key);
+        if (needsRefresh(key, cached)) {
+            CompletableFuture<V> refresh = refresh(key);
+            if (cached == null) {
+                return refresh;
+            }
+        }
+        return CompletableFuture.completedFuture(cached);
+    }
+
+    /**
+     * Entrada en caché o null. Si está cerca de caducar, ya ha caducado o no existe, lanza
+     * su recálculo en segundo plano sin esperarlo.
+     */
+    public V peek(K key) {
+        V cached = entries.get(key);
+        if (needsRefresh(key, cached)) {
+            refresh(key);
+        }
+        return cached;
+    }
+
+    /**
+     * Aplica la política de la clave a una entrada consultada y anota el acierto, fallo o
+     * entrada caducada servida. Devuelve true si hay que recalcularla: no existe, ha
+     * caducado, un cambio la dejó desactualizada o ha superado el umbral de refresh-ahead.
+     */
+    private boolean needsRefresh(K key, V cached) {
+        if (cached == null) {
+            misses.increment();
+            return true;
+        }
+
+        RankingCachePolicy policy = policies.apply(key);
+        long age = cached.touch();
+        if (cached.isStale() || age >= policy.getTtlMillis()) {
+            staleServed.increment();
+            return true;
+        }
+
+        hits.increment();
+        return age >= policy.getRefreshAheadMillis();
+    }
+
+    /**
+     * Lanza el cálculo de la clave en el executor, salvo que ya esté en curso: en ese caso
+     * devuelve el futuro del cálculo existente.
+     */
+    public CompletableFuture<V> refresh(K key) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = calculating.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> calculate(key, future));
+        } catch (RuntimeException e) {
+            calculating.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Claves en caché que ya han caducado, están desactualizadas o han superado el umbral
+     * de refresh-ahead, aunque nadie las haya consultado desde entonces.
+     */
+    public List<K> dueKeys() {
+        List<K> due = new ArrayList<>();
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            V cached = entry.getValue();
+            if (cached.isStale() || cached.getAge() >= policies.apply(entry.getKey()).getRefreshAheadMillis()) {
+                due.add(entry.getKey());
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Recalcula en este hilo, una a una, las claves que no se estén calculando ya.
+     */
+    public void recalculate(Collection<K> keys) {
+        for (Map.Entry<K, CompletableFuture<V>> owned : claim(keys).entrySet()) {
+            calculate(owned.getKey(), owned.getValue());
+        }
+    }
+
+    /**
+     * Registra como cálculos en curso las claves que no lo estén ya y devuelve sus futuros,
+     * para calcularlas juntas: quien las pida mientras tanto espera a ellos. Cada futuro
+     * devuelto debe terminarse con {@link #complete}.
+     */
+    public Map<K, CompletableFuture<V>> claim(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            if (calculating.putIfAbsent(key, future) == null) {
+                owned.put(key, future);
+            }
+        }
+        return owned;
+    }
+
+    public void complete(K key, CompletableFuture<V> future, V value) {
+        future.complete(value);
+        calculating.remove(key, future);
+    }
+
+    private void calculate(K key, CompletableFuture<V> future) {
+        try {
+            future.complete(calculation.apply(key));
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        } finally {
+            calculating.remove(key, future);
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getStaleServed() {
+        return staleServed.sum();
+    }
+
+    /**
+     * Ranking calculado por completo: cuándo se calculó, cuándo se consultó por última vez
+     * y si un cambio posterior lo ha dejado desactualizado.
+     */
+    public abstract static class Entry {
+        private final long timestamp = System.currentTimeMillis();
+        private volatile long lastAccess = timestamp;
+        private volatile boolean stale;
+
+        /**
+         * Número de jugadores que contiene; es lo que cuenta para el máximo de la caché.
+         */
+        public abstract int getWeight();
+
+        /**
+         * Anota la consulta y devuelve la antigüedad en milisegundos.
+         */
+        public long touch() {
+            long now = System.currentTimeMillis();
+            lastAccess = now;
+            return now - timestamp;
+        }
+
+        public long getAge() {
+            return System.currentTimeMillis() - timestamp;
+        }
+
+        public long getLastAccess() {
+            return lastAccess;
+        }
+
+        public boolean isStale() {
+            return stale;
+        }
+
+        /**
+         * Devuelve true solo la primera vez, para contar cada ranking una única vez.
+         */
+        public boolean markStale() {
+            if (stale) return false;
+            stale = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package CesarCosmico.services.ranking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Peso total de varias cachés de rankings (número de jugadores que contienen entre todas) y
+ * máximo permitido: al superarlo se descartan los rankings consultados hace más tiempo, sean
+ * de la caché que sean. Toda escritura y descarte en esas cachés debe pasar por aquí para
+ * que la cuenta de peso sea correcta.
+ */
+public class RankingCacheBudget {
+    public static final long DEFAULT_MAX_WEIGHT = 200_000L;
+
+    private final List<Map<?, ? extends RankingCache.Entry>> caches;
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+    private volatile long maxWeight = DEFAULT_MAX_WEIGHT;
+
+    public RankingCacheBudget(List<Map<?, ? extends RankingCache.Entry>> caches) {
+        this.caches = List.copyOf(caches);
+    }
+
+    /**
+     * Guarda el ranking y, si hace falta, descarta los consultados hace más tiempo: primero
+     * los de su mismo tipo que excedan {@code maxEntries}, después los de cualquier caché
+     * mientras se supere el peso máximo.
+     *
+     * Un ranking que por sí solo supera el máximo no se guarda: se devuelve a quien lo pidió
+     * y solo se descarta la versión anterior de la misma clave, nunca otros rankings para
+     * hacerle sitio. Devuelve false en ese caso.
+     */
+    public <K, V extends RankingCache.Entry> boolean put(Map<K, V> cache, K key, V value,
+                                                          Predicate<K> sameType, int maxEntries) {
+        if (value.getWeight() > maxWeight) {
+            V previous = cache.get(key);
+            if (previous != null && remove(cache, key, previous)) {
+                evictions.increment();
+            }
+            return false;
+        }
+
+        V previous = cache.put(key, value);
+        weight.addAndGet(value.getWeight() - (previous != null ? previous.getWeight() : 0));
+
+        evictOverflow(cache, sameType, maxEntries);
+        enforceMaxWeight();
+        return true;
+    }
+
+    public void clear() {
+        for (Map<?, ? extends RankingCache.Entry> cache : caches) {
+            for (Map.Entry<?, ? extends RankingCache.Entry> entry : cache.entrySet()) {
+                remove(cache, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Si hay más rankings en caché del tipo de los que permite su política, descarta los
+     * consultados hace más tiempo.
+     */
+    private <K, V extends RankingCache.Entry> void evictOverflow(Map<K, V> cache, Predicate<K> sameType, int maxEntries) {
+        List<Map.Entry<K, V>> entries = new ArrayList<>();
+        for (Map.Entry<K, V> entry : cache.entrySet()) {
+            if (sameType.test(entry.getKey())) {
+                entries.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        int excess = entries.size() - maxEntries;
+        if (excess <= 0) return;
+
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().getLastAccess()));
+        for (int i = 0; i < excess; i++) {
+            Map.Entry<K, V> entry = entries.get(i);
+            if (remove(cache, entry.getKey(), entry.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Mientras el peso total supere el máximo, descarta el ranking consultado hace más
+     * tiempo de cualquiera de las cachés.
+     */
+    private void enforceMaxWeight() {
+        while (weight.get() > maxWeight) {
+            Map.Entry<?, ? extends RankingCache.Entry> oldest = null;
+            Map<?, ? extends RankingCache.Entry> oldestCache = null;
+
+            for (Map<?, ? extends RankingCache.Entry> cache : caches) {
+                for (Map.Entry<?, ? extends RankingCache.Entry> entry : cache.entrySet()) {
+                    if (oldest == null || entry.getValue().getLastAccess() < oldest.getValue().getLastAccess()) {
+                        oldest = Map.entry(entry.getKey(), entry.getValue());
+                        oldestCache = cache;
+                    }
+                }
+            }
+
+            if (oldest == null) return;
+            if (remove(oldestCache, oldest.getKey(), oldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean remove(Map<?, ? extends RankingCache.Entry> cache, Object key, RankingCache.Entry value) {
+        if (!cache.remove(key, value)) return false;
+        weight.addAndGet(-value.getWeight());
+        return true;
+    }
+
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,52 @@
+package CesarCosmico.services.ranking;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Política de caché de los rankings que se recalculan por completo (los de CustomFishing).
+ *
+ * Pasado {@code refreshAheadMillis} el ranking se recalcula en segundo plano la próxima vez
+ * que se consulta; pasado {@code ttlMillis} está caducado, pero se sigue sirviendo hasta que
+ * termine ese recálculo.
+ */
+public class RankingCachePolicy {
+
+    public static final RankingCachePolicy DEFAULT = new RankingCachePolicy(300_000L, 240_000L, 256);
+
+    private final long ttlMillis;
+    private final long refreshAheadMillis;
+    private final int maxEntries;
+
+    public RankingCachePolicy(long ttlMillis, long refreshAheadMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.refreshAheadMillis = refreshAheadMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Lee ttl (segundos), refresh-ahead (fracción del ttl) y max-entries de la sección. Los
+     * valores que falten se toman de {@code defaults}.
+     */
+    public static RankingCachePolicy from(ConfigurationSection section, RankingCachePolicy defaults) {
+        if (section == null) return defaults;
+
+        long ttlMillis = Math.max(1L, section.getLong("ttl", defaults.ttlMillis / 1000L)) * 1000L;
+        double refreshAhead = section.getDouble("refresh-ahead", (double) defaults.refreshAheadMillis / defaults.ttlMillis);
+        int maxEntries = Math.max(1, section.getInt("max-entries", defaults.maxEntries));
+
+        refreshAhead = Math.min(Math.max(refreshAhead, 0.0), 1.0);
+        return new RankingCachePolicy(ttlMillis, (long) (ttlMillis * refreshAhead), maxEntries);
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public long getRefreshAheadMillis() {
+        return refreshAheadMillis;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+}
@@ -0,0 +1,158 @@
+package CesarCosmico.storage;
+
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.method.StorageProvider;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serializa los guardados de cada jugador y agrupa los que llegan mientras otro está en curso.
+ *
+ * Como mucho hay una escritura en vuelo por UUID. Las peticiones que llegan durante ella se
+ * funden en una única escritura posterior, cuya copia se toma justo al empezar; así la última
+ * versión siempre es la que queda en disco y las intermedias se descartan.
+ */
+public class SaveQueue {
+    private final StorageProvider provider;
+    private final Map<UUID, Slot> slots = new HashMap<>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SaveQueue(StorageProvider provider) {
+        this.provider = provider;
+    }
+
+    public CompletableFuture<Boolean> save(PlayerData playerData) {
+        synchronized (slots) {
+            Slot slot = slots.get(playerData.getUuid());
+            if (slot != null) {
+                return slot.join(playerData, coalesced);
+            }
+            slots.put(playerData.getUuid(), new Slot());
+        }
+        return write(playerData);
+    }
+
+    /**
+     * Guarda varios jugadores con una sola llamada al backend. Los que ya tienen una
+     * escritura en curso se encadenan detrás de ella. Devuelve cuántos se guardaron.
+     */
+    public CompletableFuture<Integer> saveAll(Collection<PlayerData> players) {
+        List<PlayerData> direct = new ArrayList<>();
+        List<CompletableFuture<Boolean>> joined = new ArrayList<>();
+
+        synchronized (slots) {
+            for (PlayerData playerData : players) {
+                Slot slot = slots.get(playerData.getUuid());
+                if (slot != null) {
+                    joined.add(slot.join(playerData, coalesced));
+                } else {
+                    slots.put(playerData.getUuid(), new Slot());
+                    direct.add(playerData);
+                }
+            }
+        }
+
+        List<PlayerData> snapshots = new ArrayList<>(direct.size());
+        for (PlayerData playerData : direct) {
+            snapshots.add(playerData.snapshot());
+        }
+
+        CompletableFuture<Integer> batch = snapshots.isEmpty()
+                ? CompletableFuture.completedFuture(0)
+                : provider.saveAllPlayerData(snapshots).handle((saved, throwable) -> {
+                    int count = throwable == null && saved != null ? saved : 0;
+                    if (count == snapshots.size()) {
+                        for (int i = 0; i < direct.size(); i++) {
+                            direct.get(i).markSaved(snapshots.get(i).getVersion());
+                        }
+                    }
+                    written.addAndGet(count);
+
+                    for (PlayerData playerData : direct) {
+                        release(playerData.getUuid());
+                    }
+                    return count;
+                });
+
+        return batch.thenCompose(count -> CompletableFuture.allOf(joined.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    int total = count;
+                    for (CompletableFuture<Boolean> future : joined) {
+                        if (Boolean.TRUE.equals(future.join())) {
+                            total++;
+                        }
+                    }
+                    return total;
+                }));
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public int getInFlight() {
+        synchronized (slots) {
+            return slots.size();
+        }
+    }
+
+    private CompletableFuture<Boolean> write(PlayerData playerData) {
+        PlayerData snapshot = playerData.snapshot();
+
+        return provider.savePlayerData(snapshot).handle((success, throwable) -> {
+            boolean saved = throwable == null && Boolean.TRUE.equals(success);
+            if (saved) {
+                playerData.markSaved(snapshot.getVersion());
+                written.incrementAndGet();
+            }
+            release(playerData.getUuid());
+            return saved;
+        });
+    }
+
+    /**
+     * Termina la escritura en curso de un jugador y lanza la siguiente si alguien la pidió
+     * mientras tanto.
+     */
+    private void release(UUID uuid) {
+        Slot finished;
+        synchronized (slots) {
+            finished = slots.get(uuid);
+            if (finished == null || finished.latest == null) {
+                slots.remove(uuid);
+                return;
+            }
+            slots.put(uuid, new Slot());
+        }
+
+        write(finished.latest).whenComplete((success, throwable) -> {
+            boolean saved = throwable == null && Boolean.TRUE.equals(success);
+            for (CompletableFuture<Boolean> waiter : finished.waiters) {
+                waiter.complete(saved);
+            }
+        });
+    }
+
+    private static class Slot {
+        private PlayerData latest;
+        private final List<CompletableFuture<Boolean>> waiters = new ArrayList<>();
+
+        private CompletableFuture<Boolean> join(PlayerData playerData, AtomicLong coalesced) {
+            if (latest != null) {
+                coalesced.incrementAndGet();
+            }
+            latest = playerData;
+
+            CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+    }
+}
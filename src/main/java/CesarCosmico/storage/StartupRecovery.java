@@ -0,0 +1,155 @@
+package CesarCosmico.storage;
+
+import CesarCosmico.services.GlobalStatsService;
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.journal.StatJournal;
+import CesarCosmico.storage.method.StorageException;
+import CesarCosmico.storage.method.StorageProvider;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Arranque del almacenamiento tras un cierre, limpio o no.
+ *
+ * Primero carga el índice de puntuaciones, después reproduce encima los registros del diario
+ * que no llegaron a compactarse (cada jugador guardado actualiza el índice) y por último
+ * vuelca el índice con la nueva secuencia. Debe ejecutarse con las estadísticas globales ya
+ * cargadas y antes de abrir el diario para escribir.
+ */
+class StartupRecovery {
+    private final Logger logger;
+    private final StorageProvider storageProvider;
+    private final StatJournal journal;
+    private final ScoreIndex scoreIndex;
+    private final GlobalStatsService globalStats;
+
+    StartupRecovery(Logger logger, StorageProvider storageProvider, StatJournal journal,
+                    ScoreIndex scoreIndex, GlobalStatsService globalStats) {
+        this.logger = logger;
+        this.storageProvider = storageProvider;
+        this.journal = journal;
+        this.scoreIndex = scoreIndex;
+        this.globalStats = globalStats;
+    }
+
+    Result run() {
+        // Secuencia que cubren los datos guardados, antes de que la reproducción la adelante
+        long storedSeq = globalStats.getJournalSeq();
+
+        long startTime = System.currentTimeMillis();
+        boolean indexValid = scoreIndex.load() && scoreIndex.getJournalSeq() == storedSeq;
+        if (indexValid) {
+            logger.info("Loaded score index with " + scoreIndex.size() + " players in "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+        } else if (scoreIndex.isReady()) {
+            logger.info("Score index is older than the saved stats, rebuilding it");
+        }
+
+        Map<UUID, PlayerData> unsaved = replayJournal();
+
+        if (indexValid) {
+            scoreIndex.flush(globalStats.getJournalSeq());
+        }
+        return new Result(unsaved, indexValid);
+    }
+
+    /**
+     * Aplica los registros del diario que no llegaron a compactarse antes de un cierre
+     * inesperado. Los registros ya incluidos en los datos guardados se ignoran por su número
+     * de secuencia. Los de jugadores cuyos datos no se pueden leer no se aplican, porque
+     * hacerlo sobre datos vacíos sobrescribiría las estadísticas reales; sus segmentos se
+     * apartan en lugar de borrarse.
+     */
+    private Map<UUID, PlayerData> replayJournal() {
+        List<StatJournal.Entry> entries = journal.readAll();
+
+        if (!entries.isEmpty()) {
+            long startTime = System.currentTimeMillis();
+            Map<UUID, PlayerData> players = new HashMap<>();
+            Set<UUID> unreadable = new HashSet<>();
+            int applied = 0;
+
+            for (StatJournal.Entry entry : entries) {
+                if (entry.affectsPlayer() && !unreadable.contains(entry.getUuid())) {
+                    PlayerData playerData = players.get(entry.getUuid());
+                    if (playerData == null) {
+                        try {
+                            playerData = storageProvider.readPlayerData(entry.getUuid());
+                            players.put(entry.getUuid(), playerData);
+                        } catch (StorageException e) {
+                            unreadable.add(entry.getUuid());
+                        }
+                    }
+                    if (playerData != null && entry.getSeq() > playerData.getJournalSeq()) {
+                        if (entry.isRemoval()) {
+                            playerData.removeStats(entry.getContext(), entry.getSeq());
+                        } else {
+                            playerData.addStats(entry.getContext(), entry.getSeq());
+                        }
+                        applied++;
+                    }
+                }
+                if (entry.affectsGlobal()) {
+                    if (!entry.isRemoval()) {
+                        globalStats.increment(entry.getContext(), entry.getSeq());
+                    } else if (entry.getSeq() > globalStats.getJournalSeq()) {
+                        globalStats.decrement(entry.getContext(), entry.getSeq());
+                    }
+                }
+            }
+
+            int saved = storageProvider.writeAllPlayerData(players.values());
+            boolean globalSaved = globalStats.save();
+
+            logger.info("Replayed " + entries.size() + " journal records (" + applied
+                    + " applied to " + players.size() + " players) in "
+                    + (System.currentTimeMillis() - startTime) + "ms");
+
+            if (!unreadable.isEmpty()) {
+                logger.severe("Journal records for " + unreadable.size() + " players with unreadable data were not applied: "
+                        + unreadable);
+            }
+
+            if (saved != players.size() || !globalSaved) {
+                logger.warning("Journal replay could not save every player, keeping the journal");
+                return players;
+            }
+
+            if (!unreadable.isEmpty()) {
+                journal.setAside(journal.getSealedSegments());
+                return Collections.emptyMap();
+            }
+        }
+
+        journal.discard(journal.getSealedSegments());
+        return Collections.emptyMap();
+    }
+
+    static class Result {
+        private final Map<UUID, PlayerData> unsaved;
+        private final boolean indexValid;
+
+        private Result(Map<UUID, PlayerData> unsaved, boolean indexValid) {
+            this.unsaved = unsaved;
+            this.indexValid = indexValid;
+        }
+
+        /**
+         * Jugadores reproducidos que no se pudieron guardar. El diario se conserva, pero
+         * deben quedarse en memoria para guardarse en la próxima compactación.
+         */
+        Map<UUID, PlayerData> getUnsaved() {
+            return unsaved;
+        }
+
+        /**
+         * False si el índice no existía o no correspondía a los datos guardados, en cuyo
+         * caso hay que reconstruirlo.
+         */
+        boolean isIndexValid() {
+            return indexValid;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package CesarCosmico.storage;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.services.GlobalStatsService;
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.journal.StatJournal;
+
+import java.util.UUID;
+
+/**
+ * Único camino por el que cambian las estadísticas durante la partida, tanto las capturas
+ * como los cambios de los administradores. Con el diario activo cada cambio se anota antes
+ * de aplicarse al jugador y a las globales, así que la reproducción tras un cierre
+ * inesperado los recupera todos.
+ */
+class StatRecorder {
+    private final StatJournal journal;
+    private final GlobalStatsService globalStats;
+    private final boolean journaled;
+
+    StatRecorder(StatJournal journal, GlobalStatsService globalStats, boolean journaled) {
+        this.journal = journal;
+        this.globalStats = globalStats;
+        this.journaled = journaled;
+    }
+
+    /**
+     * Suma los contextos de una acción al jugador (si está cargado) y a las globales. Con el
+     * diario activo solo se añade un registro por contexto; los ficheros se reescriben al
+     * compactar.
+     */
+    void record(PlayerData playerData, FishingStatContext[] contexts) {
+        if (!journaled) {
+            if (playerData != null) {
+                playerData.addStats(contexts, 0L);
+            }
+            globalStats.increment(contexts, 0L);
+            return;
+        }
+
+        UUID uuid = playerData != null ? playerData.getUuid() : null;
+        byte flags = flags(playerData, false);
+
+        journal.beginAppend();
+        try {
+            if (playerData != null) {
+                // Por jugador, las secuencias se aplican en el orden en que se asignan
+                synchronized (playerData) {
+                    long firstSeq = journal.append(uuid, flags, contexts);
+                    playerData.addStats(contexts, firstSeq + contexts.length - 1);
+                    globalStats.increment(contexts, firstSeq);
+                }
+            } else {
+                globalStats.increment(contexts, journal.append(uuid, flags, contexts));
+            }
+        } finally {
+            journal.endAppend();
+        }
+    }
+
+    /**
+     * Resta un contexto sin bajar de cero. Con jugador, se le resta lo que tenga hasta la
+     * cantidad pedida y lo mismo a las globales; sin jugador, solo a las globales. Devuelve
+     * lo que se restó.
+     */
+    int remove(PlayerData playerData, FishingStatContext context) {
+        if (!journaled) {
+            return removeClamped(playerData, context, false);
+        }
+
+        journal.beginAppend();
+        try {
+            return removeClamped(playerData, context, true);
+        } finally {
+            journal.endAppend();
+        }
+    }
+
+    private int removeClamped(PlayerData playerData, FishingStatContext context, boolean append) {
+        if (playerData == null) {
+            long current = context.hasItem()
+                    ? globalStats.getItemAmount(context.getSlot(), context.getItemId())
+                    : globalStats.getCategoryTotal(context.getSlot());
+            return applyRemoval(null, clamp(context, current), append);
+        }
+
+        // La cantidad leída sigue siendo válida al aplicarla: el resto de cambios del jugador esperan
+        synchronized (playerData) {
+            long current = context.hasItem()
+                    ? playerData.getItemAmount(context.getSlot(), context.getItemId())
+                    : playerData.getCategoryTotal(context.getSlot());
+            return applyRemoval(playerData, clamp(context, current), append);
+        }
+    }
+
+    private int applyRemoval(PlayerData playerData, FishingStatContext removal, boolean append) {
+        if (removal == null) return 0;
+
+        long seq = append
+                ? journal.append(playerData != null ? playerData.getUuid() : null, flags(playerData, true), removal)
+                : 0L;
+        if (playerData != null) {
+            playerData.removeStats(removal, seq);
+        }
+        globalStats.decrement(removal, seq);
+        return removal.getAmount();
+    }
+
+    private static byte flags(PlayerData playerData, boolean removal) {
+        byte flags = playerData != null
+                ? (byte) (StatJournal.FLAG_PLAYER | StatJournal.FLAG_GLOBAL)
+                : StatJournal.FLAG_GLOBAL;
+        return removal ? (byte) (flags | StatJournal.FLAG_REMOVE) : flags;
+    }
+
+    /**
+     * El contexto con la cantidad limitada a {@code current}, o null si no hay nada que restar.
+     */
+    private static FishingStatContext clamp(FishingStatContext context, long current) {
+        int amount = (int) Math.min(current, context.getAmount());
+        if (amount <= 0) return null;
+        if (amount == context.getAmount()) return context;
+
+        return FishingStatContext.builder()
+                .type(context.getType())
+                .category(context.getCategory())
+                .item(context.hasItem() ? context.getItem() : null)
+                .amount(amount)
+                .build();
+    }
+}
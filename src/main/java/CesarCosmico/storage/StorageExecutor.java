@@ -0,0 +1,144 @@
+package CesarCosmico.storage;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Pool propio y acotado para la E/S de almacenamiento, separado del ForkJoinPool común que
+ * comparten otros plugins y los parallel streams.
+ *
+ * Cuando la cola se llena, quien envía la tarea nunca la ejecuta ni se bloquea (suele ser
+ * el hilo principal): la tarea pasa a un desbordamiento del que un hilo propio la mete en la
+ * cola en cuanto hay hueco, bloqueándose él mientras tanto. El desbordamiento no crece sin
+ * límite porque {@link SaveQueue} deja como mucho un guardado pendiente por jugador.
+ */
+public class StorageExecutor implements Executor {
+    private static final Runnable STOP = () -> { };
+
+    private final Logger logger;
+    private final ThreadPoolExecutor executor;
+    private final LinkedBlockingQueue<Runnable> overflow = new LinkedBlockingQueue<>();
+    private final Thread overflowThread;
+    private final AtomicLong overflowed = new AtomicLong();
+    // Protegido por el propio desbordamiento
+    private boolean stopping = false;
+    private final AtomicInteger peakQueued = new AtomicInteger();
+
+    public StorageExecutor(Logger logger, int threads, int queueCapacity) {
+        this.logger = logger;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "CustomFishingStats-IO-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    if (pool.isShutdown()) {
+                        throw new RejectedExecutionException("Storage executor is shut down");
+                    }
+                    overflowed.incrementAndGet();
+                    synchronized (overflow) {
+                        if (!stopping) {
+                            overflow.add(runnable);
+                            return;
+                        }
+                    }
+                    // Durante el apagado ya nadie vacía el desbordamiento: espera hueco quien envía
+                    try {
+                        pool.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while shutting down the storage executor");
+                    }
+                });
+        // La cola se llena solo con todos los hilos creados; el desbordamiento entra directo en ella
+        executor.prestartAllCoreThreads();
+
+        this.overflowThread = new Thread(this::drainOverflow, "CustomFishingStats-IO-overflow");
+        overflowThread.setDaemon(true);
+        overflowThread.start();
+    }
+
+    private void drainOverflow() {
+        try {
+            while (true) {
+                Runnable task = overflow.take();
+                if (task == STOP) return;
+                executor.getQueue().put(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+        peakQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+    }
+
+    /**
+     * Deja de aceptar tareas y espera a que terminen las pendientes, incluidas las que
+     * esperaban en el desbordamiento.
+     */
+    public void shutdown(long timeoutSeconds) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        try {
+            synchronized (overflow) {
+                stopping = true;
+                overflow.add(STOP);
+            }
+            overflowThread.join(Math.max(1L, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            executor.shutdown();
+
+            if (!executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                overflowThread.interrupt();
+                int dropped = executor.shutdownNow().size() + overflow.size();
+                logger.severe("Storage executor did not drain in " + timeoutSeconds + "s, "
+                        + dropped + " queued tasks were dropped");
+            }
+        } catch (InterruptedException e) {
+            overflowThread.interrupt();
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    public int getOverflowQueued() {
+        return overflow.size();
+    }
+
+    public int getPeakQueued() {
+        return peakQueued.get();
+    }
+
+    public int getQueueCapacity() {
+        return executor.getQueue().size() + executor.getQueue().remainingCapacity();
+    }
+
+    public long getCompleted() {
+        return executor.getCompletedTaskCount();
+    }
+
+    public long getOverflowed() {
+        return overflowed.get();
+    }
+}
@@ -1,7 +1,16 @@
 package CesarCosmico.storage;
 
 import CesarCosmico.CustomFishingStats;
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.services.GlobalStatsService;
 import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.journal.StatJournal;
+import CesarCosmico.storage.method.StorageException;
+import CesarCosmico.storage.method.StorageProvider;
+import CesarCosmico.storage.method.database.SQLiteProvider;
+import CesarCosmico.storage.method.file.AtomicFileWriter;
+import CesarCosmico.storage.method.file.BinaryProvider;
 import CesarCosmico.storage.method.file.YAMLProvider;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
@@ -10,60 +19,443 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.logging.Level;
 
 public class StorageManager implements Listener {
     private final CustomFishingStats plugin;
-    private final YAMLProvider yamlStorage;
+    private final StorageProvider storageProvider;
+    private final SaveQueue saveQueue;
+    private final ScoreIndex scoreIndex;
+    private final StatJournal journal;
+    private StatRecorder recorder;
+    private final StorageExecutor storageExecutor;
+    private final AtomicFileWriter fileWriter;
     private final ConcurrentHashMap<UUID, PlayerData> onlinePlayers;
     private final ConcurrentHashMap<UUID, PlayerData> offlineCache;
+    // Jugadores que ya no están en memoria y cuyo último estado aún no consta como guardado
+    private final ConcurrentHashMap<UUID, PlayerData> pendingPlayers;
+    private final boolean journalEnabled;
     private boolean autoSaveLog;
+    private long compactIntervalMillis;
+    private volatile long lastCompaction = System.currentTimeMillis();
+
+    private final AtomicLong playersSkipped = new AtomicLong();
+    private volatile SaveResult lastSave = new SaveResult(0, 0, 0);
 
     public StorageManager(CustomFishingStats plugin) {
         this.plugin = plugin;
-        this.yamlStorage = new YAMLProvider(plugin);
+        File storageFolder = new File(plugin.getDataFolder(), "storage");
+        this.scoreIndex = new ScoreIndex(plugin.getLogger(), storageFolder);
+        boolean fsync = plugin.getConfigManager().getConfig().getBoolean("storage.fsync", true);
+        this.journal = new StatJournal(plugin.getLogger(), storageFolder, fsync);
+        this.journalEnabled = plugin.getConfigManager().getConfig().getBoolean("storage.journal.enabled", true);
+        this.storageExecutor = new StorageExecutor(plugin.getLogger(),
+                Math.max(1, plugin.getConfigManager().getConfig().getInt("storage.io.threads", 2)),
+                Math.max(1, plugin.getConfigManager().getConfig().getInt("storage.io.queue-size", 1000)));
+        this.fileWriter = new AtomicFileWriter(plugin.getLogger(), fsync);
+        this.storageProvider = createProvider();
+        this.saveQueue = new SaveQueue(storageProvider);
         this.onlinePlayers = new ConcurrentHashMap<>();
         this.offlineCache = new ConcurrentHashMap<>();
+        this.pendingPlayers = new ConcurrentHashMap<>();
         Bukkit.getPluginManager().registerEvents(this, plugin);
         loadConfig();
     }
 
     private void loadConfig() {
         this.autoSaveLog = plugin.getConfigManager().getConfig().getBoolean("storage.auto-save.log", true);
+        this.compactIntervalMillis = plugin.getConfigManager().getConfig()
+                .getLong("storage.journal.compact-interval", 1800) * 1000L;
+    }
+
+    private StorageProvider createProvider() {
+        String method = plugin.getConfigManager().getConfig().getString("storage.method", "yaml");
+
+        if (method.equalsIgnoreCase("binary")) {
+            boolean memoryMapped = plugin.getConfigManager().getConfig()
+                    .getBoolean("storage.binary.memory-mapped", false);
+            BinaryProvider binaryProvider = new BinaryProvider(plugin, scoreIndex, memoryMapped, storageExecutor, fileWriter);
+            migrateFromYaml(binaryProvider, "binary");
+            return binaryProvider;
+        }
+
+        if (method.equalsIgnoreCase("sqlite")) {
+            try {
+                SQLiteProvider sqliteProvider = new SQLiteProvider(plugin, scoreIndex, storageExecutor);
+                migrateFromYaml(sqliteProvider, "sqlite");
+                return sqliteProvider;
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not open storage/stats.db, using yaml", e);
+                return new YAMLProvider(plugin, scoreIndex, storageExecutor, fileWriter);
+            }
+        }
+
+        if (!method.equalsIgnoreCase("yaml")) {
+            plugin.getLogger().warning("Unknown storage.method '" + method + "', using yaml");
+        }
+        return new YAMLProvider(plugin, scoreIndex, storageExecutor, fileWriter);
+    }
+
+    /**
+     * Migración única de storage/data/*.yml a otro backend. Solo se ejecuta cuando el
+     * backend destino todavía no tiene ningún jugador; los YAML se conservan como copia.
+     */
+    private void migrateFromYaml(StorageProvider target, String targetName) {
+        if (!target.getStoredPlayerUUIDs().isEmpty()) return;
+
+        YAMLProvider yamlProvider = new YAMLProvider(plugin, scoreIndex, storageExecutor, fileWriter);
+        Set<UUID> uuids = yamlProvider.getStoredPlayerUUIDs();
+        if (uuids.isEmpty()) return;
+
+        plugin.getLogger().info("Migrating " + uuids.size() + " players from YAML to " + targetName + " storage...");
+
+        List<PlayerData> players = new ArrayList<>(uuids.size());
+        List<UUID> unreadable = new ArrayList<>();
+        long readStart = System.nanoTime();
+        for (UUID uuid : uuids) {
+            try {
+                players.add(yamlProvider.readPlayerData(uuid));
+            } catch (StorageException e) {
+                unreadable.add(uuid);
+            }
+        }
+        long readNanos = System.nanoTime() - readStart;
+
+        long writeStart = System.nanoTime();
+        int failed = players.size() - target.writeAllPlayerData(players) + unreadable.size();
+        long writeNanos = System.nanoTime() - writeStart;
+
+        long verifyStart = System.nanoTime();
+        for (PlayerData playerData : players) {
+            try {
+                target.readPlayerData(playerData.getUuid());
+            } catch (StorageException e) {
+                failed++;
+            }
+        }
+        long verifyNanos = System.nanoTime() - verifyStart;
+
+        if (!unreadable.isEmpty()) {
+            plugin.getLogger().severe("Could not migrate unreadable YAML files, they were left in storage/data: "
+                    + unreadable);
+        }
+
+        plugin.getLogger().info(String.format(
+                "Migration finished (%d failed). YAML load: %d players/s, %s save: %d players/s, %s load: %d players/s",
+                failed, throughput(players.size(), readNanos), targetName, throughput(players.size(), writeNanos),
+                targetName, throughput(uuids.size(), verifyNanos)));
     }
 
+    private long throughput(int count, long nanos) {
+        return nanos > 0 ? count * 1_000_000_000L / nanos : count;
+    }
+
+    /**
+     * Debe llamarse después de cargar las estadísticas globales, ya que la reproducción del
+     * diario también las actualiza.
+     */
     public void start() {
+        StartupRecovery.Result recovery = new StartupRecovery(plugin.getLogger(), storageProvider,
+                journal, scoreIndex, plugin.getGlobalStatsService()).run();
+        offlineCache.putAll(recovery.getUnsaved());
+        openJournal();
+        recorder = new StatRecorder(journal, plugin.getGlobalStatsService(), journalEnabled);
+
+        if (recovery.isIndexValid()) return;
+
+        rebuildScoreIndex().exceptionally(throwable -> {
+            plugin.getLogger().severe("Error rebuilding score index: " + throwable.getMessage());
+            return null;
+        });
     }
 
-    private void performAutoSave() {
-        if (!autoSaveLog) {
-            pruneOfflineCache(100);
-            return;
+    private void openJournal() {
+        if (!journalEnabled) return;
+
+        // Todos los registros actualizan las globales, así que su secuencia es la máxima guardada
+        journal.advanceTo(plugin.getGlobalStatsService().getJournalSeq());
+        try {
+            journal.open();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not open stat journal, compacting on every auto-save until it reopens: "
+                    + e.getMessage());
         }
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    /**
+     * Registra los incrementos de una acción para el jugador (si está cargado) y globales. Con
+     * el diario activo solo se añade un registro por contexto; los ficheros se reescriben al
+     * compactar.
+     */
+    public void recordStats(PlayerData playerData, FishingStatContext[] contexts) {
+        recorder.record(playerData, contexts);
+    }
+
+    /**
+     * Resta un contexto al jugador (si se indica) y a las globales sin bajar de cero, pasando
+     * por el diario como las capturas. Devuelve la cantidad restada.
+     */
+    public int recordRemoval(PlayerData playerData, FishingStatContext context) {
+        return recorder.remove(playerData, context);
+    }
+
+    public void flushJournal() {
+        if (journalEnabled) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Sella el diario, guarda los jugadores con cambios pendientes y las estadísticas
+     * globales, y descarta los segmentos sellados solo si todo se guardó. Un jugador con
+     * cambios sin guardar nunca sale de memoria (conectado, caché offline o pendiente), así
+     * que todos los que cubren los segmentos sellados están entre los que se guardan.
+     */
+    public CompletableFuture<SaveResult> compactJournal() {
+        lastCompaction = System.currentTimeMillis();
+        List<File> sealed = journal.rotate();
+
+        return saveDirtyPlayers().thenApply(result -> {
+            GlobalStatsService globalStats = plugin.getGlobalStatsService();
+            // La copia se toma con el diario en pausa para que su secuencia cubra justo esos contadores
+            GlobalStatsService.Snapshot snapshot;
+            journal.pauseAppends();
+            try {
+                snapshot = globalStats.snapshot();
+            } finally {
+                journal.resumeAppends();
+            }
+            boolean globalSaved = globalStats.save(snapshot);
+            scoreIndex.flush(snapshot.getJournalSeq());
+
+            if (result.getFailed() == 0 && globalSaved) {
+                journal.discard(sealed);
+            } else {
+                plugin.getLogger().warning("Journal compaction could not save " + result.getFailed()
+                        + " players, keeping the journal for replay");
+            }
 
-        if (onlinePlayers.isEmpty()) {
             if (autoSaveLog) {
-                plugin.getLogger().info("No online players to save");
+                plugin.getLogger().info("Compacted stat journal: wrote " + result.getWritten()
+                        + " players, skipped " + result.getSkipped() + " unchanged");
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Guarda solo los jugadores cuya versión no coincide con la última guardada: conectados,
+     * en la caché offline o pendientes tras desconectarse. Los demás se cuentan como omitidos.
+     */
+    private CompletableFuture<SaveResult> saveDirtyPlayers() {
+        Map<UUID, PlayerData> candidates = new HashMap<>(pendingPlayers);
+        candidates.putAll(offlineCache);
+        candidates.putAll(onlinePlayers);
+
+        List<PlayerData> dirty = new ArrayList<>();
+        int skipped = 0;
+
+        for (PlayerData playerData : candidates.values()) {
+            if (playerData.isDirty()) {
+                dirty.add(playerData);
+            } else {
+                skipped++;
             }
-            pruneOfflineCache(100);
-            return;
         }
 
-        List<CompletableFuture<Boolean>> saveFutures = new ArrayList<>();
+        int skippedCount = skipped;
+        playersSkipped.addAndGet(skippedCount);
 
-        for (PlayerData playerData : onlinePlayers.values()) {
-            saveFutures.add(yamlStorage.savePlayerData(playerData));
+        if (dirty.isEmpty()) {
+            pendingPlayers.clear();
+            SaveResult result = new SaveResult(0, skippedCount, 0);
+            lastSave = result;
+            return CompletableFuture.completedFuture(result);
         }
 
-        int totalPlayers = saveFutures.size();
+        return saveQueue.saveAll(dirty).thenApply(saved -> {
+            pendingPlayers.values().removeIf(playerData -> !playerData.isDirty());
+
+            SaveResult result = new SaveResult(saved, skippedCount, dirty.size() - saved);
+            lastSave = result;
+            return result;
+        });
+    }
+
+    public long getPlayersWritten() {
+        return saveQueue.getWritten();
+    }
+
+    public SaveQueue getSaveQueue() {
+        return saveQueue;
+    }
+
+    public long getPlayersSkipped() {
+        return playersSkipped.get();
+    }
+
+    public SaveResult getLastSave() {
+        return lastSave;
+    }
+
+    public int getDirtyPlayerCount() {
+        Map<UUID, PlayerData> candidates = new HashMap<>(pendingPlayers);
+        candidates.putAll(offlineCache);
+        candidates.putAll(onlinePlayers);
+
+        int dirty = 0;
+        for (PlayerData playerData : candidates.values()) {
+            if (playerData.isDirty()) {
+                dirty++;
+            }
+        }
+        return dirty;
+    }
+
+    public long getJournalSeq() {
+        return journal.getLastSeq();
+    }
+
+    /**
+     * Reconstruye el índice de puntuaciones leyendo todos los ficheros de jugador y
+     * superponiendo los datos en memoria, que pueden ser más recientes que el disco.
+     */
+    public CompletableFuture<IndexReport> rebuildScoreIndex() {
+        return CompletableFuture.supplyAsync(() -> {
+            long startTime = System.currentTimeMillis();
+            Map<UUID, PlayerData> players = new HashMap<>();
+
+            int unreadable = 0;
+            for (UUID uuid : storageProvider.getStoredPlayerUUIDs()) {
+                try {
+                    players.put(uuid, storageProvider.readPlayerData(uuid));
+                } catch (StorageException e) {
+                    unreadable++;
+                }
+            }
+            players.putAll(offlineCache);
+            players.putAll(onlinePlayers);
+
+            if (unreadable > 0) {
+                plugin.getLogger().warning("Score index rebuild skipped " + unreadable + " unreadable players");
+            }
+            scoreIndex.rebuild(players.values(), plugin.getGlobalStatsService().getJournalSeq());
+
+            long elapsed = System.currentTimeMillis() - startTime;
+            plugin.getLogger().info("Rebuilt score index from " + players.size() + " players in " + elapsed + "ms");
+            return new IndexReport(players.size(), 0, 0, 0, 0, elapsed);
+        }, storageExecutor);
+    }
+
+    /**
+     * Compara el índice con los ficheros de jugador y mide ambos caminos de carga en frío:
+     * leer el fichero del índice frente a abrir cada YAML.
+     */
+    public CompletableFuture<IndexReport> verifyScoreIndex() {
+        return CompletableFuture.supplyAsync(() -> {
+            flushScoreIndex();
+
+            long indexStart = System.currentTimeMillis();
+            Map<UUID, ScoreIndex.Summary> indexed;
+            try {
+                indexed = scoreIndex.readFromDisk();
+            } catch (IOException e) {
+                indexed = Collections.emptyMap();
+            }
+            long indexElapsed = System.currentTimeMillis() - indexStart;
+
+            long scanStart = System.currentTimeMillis();
+            Set<UUID> storedUUIDs = storageProvider.getStoredPlayerUUIDs();
+            int mismatched = 0;
+            int missing = 0;
+
+            for (UUID uuid : storedUUIDs) {
+                PlayerData stored;
+                try {
+                    stored = storageProvider.readPlayerData(uuid);
+                } catch (StorageException e) {
+                    mismatched++;
+                    continue;
+                }
+                ScoreIndex.Summary summary = indexed.get(uuid);
+
+                if (summary == null) {
+                    missing++;
+                } else if (!summary.matches(ScoreIndex.Summary.of(stored))) {
+                    mismatched++;
+                }
+            }
+            long scanElapsed = System.currentTimeMillis() - scanStart;
+
+            int orphaned = 0;
+            for (UUID uuid : indexed.keySet()) {
+                if (!storedUUIDs.contains(uuid)) {
+                    orphaned++;
+                }
+            }
+
+            plugin.getLogger().info("Score index verify: " + storedUUIDs.size() + " players, index read in "
+                    + indexElapsed + "ms, full scan in " + scanElapsed + "ms");
+            return new IndexReport(storedUUIDs.size(), mismatched, missing, orphaned, indexElapsed, scanElapsed);
+        }, storageExecutor);
+    }
+
+    public Set<UUID> getStoredPlayerUUIDs() {
+        return storageProvider.getStoredPlayerUUIDs();
+    }
+
+    private void flushScoreIndex() {
+        scoreIndex.flush(plugin.getGlobalStatsService().getJournalSeq());
+    }
+
+    public StorageExecutor getStorageExecutor() {
+        return storageExecutor;
+    }
+
+    public AtomicFileWriter getFileWriter() {
+        return fileWriter;
+    }
+
+    public ScoreIndex getScoreIndex() {
+        return scoreIndex;
+    }
+
+    public StorageProvider getStorageProvider() {
+        return storageProvider;
+    }
+
+    private void performAutoSave() {
+        if (journalEnabled) {
+            journal.flush();
+            // Sin segmento abierto los cambios solo están en memoria: se guardan como sin diario
+            if (!journal.isOpen() || System.currentTimeMillis() - lastCompaction >= compactIntervalMillis) {
+                compactJournal().exceptionally(throwable -> {
+                    plugin.getLogger().severe("Journal compaction error: " + throwable.getMessage());
+                    return null;
+                });
+            }
+            pruneOfflineCache(100);
+            return;
+        }
 
-        CompletableFuture.allOf(saveFutures.toArray(new CompletableFuture[0])).thenRun(() -> {
+        saveDirtyPlayers().thenAccept(result -> {
             if (autoSaveLog) {
-                plugin.getLogger().info("Saved " + totalPlayers + " online players");
+                plugin.getLogger().info("Auto-save wrote " + result.getWritten() + " players, skipped "
+                        + result.getSkipped() + " unchanged");
             }
+            flushScoreIndex();
             pruneOfflineCache(100);
         }).exceptionally(throwable -> {
             plugin.getLogger().severe("Auto-save error: " + throwable.getMessage());
@@ -80,17 +472,26 @@ public class StorageManager implements Listener {
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
 
+        // Si aún se está guardando su desconexión, esos datos son más recientes que el disco
         PlayerData cachedOfflineData = offlineCache.remove(uuid);
+        if (cachedOfflineData == null) {
+            cachedOfflineData = pendingPlayers.remove(uuid);
+        }
 
         if (cachedOfflineData != null) {
             cachedOfflineData.setName(player.getName());
             onlinePlayers.put(uuid, cachedOfflineData);
         } else {
-            yamlStorage.loadPlayerData(uuid).thenAccept(playerData -> {
+            storageProvider.loadPlayerData(uuid).thenAccept(playerData -> {
                 if (playerData != null) {
                     playerData.setName(player.getName());
                     onlinePlayers.put(uuid, playerData);
                 }
+            }).exceptionally(throwable -> {
+                // Sin datos cargados no se registra nada, así que tampoco se guarda encima
+                plugin.getLogger().severe("Stats of " + player.getName() + " will not be tracked this session: "
+                        + throwable.getMessage());
+                return null;
             });
         }
     }
@@ -101,10 +502,15 @@ public class StorageManager implements Listener {
         UUID uuid = player.getUniqueId();
         PlayerData playerData = onlinePlayers.remove(uuid);
 
-        if (playerData != null) {
-            yamlStorage.savePlayerData(playerData).exceptionally(throwable -> {
+        if (playerData != null && playerData.isDirty()) {
+            pendingPlayers.put(uuid, playerData);
+            saveQueue.save(playerData).thenAccept(success -> {
+                if (success && !playerData.isDirty()) {
+                    pendingPlayers.remove(uuid, playerData);
+                }
+            }).exceptionally(throwable -> {
                 plugin.getLogger().severe("Error saving player data on quit: " + throwable.getMessage());
-                return false;
+                return null;
             });
         }
     }
@@ -120,7 +526,12 @@ public class StorageManager implements Listener {
             return CompletableFuture.completedFuture(offline);
         }
 
-        return yamlStorage.loadPlayerData(uuid).thenApply(playerData -> {
+        PlayerData pending = pendingPlayers.get(uuid);
+        if (pending != null) {
+            return CompletableFuture.completedFuture(pending);
+        }
+
+        return storageProvider.loadPlayerData(uuid).thenApply(playerData -> {
             if (playerData != null) {
                 offlineCache.put(uuid, playerData);
             }
@@ -128,37 +539,45 @@ public class StorageManager implements Listener {
         });
     }
 
+    /**
+     * Modifica los datos del jugador, cargándolos si hace falta. El modificador es quien
+     * aplica el cambio a los rankings, porque solo él sabe qué estadísticas ha tocado.
+     */
     public <T> CompletableFuture<T> modifyPlayerData(UUID uuid, Function<PlayerData, T> modifier) {
         PlayerData online = onlinePlayers.get(uuid);
         if (online != null) {
-            return modifyAndNotify(uuid, online, modifier, false);
+            return applyModification(uuid, online, modifier, false);
         }
 
         PlayerData offline = offlineCache.get(uuid);
         if (offline != null) {
-            return modifyAndNotify(uuid, offline, modifier, true);
+            return applyModification(uuid, offline, modifier, true);
         }
 
-        return yamlStorage.loadPlayerData(uuid).thenCompose(playerData -> {
+        PlayerData pending = pendingPlayers.get(uuid);
+        if (pending != null) {
+            return applyModification(uuid, pending, modifier, true);
+        }
+
+        return storageProvider.loadPlayerData(uuid).thenCompose(playerData -> {
             if (playerData == null) {
                 String playerName = Bukkit.getOfflinePlayer(uuid).getName();
                 playerData = new PlayerData(uuid, playerName != null ? playerName : "Unknown");
             }
 
             offlineCache.put(uuid, playerData);
-            return modifyAndNotify(uuid, playerData, modifier, true);
+            return applyModification(uuid, playerData, modifier, true);
         });
     }
 
-    private <T> CompletableFuture<T> modifyAndNotify(UUID uuid, PlayerData playerData,
+    private <T> CompletableFuture<T> applyModification(UUID uuid, PlayerData playerData,
                                                      Function<PlayerData, T> modifier,
                                                      boolean saveImmediately) {
         try {
             T result = modifier.apply(playerData);
-            plugin.notifyPlayerDataChanged(uuid);
 
             if (saveImmediately) {
-                return yamlStorage.savePlayerData(playerData).thenApply(success -> result);
+                return saveQueue.save(playerData).thenApply(success -> result);
             }
 
             return CompletableFuture.completedFuture(result);
@@ -172,26 +591,42 @@ public class StorageManager implements Listener {
         PlayerData playerData = onlinePlayers.get(uuid);
         if (playerData != null) {
             modifier.apply(playerData);
-            plugin.notifyPlayerDataChanged(uuid);
         }
     }
 
+    /**
+     * Datos del jugador si ya están en memoria (conectado, en la caché offline o pendiente
+     * de guardar tras desconectarse), o null. Nunca lee de disco.
+     */
+    public PlayerData getCachedPlayerData(UUID uuid) {
+        PlayerData online = onlinePlayers.get(uuid);
+        if (online != null) return online;
+
+        PlayerData offline = offlineCache.get(uuid);
+        return offline != null ? offline : pendingPlayers.get(uuid);
+    }
+
     public PlayerData getOnlinePlayerSnapshot(UUID uuid) {
         return onlinePlayers.get(uuid);
     }
 
-    public PlayerData getOfflineCachedSnapshot(UUID uuid) {
-        return offlineCache.get(uuid);
+    public Collection<PlayerData> getOnlinePlayerSnapshots() {
+        return onlinePlayers.values();
     }
 
-    public void clearOfflineCache() {
-        offlineCache.clear();
+    public PlayerData getOfflineCachedSnapshot(UUID uuid) {
+        return offlineCache.get(uuid);
     }
 
+    /**
+     * Vacía la caché offline cuando supera el tamaño indicado, conservando los jugadores
+     * con cambios sin guardar: la compactación del diario tiene que escribirlos antes de
+     * descartar los segmentos que contienen esos cambios.
+     */
     public void pruneOfflineCache(int maxSize) {
         if (offlineCache.size() <= maxSize) return;
 
-        offlineCache.clear();
+        offlineCache.values().removeIf(playerData -> !playerData.isDirty());
     }
 
     public void reload() {
@@ -199,25 +634,104 @@ public class StorageManager implements Listener {
     }
 
     public void disable() {
-        saveAllDataSync();
+        if (journalEnabled) {
+            compactJournal().join();
+            journal.close();
+        } else {
+            saveAllDataSync();
+        }
+
+        // Espera también a los guardados de desconexión todavía en cola antes de cerrar
+        storageExecutor.shutdown(plugin.getConfigManager().getConfig().getLong("storage.io.shutdown-timeout", 30));
+        flushScoreIndex();
+        storageProvider.close();
         onlinePlayers.clear();
         offlineCache.clear();
     }
 
+    /**
+     * Guarda jugadores y estadísticas globales de forma coherente y espera a que termine. Con
+     * el diario activo equivale a compactar, que toma la copia global con el diario en pausa.
+     */
+    public void checkpoint() {
+        if (journalEnabled) {
+            compactJournal().join();
+            return;
+        }
+        saveAllDataSync();
+        plugin.getGlobalStatsService().save();
+    }
+
     public void saveAllDataSync() {
-        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        SaveResult result = saveDirtyPlayers().join();
+        plugin.getLogger().info("Saved " + result.getWritten() + " players, skipped "
+                + result.getSkipped() + " unchanged");
+    }
 
-        for (PlayerData playerData : onlinePlayers.values()) {
-            futures.add(yamlStorage.savePlayerData(playerData));
+    public static class SaveResult {
+        private final int written;
+        private final int skipped;
+        private final int failed;
+
+        public SaveResult(int written, int skipped, int failed) {
+            this.written = written;
+            this.skipped = skipped;
+            this.failed = failed;
+        }
+
+        public int getWritten() {
+            return written;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+
+    public static class IndexReport {
+        private final int players;
+        private final int mismatched;
+        private final int missing;
+        private final int orphaned;
+        private final long indexMillis;
+        private final long scanMillis;
+
+        public IndexReport(int players, int mismatched, int missing, int orphaned,
+                           long indexMillis, long scanMillis) {
+            this.players = players;
+            this.mismatched = mismatched;
+            this.missing = missing;
+            this.orphaned = orphaned;
+            this.indexMillis = indexMillis;
+            this.scanMillis = scanMillis;
         }
 
-        for (PlayerData playerData : offlineCache.values()) {
-            futures.add(yamlStorage.savePlayerData(playerData));
+        public int getPlayers() {
+            return players;
         }
 
-        if (futures.isEmpty()) return;
+        public int getMismatched() {
+            return mismatched;
+        }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        plugin.getLogger().info("Saved " + futures.size() + " players");
+        public int getMissing() {
+            return missing;
+        }
+
+        public int getOrphaned() {
+            return orphaned;
+        }
+
+        public long getIndexMillis() {
+            return indexMillis;
+        }
+
+        public long getScanMillis() {
+            return scanMillis;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,122 +3,126 @@ package CesarCosmico.storage.data;
 import CesarCosmico.actions.FishingStatContext;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class PlayerData {
     private final UUID uuid;
     private String name;
 
-    private final Map<String, Map<String, Map<String, Integer>>> stats;
+    private StatCounters counters = new StatCounters();
 
-    private final Map<String, Integer> typeTotalCache;
-    private volatile boolean typeCacheDirty = true;
+    /**
+     * Último registro del diario de estadísticas incluido en estos datos.
+     */
+    private volatile long journalSeq;
+
+    /**
+     * Versión de los datos: aumenta con cada cambio. Si coincide con la última versión
+     * guardada el jugador no tiene cambios y el auto-guardado lo omite.
+     */
+    private volatile long version;
+    private volatile long savedVersion;
+
+    // Pares (ranura, id de objeto) cuyas puntuaciones aún no se han aplicado a los rankings
+    private int[] rankingChanges = new int[8];
+    private int rankingChangeCount;
 
     public PlayerData(UUID uuid, String name) {
         this.uuid = uuid;
         this.name = name;
-        this.stats = new ConcurrentHashMap<>();
-        this.typeTotalCache = new ConcurrentHashMap<>();
     }
 
-    public void addStats(FishingStatContext context) {
-        String type = context.getType();
-        String category = context.getCategory();
-        int amount = context.getAmount();
-
-        Map<String, Map<String, Integer>> typeData = stats.computeIfAbsent(type,
-                k -> new ConcurrentHashMap<>());
-        Map<String, Integer> categoryData = typeData.computeIfAbsent(category,
-                k -> new ConcurrentHashMap<>());
+    /**
+     * Aplica un incremento registrado en el diario y anota su secuencia de forma atómica
+     * respecto a {@link #snapshot()}.
+     */
+    public synchronized void addStats(FishingStatContext context, long seq) {
+        addStats(context);
+        journalSeq = Math.max(journalSeq, seq);
+    }
 
-        categoryData.merge("total", amount, Integer::sum);
+    public synchronized void addStats(FishingStatContext context) {
+        counters.add(context.getSlot(), context.getItemId(), context.getAmount());
+        version++;
+    }
 
-        if (context.hasItem()) {
-            categoryData.merge(context.getItem(), amount, Integer::sum);
+    /**
+     * Aplica todos los contextos de una acción con un solo bloqueo. {@code seq} es la
+     * secuencia del último registro del diario, o 0 sin diario.
+     */
+    public synchronized void addStats(FishingStatContext[] contexts, long seq) {
+        for (FishingStatContext context : contexts) {
+            counters.add(context.getSlot(), context.getItemId(), context.getAmount());
         }
-
-        typeCacheDirty = true;
-        typeTotalCache.remove(type);
+        journalSeq = Math.max(journalSeq, seq);
+        version++;
     }
 
-    public void removeStats(FishingStatContext context) {
-        String type = context.getType();
-        String category = context.getCategory();
-        int amount = context.getAmount();
-
-        Map<String, Map<String, Integer>> typeData = stats.get(type);
-        if (typeData == null) return;
+    public synchronized void removeStats(FishingStatContext context) {
+        if (counters.remove(context.getSlot(), context.getItemId(), context.getAmount())) {
+            version++;
+        }
+    }
 
-        Map<String, Integer> categoryData = typeData.get(category);
-        if (categoryData == null) return;
+    /**
+     * Aplica una resta registrada en el diario. La secuencia se anota aunque no hubiera nada
+     * que restar.
+     */
+    public synchronized void removeStats(FishingStatContext context, long seq) {
+        removeStats(context);
+        journalSeq = Math.max(journalSeq, seq);
+    }
 
-        int currentTotal = categoryData.getOrDefault("total", 0);
-        int newTotal = Math.max(0, currentTotal - amount);
-        if (newTotal > 0) {
-            categoryData.put("total", newTotal);
-        } else {
-            categoryData.remove("total");
-        }
+    /**
+     * Carga un total leído del almacenamiento. No cuenta como cambio pendiente de guardar.
+     */
+    public synchronized void putCategoryTotal(String type, String category, long total) {
+        counters.setTotal(StatLayout.slot(type, category), total);
+    }
 
-        if (context.hasItem()) {
-            String itemId = context.getItem();
-            int currentItem = categoryData.getOrDefault(itemId, 0);
-            int newItem = Math.max(0, currentItem - amount);
-            if (newItem > 0) {
-                categoryData.put(itemId, newItem);
-            } else {
-                categoryData.remove(itemId);
-            }
-        }
+    /**
+     * Carga la cantidad de un objeto leída del almacenamiento. No cuenta como cambio.
+     */
+    public synchronized void putItemAmount(String type, String category, String item, long amount) {
+        counters.setItem(StatLayout.slot(type, category), StatLayout.itemId(item), amount);
+    }
 
-        if (categoryData.isEmpty()) {
-            typeData.remove(category);
-        }
-        if (typeData.isEmpty()) {
-            stats.remove(type);
-        }
+    public synchronized long getCategoryTotal(String type, String category) {
+        return counters.getTotal(StatLayout.findSlot(type, category));
+    }
 
-        typeCacheDirty = true;
-        typeTotalCache.remove(type);
+    public synchronized long getCategoryTotal(int slot) {
+        return counters.getTotal(slot);
     }
 
-    public int getCategoryTotal(String type, String category) {
-        Map<String, Map<String, Integer>> typeData = stats.get(type);
-        if (typeData == null) return 0;
-        Map<String, Integer> categoryData = typeData.get(category);
-        if (categoryData == null) return 0;
-        return categoryData.getOrDefault("total", 0);
+    public synchronized long getItemAmount(String type, String category, String itemId) {
+        return counters.getItem(StatLayout.findSlot(type, category), StatLayout.findItemId(itemId));
     }
 
-    public int getItemAmount(String type, String category, String itemId) {
-        Map<String, Map<String, Integer>> typeData = stats.get(type);
-        if (typeData == null) return 0;
-        Map<String, Integer> categoryData = typeData.get(category);
-        if (categoryData == null) return 0;
-        return categoryData.getOrDefault(itemId, 0);
+    public synchronized long getItemAmount(int slot, int itemId) {
+        return counters.getItem(slot, itemId);
     }
 
-    public int getTotalByType(String type) {
-        if (!typeCacheDirty && typeTotalCache.containsKey(type)) {
-            return typeTotalCache.get(type);
-        }
+    public synchronized long getTotalByType(String type) {
+        return counters.getTypeTotal(StatLayout.findTypeId(type));
+    }
 
-        Map<String, Map<String, Integer>> typeData = stats.get(type);
-        if (typeData == null) {
-            typeTotalCache.put(type, 0);
-            return 0;
-        }
+    public synchronized long getTotalByType(int typeId) {
+        return counters.getTypeTotal(typeId);
+    }
 
-        int total = typeData.values().stream()
-                .mapToInt(categoryData -> categoryData.getOrDefault("total", 0))
-                .sum();
+    public synchronized Set<String> getAllTypes() {
+        return counters.getTypes();
+    }
 
-        typeTotalCache.put(type, total);
-        return total;
+    public synchronized Set<String> getCategoriesByType(String type) {
+        return counters.getCategories(StatLayout.findTypeId(type));
     }
 
-    public Set<String> getAllTypes() {
-        return new HashSet<>(stats.keySet());
+    /**
+     * Recorre las categorías con datos y sus objetos en orden de ranura.
+     */
+    public synchronized <E extends Exception> void forEachStat(StatCounters.StatVisitor<E> visitor) throws E {
+        counters.forEach(visitor);
     }
 
     public UUID getUuid() {
@@ -129,17 +133,79 @@ public class PlayerData {
         return name;
     }
 
-    public void setName(String name) {
+    public synchronized void setName(String name) {
+        if (Objects.equals(this.name, name)) return;
         this.name = name;
+        version++;
+    }
+
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public void setJournalSeq(long journalSeq) {
+        this.journalSeq = journalSeq;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDirty() {
+        return version != savedVersion;
+    }
+
+    /**
+     * Anota que su puntuación para la ranura (y el objeto, o -1) está desactualizada en los
+     * rankings. Devuelve true solo si no tenía cambios pendientes, para encolar al jugador
+     * una única vez.
+     */
+    public synchronized boolean markRankingDirty(int slot, int itemId) {
+        for (int i = 0; i < rankingChangeCount; i += 2) {
+            if (rankingChanges[i] == slot && rankingChanges[i + 1] == itemId) return false;
+        }
+
+        if (rankingChangeCount == rankingChanges.length) {
+            rankingChanges = Arrays.copyOf(rankingChanges, rankingChanges.length * 2);
+        }
+        rankingChanges[rankingChangeCount++] = slot;
+        rankingChanges[rankingChangeCount++] = itemId;
+        return rankingChangeCount == 2;
+    }
+
+    /**
+     * Devuelve los pares (ranura, id de objeto) pendientes y los olvida: un cambio posterior
+     * vuelve a encolar al jugador.
+     */
+    public synchronized int[] drainRankingChanges() {
+        int[] changes = Arrays.copyOf(rankingChanges, rankingChangeCount);
+        rankingChangeCount = 0;
+        return changes;
+    }
+
+    /**
+     * Anota que la versión indicada (la de la copia que se guardó) ya está en disco.
+     */
+    public synchronized void markSaved(long savedVersion) {
+        this.savedVersion = Math.max(this.savedVersion, savedVersion);
     }
 
-    public Map<String, Map<String, Map<String, Integer>>> getStatsInternal() {
-        return stats;
+    /**
+     * Copia independiente para guardar en segundo plano: las estadísticas y la secuencia
+     * del diario corresponden siempre al mismo instante.
+     */
+    public synchronized PlayerData snapshot() {
+        PlayerData copy = new PlayerData(uuid, name);
+        copy.counters = counters.copy();
+        copy.journalSeq = journalSeq;
+        copy.version = version;
+        copy.savedVersion = savedVersion;
+        return copy;
     }
 
     @Override
     public String toString() {
         return String.format("PlayerData{uuid=%s, name=%s, types=%d}",
-                uuid, name, stats.size());
+                uuid, name, getAllTypes().size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,247 @@
+package CesarCosmico.storage.data;
+
+import java.util.*;
+
+/**
+ * Contadores de estadísticas indexados por las ranuras de {@link StatLayout}.
+ *
+ * Para cada ranura (tipo, categoría) se guarda el total y los objetos en dos arrays
+ * paralelos (ids ordenados y cantidades). Los contadores son de 64 bits; los ids siguen
+ * siendo int. Los arrays solo crecen hasta la mayor ranura usada. No es seguro entre hilos:
+ * quien lo contiene se encarga de sincronizar.
+ */
+public class StatCounters {
+    private static final int[] NO_COUNTS = new int[0];
+    private static final long[] NO_COUNTERS = new long[0];
+    private static final int[][] NO_ITEM_IDS = new int[0][];
+    private static final long[][] NO_AMOUNTS = new long[0][];
+
+    private long[] totals = NO_COUNTERS;
+    private int[][] itemIds = NO_ITEM_IDS;
+    private long[][] itemAmounts = NO_AMOUNTS;
+    private int[] itemCounts = NO_COUNTS;
+    // Suma de los totales de cada tipo, indexada por id de tipo
+    private long[] typeTotals = NO_COUNTERS;
+
+    /**
+     * Recorrido de las estadísticas para guardarlas: cada categoría va seguida de sus objetos.
+     */
+    public interface StatVisitor<E extends Exception> {
+        void category(String type, String category, long total, int itemCount) throws E;
+
+        void item(String item, long amount) throws E;
+    }
+
+    /**
+     * Suma {@code amount} al total de la ranura y, si {@code itemId} no es negativo, al objeto.
+     */
+    public void add(int slot, int itemId, long amount) {
+        addTotal(slot, amount);
+        if (itemId >= 0) {
+            int index = itemIndex(slot, itemId, true);
+            itemAmounts[slot][index] += amount;
+        }
+    }
+
+    /**
+     * Resta sin bajar de cero y elimina lo que queda vacío. Devuelve false si la ranura no
+     * tenía datos.
+     */
+    public boolean remove(int slot, int itemId, long amount) {
+        if (!isPresent(slot)) return false;
+
+        addTotal(slot, Math.max(0, totals[slot] - amount) - totals[slot]);
+
+        int index = itemId < 0 ? -1 : itemIndex(slot, itemId, false);
+        if (index >= 0) {
+            long remaining = Math.max(0, itemAmounts[slot][index] - amount);
+            if (remaining > 0) {
+                itemAmounts[slot][index] = remaining;
+            } else {
+                removeItem(slot, index);
+            }
+        }
+        return true;
+    }
+
+    public void setTotal(int slot, long total) {
+        ensureSlot(slot);
+        addTotal(slot, total - totals[slot]);
+    }
+
+    public void setItem(int slot, int itemId, long amount) {
+        ensureSlot(slot);
+        int index = itemIndex(slot, itemId, true);
+        itemAmounts[slot][index] = amount;
+        if (amount == 0) {
+            removeItem(slot, index);
+        }
+    }
+
+    public long getTotal(int slot) {
+        return slot >= 0 && slot < totals.length ? totals[slot] : 0;
+    }
+
+    public long getItem(int slot, int itemId) {
+        if (slot < 0 || slot >= itemIds.length || itemId < 0) return 0;
+
+        int index = itemIndex(slot, itemId, false);
+        return index >= 0 ? itemAmounts[slot][index] : 0;
+    }
+
+    public long getTypeTotal(int typeId) {
+        return typeId >= 0 && typeId < typeTotals.length ? typeTotals[typeId] : 0;
+    }
+
+    public Map<String, Long> getItems(int slot) {
+        Map<String, Long> result = new HashMap<>();
+        if (slot < 0 || slot >= itemIds.length) return result;
+
+        int[] ids = itemIds[slot];
+        long[] amounts = itemAmounts[slot];
+        for (int i = 0; i < itemCounts[slot]; i++) {
+            result.put(StatLayout.itemName(ids[i]), amounts[i]);
+        }
+        return result;
+    }
+
+    public Set<String> getTypes() {
+        Set<String> types = new HashSet<>();
+        for (int slot = 0; slot < totals.length; slot++) {
+            if (isPresent(slot)) {
+                types.add(StatLayout.typeName(StatLayout.slotType(slot)));
+            }
+        }
+        return types;
+    }
+
+    public Set<String> getCategories(int typeId) {
+        Set<String> categories = new HashSet<>();
+        if (typeId < 0) return categories;
+
+        for (int slot = 0; slot < totals.length; slot++) {
+            if (isPresent(slot) && StatLayout.slotType(slot) == typeId) {
+                categories.add(StatLayout.slotCategory(slot));
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Recorre las categorías con datos y sus objetos en orden de ranura.
+     */
+    public <E extends Exception> void forEach(StatVisitor<E> visitor) throws E {
+        for (int slot = 0; slot < totals.length; slot++) {
+            if (!isPresent(slot)) continue;
+
+            visitor.category(StatLayout.typeName(StatLayout.slotType(slot)), StatLayout.slotCategory(slot),
+                    totals[slot], itemCounts[slot]);
+
+            int[] ids = itemIds[slot];
+            long[] amounts = itemAmounts[slot];
+            for (int i = 0; i < itemCounts[slot]; i++) {
+                visitor.item(StatLayout.itemName(ids[i]), amounts[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        totals = NO_COUNTERS;
+        itemIds = NO_ITEM_IDS;
+        itemAmounts = NO_AMOUNTS;
+        itemCounts = NO_COUNTS;
+        typeTotals = NO_COUNTERS;
+    }
+
+    public StatCounters copy() {
+        StatCounters copy = new StatCounters();
+        copy.totals = totals.clone();
+        copy.itemCounts = itemCounts.clone();
+        copy.typeTotals = typeTotals.clone();
+        copy.itemIds = new int[itemIds.length][];
+        copy.itemAmounts = new long[itemAmounts.length][];
+        for (int slot = 0; slot < itemIds.length; slot++) {
+            if (itemIds[slot] != null) {
+                copy.itemIds[slot] = Arrays.copyOf(itemIds[slot], itemCounts[slot]);
+                copy.itemAmounts[slot] = Arrays.copyOf(itemAmounts[slot], itemCounts[slot]);
+            }
+        }
+        return copy;
+    }
+
+    public boolean isPresent(int slot) {
+        return slot >= 0 && slot < totals.length && (totals[slot] != 0 || itemCounts[slot] > 0);
+    }
+
+    private void ensureSlot(int slot) {
+        if (slot < totals.length) return;
+
+        int length = Math.max(slot + 1, totals.length + (totals.length >> 1));
+        totals = Arrays.copyOf(totals, length);
+        itemIds = Arrays.copyOf(itemIds, length);
+        itemAmounts = Arrays.copyOf(itemAmounts, length);
+        itemCounts = Arrays.copyOf(itemCounts, length);
+    }
+
+    private void addTotal(int slot, long delta) {
+        ensureSlot(slot);
+        totals[slot] += delta;
+
+        int typeId = StatLayout.slotType(slot);
+        if (typeId >= typeTotals.length) {
+            typeTotals = Arrays.copyOf(typeTotals, typeId + 1);
+        }
+        typeTotals[typeId] += delta;
+    }
+
+    /**
+     * Posición del objeto en los ids de la ranura (búsqueda binaria). Si no está y
+     * {@code insert} es true se añade con cantidad 0; si no, devuelve -1.
+     */
+    private int itemIndex(int slot, int itemId, boolean insert) {
+        int[] ids = itemIds[slot];
+        int count = itemCounts[slot];
+
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = ids[mid];
+            if (id < itemId) {
+                low = mid + 1;
+            } else if (id > itemId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        if (!insert) return -1;
+
+        long[] amounts = itemAmounts[slot];
+        if (ids == null || ids.length == count) {
+            int capacity = ids == null ? 2 : Math.max(2, count * 2);
+            ids = ids == null ? new int[capacity] : Arrays.copyOf(ids, capacity);
+            amounts = amounts == null ? new long[capacity] : Arrays.copyOf(amounts, capacity);
+        }
+        System.arraycopy(ids, low, ids, low + 1, count - low);
+        System.arraycopy(amounts, low, amounts, low + 1, count - low);
+        ids[low] = itemId;
+        amounts[low] = 0;
+
+        itemIds[slot] = ids;
+        itemAmounts[slot] = amounts;
+        itemCounts[slot] = count + 1;
+        return low;
+    }
+
+    private void removeItem(int slot, int index) {
+        int count = itemCounts[slot] - 1;
+        System.arraycopy(itemIds[slot], index + 1, itemIds[slot], index, count - index);
+        System.arraycopy(itemAmounts[slot], index + 1, itemAmounts[slot], index, count - index);
+        itemCounts[slot] = count;
+        if (count == 0) {
+            itemIds[slot] = null;
+            itemAmounts[slot] = null;
+        }
+    }
+}
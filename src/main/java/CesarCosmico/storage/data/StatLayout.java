@@ -0,0 +1,151 @@
+package CesarCosmico.storage.data;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro compartido que traduce los identificadores de texto de las estadísticas a
+ * enteros densos.
+ *
+ * Cada tipo y cada objeto reciben un id propio, y cada par (tipo, categoría) una ranura.
+ * {@link PlayerData} guarda sus contadores en arrays indexados por esas ranuras, de modo que
+ * las cadenas existen una sola vez en memoria aunque haya miles de jugadores cargados. Los ids
+ * se asignan en el orden en que se ven y no se reutilizan mientras el servidor está encendido;
+ * en disco siempre se guardan los nombres.
+ */
+public final class StatLayout {
+    private static final Interner TYPES = new Interner();
+    private static final Interner ITEMS = new Interner();
+
+    private static final Map<Integer, Map<String, Integer>> SLOTS_BY_TYPE = new ConcurrentHashMap<>();
+    private static volatile int[] slotTypes = new int[16];
+    private static volatile String[] slotCategories = new String[16];
+    private static int slotCount;
+
+    private StatLayout() {
+    }
+
+    public static int typeId(String type) {
+        return TYPES.intern(type);
+    }
+
+    /**
+     * Como {@link #typeId(String)} pero sin registrar el tipo: devuelve -1 si nunca se ha visto.
+     */
+    public static int findTypeId(String type) {
+        return TYPES.find(type);
+    }
+
+    public static String typeName(int typeId) {
+        return TYPES.name(typeId);
+    }
+
+    public static int typeCount() {
+        return TYPES.size();
+    }
+
+    public static int itemId(String item) {
+        return ITEMS.intern(item);
+    }
+
+    public static int findItemId(String item) {
+        return ITEMS.find(item);
+    }
+
+    public static String itemName(int itemId) {
+        return ITEMS.name(itemId);
+    }
+
+    public static int slot(String type, String category) {
+        int typeId = typeId(type);
+        Integer slot = categorySlots(typeId).get(category);
+        return slot != null ? slot : registerSlot(typeId, category);
+    }
+
+    /**
+     * Ranura de un par (tipo, categoría) ya registrado, o -1. Las lecturas la usan para no
+     * llenar el registro con combinaciones que nadie ha incrementado.
+     */
+    public static int findSlot(String type, String category) {
+        int typeId = TYPES.find(type);
+        if (typeId < 0) return -1;
+        Map<String, Integer> slots = SLOTS_BY_TYPE.get(typeId);
+        if (slots == null) return -1;
+        Integer slot = slots.get(category);
+        return slot != null ? slot : -1;
+    }
+
+    public static int slotType(int slot) {
+        return slotTypes[slot];
+    }
+
+    public static String slotCategory(int slot) {
+        return slotCategories[slot];
+    }
+
+    private static Map<String, Integer> categorySlots(int typeId) {
+        return SLOTS_BY_TYPE.computeIfAbsent(typeId, k -> new ConcurrentHashMap<>());
+    }
+
+    private static synchronized int registerSlot(int typeId, String category) {
+        Map<String, Integer> slots = categorySlots(typeId);
+        Integer existing = slots.get(category);
+        if (existing != null) return existing;
+
+        int slot = slotCount;
+        if (slot == slotTypes.length) {
+            slotCategories = Arrays.copyOf(slotCategories, slot * 2);
+            slotTypes = Arrays.copyOf(slotTypes, slot * 2);
+        }
+        // Los arrays se publican antes que la ranura: quien la obtenga ya ve sus datos
+        String[] categories = slotCategories;
+        categories[slot] = category;
+        slotCategories = categories;
+        int[] types = slotTypes;
+        types[slot] = typeId;
+        slotTypes = types;
+
+        slotCount = slot + 1;
+        slots.put(category, slot);
+        return slot;
+    }
+
+    private static final class Interner {
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private volatile String[] names = new String[16];
+        private int size;
+
+        private int intern(String value) {
+            Integer id = ids.get(value);
+            return id != null ? id : register(value);
+        }
+
+        private int find(String value) {
+            Integer id = ids.get(value);
+            return id != null ? id : -1;
+        }
+
+        private String name(int id) {
+            return names[id];
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized int register(String value) {
+            Integer existing = ids.get(value);
+            if (existing != null) return existing;
+
+            int id = size;
+            String[] current = names.length == id ? Arrays.copyOf(names, id * 2) : names;
+            current[id] = value;
+            names = current;
+
+            size = id + 1;
+            ids.put(value, id);
+            return id;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package CesarCosmico.storage.data;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores compartidos entre hilos, indexados por las ranuras de {@link StatLayout}.
+ *
+ * Cada total y cada objeto es un {@link LongAdder}: los incrementos concurrentes se reparten
+ * entre celdas en lugar de competir por un bloqueo, y leer solo suma las celdas. Los arrays
+ * únicamente se bloquean para crecer la primera vez que aparece una ranura u objeto.
+ *
+ * Restar y fijar valores leen la suma y después la modifican, así que se serializan con el
+ * monitor de la ranura. Sumar no lo toma: como solo aumenta los contadores, una suma
+ * concurrente nunca puede hacer que el límite en cero de una resta se quede corto.
+ */
+public class StripedCounters {
+    private volatile Slot[] slots = new Slot[16];
+
+    public void add(int slot, int itemId, long amount) {
+        Slot counter = slot(slot);
+        counter.total.add(amount);
+        if (itemId >= 0) {
+            counter.item(itemId).add(amount);
+        }
+    }
+
+    /**
+     * Resta sin bajar de cero. Devuelve false si la ranura no tenía datos.
+     */
+    public boolean remove(int slot, int itemId, long amount) {
+        Slot counter = existing(slot);
+        if (counter == null) return false;
+
+        synchronized (counter) {
+            if (!counter.isPresent()) return false;
+
+            counter.total.add(-Math.min(counter.total.sum(), amount));
+
+            LongAdder item = itemId >= 0 ? counter.existingItem(itemId) : null;
+            if (item != null) {
+                item.add(-Math.min(item.sum(), amount));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Fija el total. Las sumas concurrentes no se pierden: cuentan como posteriores.
+     */
+    public void setTotal(int slot, long total) {
+        Slot counter = slot(slot);
+        synchronized (counter) {
+            counter.total.add(total - counter.total.sum());
+        }
+    }
+
+    public void setItem(int slot, int itemId, long amount) {
+        Slot counter = slot(slot);
+        synchronized (counter) {
+            LongAdder item = counter.item(itemId);
+            item.add(amount - item.sum());
+        }
+    }
+
+    public long getTotal(int slot) {
+        Slot counter = existing(slot);
+        return counter != null ? counter.total.sum() : 0;
+    }
+
+    public long getItem(int slot, int itemId) {
+        Slot counter = existing(slot);
+        LongAdder item = counter != null && itemId >= 0 ? counter.existingItem(itemId) : null;
+        return item != null ? item.sum() : 0;
+    }
+
+    public Map<String, Long> getItems(int slot) {
+        Map<String, Long> result = new HashMap<>();
+        Slot counter = existing(slot);
+        if (counter == null) return result;
+
+        LongAdder[] items = counter.items;
+        for (int itemId = 0; itemId < items.length; itemId++) {
+            long amount = items[itemId] != null ? items[itemId].sum() : 0;
+            if (amount != 0) {
+                result.put(StatLayout.itemName(itemId), amount);
+            }
+        }
+        return result;
+    }
+
+    public long getTypeTotal(int typeId) {
+        if (typeId < 0) return 0;
+
+        long total = 0;
+        Slot[] current = slots;
+        for (int slot = 0; slot < current.length; slot++) {
+            if (current[slot] != null && StatLayout.slotType(slot) == typeId) {
+                total += current[slot].total.sum();
+            }
+        }
+        return total;
+    }
+
+    public Set<String> getTypes() {
+        Set<String> types = new HashSet<>();
+        Slot[] current = slots;
+        for (int slot = 0; slot < current.length; slot++) {
+            if (current[slot] != null && current[slot].isPresent()) {
+                types.add(StatLayout.typeName(StatLayout.slotType(slot)));
+            }
+        }
+        return types;
+    }
+
+    public Set<String> getCategories(int typeId) {
+        Set<String> categories = new HashSet<>();
+        if (typeId < 0) return categories;
+
+        Slot[] current = slots;
+        for (int slot = 0; slot < current.length; slot++) {
+            if (current[slot] != null && StatLayout.slotType(slot) == typeId && current[slot].isPresent()) {
+                categories.add(StatLayout.slotCategory(slot));
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Copia de los valores actuales para serializarla sin bloquear a quien incrementa. Cada
+     * contador se lee de forma atómica, pero el conjunto solo es coherente si nadie escribe
+     * durante la copia.
+     */
+    public StatCounters snapshot() {
+        StatCounters copy = new StatCounters();
+        Slot[] current = slots;
+        for (int slot = 0; slot < current.length; slot++) {
+            Slot counter = current[slot];
+            if (counter == null) continue;
+
+            copy.setTotal(slot, counter.total.sum());
+            LongAdder[] items = counter.items;
+            for (int itemId = 0; itemId < items.length; itemId++) {
+                if (items[itemId] != null) {
+                    copy.setItem(slot, itemId, items[itemId].sum());
+                }
+            }
+        }
+        return copy;
+    }
+
+    public synchronized void clear() {
+        slots = new Slot[16];
+    }
+
+    private Slot existing(int slot) {
+        Slot[] current = slots;
+        return slot >= 0 && slot < current.length ? current[slot] : null;
+    }
+
+    private Slot slot(int slot) {
+        Slot counter = existing(slot);
+        return counter != null ? counter : createSlot(slot);
+    }
+
+    private synchronized Slot createSlot(int slot) {
+        Slot[] current = slots;
+        if (slot < current.length && current[slot] != null) {
+            return current[slot];
+        }
+
+        if (slot >= current.length) {
+            current = Arrays.copyOf(current, Math.max(slot + 1, current.length * 2));
+        }
+        Slot counter = new Slot();
+        current[slot] = counter;
+        slots = current;
+        return counter;
+    }
+
+    private static final class Slot {
+        private final LongAdder total = new LongAdder();
+        // Indexado por id de objeto; crece hasta el mayor id visto en esta ranura
+        private volatile LongAdder[] items = new LongAdder[0];
+
+        private LongAdder existingItem(int itemId) {
+            LongAdder[] current = items;
+            return itemId < current.length ? current[itemId] : null;
+        }
+
+        private LongAdder item(int itemId) {
+            LongAdder counter = existingItem(itemId);
+            return counter != null ? counter : createItem(itemId);
+        }
+
+        private synchronized LongAdder createItem(int itemId) {
+            LongAdder[] current = items;
+            if (itemId < current.length && current[itemId] != null) {
+                return current[itemId];
+            }
+
+            if (itemId >= current.length) {
+                current = Arrays.copyOf(current, Math.max(itemId + 1, current.length * 2));
+            }
+            LongAdder counter = new LongAdder();
+            current[itemId] = counter;
+            items = current;
+            return counter;
+        }
+
+        private boolean isPresent() {
+            if (total.sum() != 0) return true;
+            for (LongAdder item : items) {
+                if (item != null && item.sum() != 0) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package CesarCosmico.storage.index;
+
+import CesarCosmico.storage.data.PlayerData;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Índice resumido de puntuaciones de todos los jugadores guardados (UUID, nombre y total
+ * por type/category), persistido en un único fichero binario.
+ *
+ * Permite construir rankings en frío leyendo un solo fichero en lugar de abrir cada YAML
+ * de storage/data. Se actualiza cada vez que se guarda un jugador y se vuelca a disco en
+ * el auto-guardado y al apagar.
+ *
+ * El fichero lleva la secuencia del diario de las estadísticas guardadas junto a él. Si al
+ * arrancar no coincide con la de global_stats.yml, el índice puede no reflejar escrituras
+ * posteriores y se reconstruye.
+ */
+public class ScoreIndex {
+    private static final int MAGIC = 0x43465349;
+    // La versión 1 guardaba los totales como int y hasta la 2 no había secuencia; se siguen leyendo
+    private static final int VERSION = 3;
+
+    private final Logger logger;
+    private final File indexFile;
+    private final Map<UUID, Summary> summaries = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+    private volatile boolean dirty = false;
+    // -1 cuando el fichero no trae secuencia (versiones anteriores) y no puede validarse
+    private volatile long journalSeq = -1L;
+
+    public ScoreIndex(Logger logger, File storageFolder) {
+        this.logger = logger;
+        this.indexFile = new File(storageFolder, "score_index.dat");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Carga el índice desde disco. Devuelve false si no existe o está corrupto, en cuyo caso
+     * debe reconstruirse con {@link #rebuild}.
+     */
+    public boolean load() {
+        if (!indexFile.exists()) {
+            return false;
+        }
+
+        try {
+            long[] seq = new long[1];
+            Map<UUID, Summary> loaded = read(indexFile, seq);
+            summaries.clear();
+            summaries.putAll(loaded);
+            journalSeq = seq[0];
+            dirty = false;
+            ready = true;
+            return true;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Score index is unreadable, it will be rebuilt", e);
+            return false;
+        }
+    }
+
+    /**
+     * Secuencia del diario con la que se volcó el índice cargado o el último volcado.
+     */
+    public long getJournalSeq() {
+        return journalSeq;
+    }
+
+    public void update(PlayerData playerData) {
+        summaries.put(playerData.getUuid(), Summary.of(playerData));
+        dirty = true;
+    }
+
+    /**
+     * Sustituye todo el contenido por los jugadores indicados y lo vuelca a disco.
+     */
+    public void rebuild(Collection<PlayerData> players, long journalSeq) {
+        Map<UUID, Summary> rebuilt = new HashMap<>(players.size() * 2);
+        for (PlayerData playerData : players) {
+            rebuilt.put(playerData.getUuid(), Summary.of(playerData));
+        }
+
+        summaries.clear();
+        summaries.putAll(rebuilt);
+        dirty = true;
+        ready = true;
+        flush(journalSeq);
+    }
+
+    /**
+     * Vuelca el índice si cambió o si cambia la secuencia con la que se marca, que debe ser
+     * la de las estadísticas globales guardadas en ese momento.
+     */
+    public synchronized void flush(long journalSeq) {
+        if (!dirty && journalSeq == this.journalSeq) return;
+        dirty = false;
+
+        File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            write(out, journalSeq, new ArrayList<>(summaries.entrySet()));
+        } catch (IOException e) {
+            dirty = true;
+            logger.log(Level.SEVERE, "Failed to write score index", e);
+            return;
+        }
+
+        try {
+            Files.move(tempFile.toPath(), indexFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            this.journalSeq = journalSeq;
+        } catch (IOException e) {
+            dirty = true;
+            logger.log(Level.SEVERE, "Failed to replace score index", e);
+        }
+    }
+
+    public Summary get(UUID uuid) {
+        return summaries.get(uuid);
+    }
+
+    public Collection<Summary> getSummaries() {
+        return summaries.values();
+    }
+
+    public Set<UUID> getPlayerUUIDs() {
+        return new HashSet<>(summaries.keySet());
+    }
+
+    public int size() {
+        return summaries.size();
+    }
+
+    /**
+     * Lee el fichero del índice sin modificar el estado en memoria. Se usa para medir el
+     * coste de la carga en frío y para verificar.
+     */
+    public Map<UUID, Summary> readFromDisk() throws IOException {
+        return read(indexFile, new long[1]);
+    }
+
+    private static void write(DataOutputStream out, long journalSeq,
+                              List<Map.Entry<UUID, Summary>> entries) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(journalSeq);
+        out.writeInt(entries.size());
+
+        for (Map.Entry<UUID, Summary> entry : entries) {
+            UUID uuid = entry.getKey();
+            Summary summary = entry.getValue();
+
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeUTF(summary.name != null ? summary.name : "");
+            out.writeInt(summary.totals.size());
+
+            for (Map.Entry<String, Map<String, Long>> typeEntry : summary.totals.entrySet()) {
+                out.writeUTF(typeEntry.getKey());
+                out.writeInt(typeEntry.getValue().size());
+
+                for (Map.Entry<String, Long> categoryEntry : typeEntry.getValue().entrySet()) {
+                    out.writeUTF(categoryEntry.getKey());
+                    out.writeLong(categoryEntry.getValue());
+                }
+            }
+        }
+    }
+
+    private static Map<UUID, Summary> read(File file, long[] journalSeq) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Invalid score index header");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported score index version " + version);
+            }
+            journalSeq[0] = version >= 3 ? in.readLong() : -1L;
+
+            int count = in.readInt();
+            Map<UUID, Summary> result = new HashMap<>(count * 2);
+
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                String name = in.readUTF();
+                int typeCount = in.readInt();
+
+                Map<String, Map<String, Long>> totals = new HashMap<>(typeCount * 2);
+                for (int t = 0; t < typeCount; t++) {
+                    String type = in.readUTF();
+                    int categoryCount = in.readInt();
+
+                    Map<String, Long> categories = new HashMap<>(categoryCount * 2);
+                    for (int c = 0; c < categoryCount; c++) {
+                        String category = in.readUTF();
+                        categories.put(category, version >= 2 ? in.readLong() : in.readInt());
+                    }
+                    totals.put(type, categories);
+                }
+
+                result.put(uuid, new Summary(uuid, name.isEmpty() ? null : name, totals));
+            }
+
+            return result;
+        }
+    }
+
+    public static class Summary {
+        private final UUID uuid;
+        private final String name;
+        private final Map<String, Map<String, Long>> totals;
+
+        private Summary(UUID uuid, String name, Map<String, Map<String, Long>> totals) {
+            this.uuid = uuid;
+            this.name = name;
+            this.totals = totals;
+        }
+
+        public static Summary of(PlayerData playerData) {
+            Map<String, Map<String, Long>> totals = new HashMap<>();
+
+            for (String type : playerData.getAllTypes()) {
+                Map<String, Long> categories = new HashMap<>();
+                for (String category : playerData.getCategoriesByType(type)) {
+                    long total = playerData.getCategoryTotal(type, category);
+                    if (total > 0) {
+                        categories.put(category, total);
+                    }
+                }
+                if (!categories.isEmpty()) {
+                    totals.put(type, categories);
+                }
+            }
+
+            return new Summary(playerData.getUuid(), playerData.getName(), totals);
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCategoryTotal(String type, String category) {
+            Map<String, Long> categories = totals.get(type);
+            if (categories == null) return 0;
+            return categories.getOrDefault(category, 0L);
+        }
+
+        public long getTotalByType(String type) {
+            Map<String, Long> categories = totals.get(type);
+            if (categories == null) return 0;
+
+            long total = 0;
+            for (long value : categories.values()) {
+                total += value;
+            }
+            return total;
+        }
+
+        public boolean matches(Summary other) {
+            return other != null
+                    && Objects.equals(name, other.name)
+                    && totals.equals(other.totals);
+        }
+    }
+}
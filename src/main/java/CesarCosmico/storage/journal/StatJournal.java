@@ -0,0 +1,632 @@
+package CesarCosmico.storage.journal;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.storage.data.StatLayout;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Diario de solo-añadir con los incrementos de estadísticas (uuid, type, category, item,
+ * amount). Registrar una captura cuesta unos pocos bytes en lugar de reescribir el fichero
+ * completo del jugador y global_stats.yml.
+ *
+ * El diario se divide en segmentos storage/journal/&lt;seq&gt;.log. Al compactar se sella el
+ * segmento activo, se guardan los jugadores afectados y se borran los segmentos sellados.
+ * Cada registro lleva un número de secuencia creciente; los datos guardados recuerdan el
+ * último que incluyen, de modo que la reproducción tras un cierre inesperado es idempotente.
+ *
+ * Formato de registro:
+ * <pre>
+ * int length | long seq | byte flags | long msb | long lsb | str type | str category | str item | int amount | int crc
+ * </pre>
+ *
+ * Añadir nunca espera a otros hilos que añaden: la secuencia sale de un contador
+ * atómico y cada hilo deja sus registros en su propio buffer, que {@link #flush()} copia al
+ * segmento. Por eso dentro de un segmento los registros pueden no estar en orden de
+ * secuencia; la lectura los ordena. Sellar el segmento sí excluye a los que están añadiendo
+ * (ver {@link #beginAppend()}).
+ *
+ * Con fsync, cada {@link #flush()} fuerza el segmento a disco; sin él, un corte de luz puede
+ * perder lo que el sistema operativo aún no había escrito. Mientras no haya segmento abierto
+ * (no se pudo crear) los registros no se escriben: quien lo usa debe guardar los datos por
+ * su cuenta hasta que {@link #rotate()} consiga abrir uno.
+ */
+public class StatJournal {
+    public static final byte FLAG_PLAYER = 1;
+    public static final byte FLAG_GLOBAL = 2;
+    // El registro resta la cantidad en vez de sumarla (cambios de los administradores)
+    public static final byte FLAG_REMOVE = 4;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Logger logger;
+    private final File journalFolder;
+    private final boolean fsync;
+    private final List<File> sealedSegments = new ArrayList<>();
+    private final CRC32 crc = new CRC32();
+    // Un hilo vuelca su buffer él mismo al pasar de este tamaño, sin esperar al próximo flush
+    private static final int DRAIN_THRESHOLD = 64 * 1024;
+
+    private final ThreadLocal<ThreadBuffer> buffers = ThreadLocal.withInitial(this::registerBuffer);
+    private final List<ThreadBuffer> allBuffers = new CopyOnWriteArrayList<>();
+    // Lo toma quien pausa, para que ningún hilo nuevo registre su buffer mientras tanto
+    private final ReentrantLock registryLock = new ReentrantLock();
+    // Buffers bloqueados por la pausa en curso; solo se usa con registryLock
+    private List<ThreadBuffer> pausedBuffers;
+    // Orden de bloqueo: buffer de un hilo antes que outputLock, nunca al revés
+    private final Object outputLock = new Object();
+
+    private final AtomicLong nextSeq = new AtomicLong(1);
+    private File activeSegment;
+    private volatile DataOutputStream out;
+    private FileOutputStream fileOut;
+    // Registros asignados mientras no había segmento abierto
+    private final AtomicLong unwrittenRecords = new AtomicLong();
+    private int activeRecords;
+
+    public StatJournal(Logger logger, File storageFolder) {
+        this(logger, storageFolder, false);
+    }
+
+    public StatJournal(Logger logger, File storageFolder, boolean fsync) {
+        this.logger = logger;
+        this.journalFolder = new File(storageFolder, "journal");
+        this.fsync = fsync;
+    }
+
+    /**
+     * Lee todos los segmentos existentes en orden. Se llama una vez al arrancar, antes de
+     * {@link #open()}, para reproducir lo que no llegó a compactarse.
+     */
+    public synchronized List<Entry> readAll() {
+        List<Entry> entries = new ArrayList<>();
+        sealedSegments.clear();
+
+        for (File segment : listSegments()) {
+            sealedSegments.add(segment);
+            advanceTo(segmentStart(segment) - 1);
+            readSegment(segment, entries);
+        }
+
+        for (Entry entry : entries) {
+            advanceTo(entry.seq);
+        }
+        entries.sort(Comparator.comparingLong(Entry::getSeq));
+        return entries;
+    }
+
+    /**
+     * Abre un segmento nuevo para escribir. Los segmentos leídos con {@link #readAll()}
+     * quedan sellados hasta que se llame a {@link #discard}.
+     */
+    public synchronized void open() throws IOException {
+        if (!journalFolder.exists()) {
+            journalFolder.mkdirs();
+        }
+        openSegment();
+    }
+
+    /**
+     * Quien aplique los cambios de {@link #append} debe hacerlo entre esta llamada y
+     * {@link #endAppend()}, para que ningún sellado ni {@link #pauseAppends()} pueda separar
+     * los registros de su aplicación. Solo bloquea el buffer del propio hilo, así que varios
+     * hilos pueden estar dentro a la vez sin esperarse.
+     */
+    public void beginAppend() {
+        buffers.get().lock.lock();
+    }
+
+    public void endAppend() {
+        buffers.get().lock.unlock();
+    }
+
+    /**
+     * Espera a que terminen las escrituras en curso y bloquea las nuevas hasta
+     * {@link #resumeAppends()}, que debe llamar el mismo hilo. Mientras tanto todas las
+     * secuencias asignadas están aplicadas.
+     */
+    public void pauseAppends() {
+        registryLock.lock();
+        pausedBuffers = new ArrayList<>(allBuffers);
+        for (ThreadBuffer buffer : pausedBuffers) {
+            buffer.lock.lock();
+        }
+    }
+
+    public void resumeAppends() {
+        for (ThreadBuffer buffer : pausedBuffers) {
+            buffer.lock.unlock();
+        }
+        pausedBuffers = null;
+        registryLock.unlock();
+    }
+
+    private ThreadBuffer registerBuffer() {
+        ThreadBuffer buffer = new ThreadBuffer(Thread.currentThread());
+        registryLock.lock();
+        try {
+            allBuffers.add(buffer);
+        } finally {
+            registryLock.unlock();
+        }
+        return buffer;
+    }
+
+    // El hilo ya no existe, así que nadie más añade a su buffer después de vaciarlo
+    private void unregisterBuffer(ThreadBuffer buffer) {
+        registryLock.lock();
+        try {
+            allBuffers.remove(buffer);
+        } finally {
+            registryLock.unlock();
+        }
+    }
+
+    public long append(UUID uuid, byte flags, FishingStatContext context) {
+        return append(uuid, flags, new FishingStatContext[]{context});
+    }
+
+    /**
+     * Añade un registro por contexto y devuelve la secuencia del primero; las demás son
+     * consecutivas. Los registros quedan en el buffer del hilo hasta el próximo
+     * {@link #flush()}.
+     */
+    public long append(UUID uuid, byte flags, FishingStatContext[] contexts) {
+        if (contexts.length == 0) return 0L;
+
+        ThreadBuffer buffer = buffers.get();
+        buffer.lock.lock();
+        try {
+            long firstSeq = nextSeq.getAndAdd(contexts.length);
+            if (out == null) {
+                unwrittenRecords.addAndGet(contexts.length);
+                return firstSeq;
+            }
+
+            try {
+                for (int i = 0; i < contexts.length; i++) {
+                    buffer.encoder.encode(firstSeq + i, flags, uuid, contexts[i]);
+                }
+                buffer.records += contexts.length;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to append to stat journal", e);
+            }
+
+            if (buffer.encoder.size() >= DRAIN_THRESHOLD) {
+                drain(buffer);
+            }
+            return firstSeq;
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Copia al segmento los registros de todos los hilos. Cada buffer se bloquea solo
+     * mientras se copia, y los de hilos que ya han terminado se retiran una vez vacíos.
+     */
+    public void flush() {
+        for (ThreadBuffer buffer : allBuffers) {
+            buffer.lock.lock();
+            try {
+                drain(buffer);
+            } finally {
+                buffer.lock.unlock();
+            }
+            if (!buffer.owner.isAlive()) {
+                unregisterBuffer(buffer);
+            }
+        }
+
+        synchronized (outputLock) {
+            if (out == null) return;
+            try {
+                out.flush();
+                if (fsync) {
+                    fileOut.getFD().sync();
+                }
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to flush stat journal", e);
+            }
+        }
+    }
+
+    /**
+     * False si no se pudo abrir el segmento activo: los registros no llegan a disco hasta que
+     * un {@link #rotate()} lo consiga.
+     */
+    public boolean isOpen() {
+        return out != null;
+    }
+
+    /**
+     * Copia los registros pendientes de un buffer al segmento activo. Quien llama tiene el
+     * bloqueo del buffer.
+     */
+    private void drain(ThreadBuffer buffer) {
+        if (buffer.records == 0) return;
+
+        synchronized (outputLock) {
+            if (out != null) {
+                try {
+                    buffer.encoder.writeTo(out);
+                    activeRecords += buffer.records;
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Failed to write to stat journal", e);
+                }
+            }
+        }
+        buffer.encoder.reset();
+        buffer.records = 0;
+    }
+
+    private void drainAll() {
+        for (ThreadBuffer buffer : allBuffers) {
+            drain(buffer);
+        }
+    }
+
+    /**
+     * Sella el segmento activo y abre uno nuevo. Devuelve todos los segmentos sellados
+     * pendientes, que se pueden descartar en cuanto sus cambios estén guardados.
+     */
+    public List<File> rotate() {
+        pauseAppends();
+        try {
+            return sealActiveSegment();
+        } finally {
+            resumeAppends();
+        }
+    }
+
+    private synchronized List<File> sealActiveSegment() {
+        // Con las escrituras en pausa este hilo tiene el bloqueo de todos los buffers
+        drainAll();
+        synchronized (outputLock) {
+            if (out != null && activeRecords == 0) {
+                return new ArrayList<>(sealedSegments);
+            }
+
+            if (out != null) {
+                closeOutput();
+                sealedSegments.add(activeSegment);
+            }
+        }
+
+        try {
+            open();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to open stat journal segment", e);
+        }
+        return new ArrayList<>(sealedSegments);
+    }
+
+    public synchronized List<File> getSealedSegments() {
+        return new ArrayList<>(sealedSegments);
+    }
+
+    /**
+     * Garantiza que los próximos registros tengan una secuencia mayor que {@code seq}, aunque
+     * ya no quede ningún segmento en disco.
+     */
+    public void advanceTo(long seq) {
+        nextSeq.accumulateAndGet(seq + 1, Math::max);
+    }
+
+    public synchronized void discard(List<File> segments) {
+        for (File segment : segments) {
+            if (sealedSegments.remove(segment) && !segment.delete()) {
+                logger.warning("Could not delete journal segment " + segment.getName());
+            }
+        }
+    }
+
+    /**
+     * Como {@link #discard}, pero renombra los segmentos a .log.unapplied en lugar de
+     * borrarlos: contienen registros que no se pudieron aplicar y no deben reproducirse
+     * solos en el próximo arranque, pero tampoco perderse.
+     */
+    public synchronized void setAside(List<File> segments) {
+        for (File segment : segments) {
+            if (!sealedSegments.remove(segment)) continue;
+
+            File aside = new File(segment.getParentFile(), segment.getName() + ".unapplied");
+            if (segment.renameTo(aside)) {
+                logger.warning("Kept journal segment with unapplied records as " + aside.getName());
+            } else {
+                logger.warning("Could not set aside journal segment " + segment.getName());
+            }
+        }
+    }
+
+    public long getLastSeq() {
+        return nextSeq.get() - 1;
+    }
+
+    public void close() {
+        pauseAppends();
+        try {
+            drainAll();
+            synchronized (outputLock) {
+                if (out == null) return;
+                closeOutput();
+            }
+        } finally {
+            resumeAppends();
+        }
+    }
+
+    // Quien llama tiene outputLock
+    private void closeOutput() {
+        try {
+            out.flush();
+            if (fsync) {
+                fileOut.getFD().sync();
+            }
+            out.close();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to close stat journal segment", e);
+        }
+        out = null;
+        fileOut = null;
+    }
+
+    private synchronized void openSegment() throws IOException {
+        File segment = new File(journalFolder, String.format("%020d%s", nextSeq.get(), SEGMENT_SUFFIX));
+        // Un segmento que empieza en nextSeq no tiene registros: se reutiliza como activo
+        sealedSegments.remove(segment);
+        FileOutputStream file = new FileOutputStream(segment, true);
+
+        synchronized (outputLock) {
+            activeSegment = segment;
+            activeRecords = 0;
+            fileOut = file;
+            out = new DataOutputStream(new BufferedOutputStream(file));
+        }
+
+        long unwritten = unwrittenRecords.getAndSet(0);
+        if (unwritten > 0) {
+            logger.warning("Stat journal reopened; " + unwritten
+                    + " changes made while it was closed were not journaled");
+        }
+    }
+
+    /**
+     * El nombre de cada segmento es la secuencia con la que empezó. Como siempre queda al
+     * menos el segmento activo, la numeración nunca retrocede aunque se compacte todo.
+     */
+    private long segmentStart(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private List<File> listSegments() {
+        File[] files = journalFolder.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) return Collections.emptyList();
+
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(Comparator.comparing(File::getName));
+        return segments;
+    }
+
+    private static byte[] encode(String... values) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String value : values) {
+            writeString(out, value);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lee registros hasta el final del segmento o hasta el primero incompleto o corrupto,
+     * que corresponde a una escritura interrumpida.
+     */
+    private void readSegment(File segment, List<Entry> entries) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                int expectedCrc = in.readInt();
+
+                crc.reset();
+                crc.update(bytes, 0, bytes.length);
+                if ((int) crc.getValue() != expectedCrc) {
+                    logger.warning("Journal segment " + segment.getName() + " has a corrupt record, ignoring the rest");
+                    return;
+                }
+
+                entries.add(Entry.read(new DataInputStream(new ByteArrayInputStream(bytes))));
+            }
+        } catch (EOFException e) {
+            logger.warning("Journal segment " + segment.getName() + " ends with a truncated record");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Failed to read journal segment " + segment.getName(), e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Registros de un hilo pendientes de copiar al segmento. Su bloqueo solo lo disputan el
+     * propio hilo, {@link #flush()} mientras lo copia y quien pausa las escrituras.
+     */
+    private static final class ThreadBuffer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final RecordEncoder encoder = new RecordEncoder();
+        private final Thread owner;
+        private int records;
+
+        private ThreadBuffer(Thread owner) {
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * Codifica los registros de un hilo en un buffer reutilizable, con el CRC calculado sobre
+     * el propio buffer. Cada hilo guarda su codificación de (type, category) por ranura y de
+     * item por id + 1, para no convertir las mismas cadenas a UTF-8 en cada captura.
+     */
+    private static final class RecordEncoder {
+        private final RecordBuffer recordBuffer = new RecordBuffer();
+        private final DataOutputStream record = new DataOutputStream(recordBuffer);
+        private final ByteArrayOutputStream batchBuffer = new ByteArrayOutputStream(256);
+        private final DataOutputStream batch = new DataOutputStream(batchBuffer);
+        private final CRC32 crc = new CRC32();
+
+        private byte[][] slotKeys = new byte[16][];
+        private byte[][] itemKeys = new byte[16][];
+
+        private void reset() {
+            batchBuffer.reset();
+        }
+
+        private int size() {
+            return batchBuffer.size();
+        }
+
+        private void encode(long seq, byte flags, UUID uuid, FishingStatContext context) throws IOException {
+            recordBuffer.reset();
+            record.writeLong(seq);
+            record.writeByte(flags);
+            record.writeLong(uuid != null ? uuid.getMostSignificantBits() : 0L);
+            record.writeLong(uuid != null ? uuid.getLeastSignificantBits() : 0L);
+            record.write(slotKey(context.getSlot()));
+            record.write(itemKey(context.getItemId()));
+            record.writeInt(context.getAmount());
+
+            recordBuffer.checksum(crc);
+            batch.writeInt(recordBuffer.size());
+            recordBuffer.writeTo(batch);
+            batch.writeInt((int) crc.getValue());
+        }
+
+        private void writeTo(OutputStream out) throws IOException {
+            batchBuffer.writeTo(out);
+        }
+
+        private byte[] slotKey(int slot) throws IOException {
+            if (slot >= slotKeys.length) {
+                slotKeys = Arrays.copyOf(slotKeys, Math.max(slot + 1, slotKeys.length * 2));
+            }
+            byte[] key = slotKeys[slot];
+            if (key == null) {
+                key = StatJournal.encode(StatLayout.typeName(StatLayout.slotType(slot)), StatLayout.slotCategory(slot));
+                slotKeys[slot] = key;
+            }
+            return key;
+        }
+
+        private byte[] itemKey(int itemId) throws IOException {
+            int index = itemId + 1;
+            if (index >= itemKeys.length) {
+                itemKeys = Arrays.copyOf(itemKeys, Math.max(index + 1, itemKeys.length * 2));
+            }
+            byte[] key = itemKeys[index];
+            if (key == null) {
+                key = StatJournal.encode(itemId >= 0 ? StatLayout.itemName(itemId) : "");
+                itemKeys[index] = key;
+            }
+            return key;
+        }
+    }
+
+    /**
+     * Buffer reutilizable que calcula el CRC sobre su contenido sin copiarlo.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        private RecordBuffer() {
+            super(128);
+        }
+
+        private void checksum(CRC32 crc) {
+            crc.reset();
+            crc.update(buf, 0, count);
+        }
+    }
+
+    public static class Entry {
+        private final long seq;
+        private final byte flags;
+        private final UUID uuid;
+        private final FishingStatContext context;
+
+        private Entry(long seq, byte flags, UUID uuid, FishingStatContext context) {
+            this.seq = seq;
+            this.flags = flags;
+            this.uuid = uuid;
+            this.context = context;
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            long seq = in.readLong();
+            byte flags = in.readByte();
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            String type = readString(in);
+            String category = readString(in);
+            String item = readString(in);
+            int amount = in.readInt();
+
+            FishingStatContext context = FishingStatContext.builder()
+                    .type(type)
+                    .category(category)
+                    .item(item.isEmpty() ? null : item)
+                    .amount(amount)
+                    .build();
+            return new Entry(seq, flags, (flags & FLAG_PLAYER) != 0 ? uuid : null, context);
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public UUID getUuid() {
+            return uuid;
+        }
+
+        public boolean affectsPlayer() {
+            return (flags & FLAG_PLAYER) != 0;
+        }
+
+        public boolean affectsGlobal() {
+            return (flags & FLAG_GLOBAL) != 0;
+        }
+
+        public boolean isRemoval() {
+            return (flags & FLAG_REMOVE) != 0;
+        }
+
+        public FishingStatContext getContext() {
+            return context;
+        }
+    }
+}
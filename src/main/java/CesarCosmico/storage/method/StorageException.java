@@ -0,0 +1,13 @@
+package CesarCosmico.storage.method;
+
+/**
+ * Los datos guardados de un jugador existen pero no se pueden leer. Nunca debe sustituirse
+ * por un {@link CesarCosmico.storage.data.PlayerData} vacío: al guardarlo se escribiría
+ * encima de las estadísticas reales.
+ */
+public class StorageException extends RuntimeException {
+
+    public StorageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,76 @@
+package CesarCosmico.storage.method;
+
+import CesarCosmico.storage.data.PlayerData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Backend de persistencia de los datos de jugador. {@link CesarCosmico.storage.StorageManager}
+ * solo depende de esta interfaz; la implementación se elige con storage.method en config.yml.
+ */
+public interface StorageProvider {
+
+    /**
+     * Si los datos existen pero no se pueden leer, el futuro termina con
+     * {@link StorageException}.
+     */
+    CompletableFuture<PlayerData> loadPlayerData(UUID uuid);
+
+    CompletableFuture<Boolean> savePlayerData(PlayerData playerData);
+
+    /**
+     * Guarda varios jugadores y devuelve cuántos se guardaron. Los backends que admiten
+     * transacciones lo sobrescriben para agrupar todas las escrituras en una sola.
+     */
+    default CompletableFuture<Integer> saveAllPlayerData(Collection<PlayerData> players) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(players.size());
+        for (PlayerData playerData : players) {
+            futures.add(savePlayerData(playerData));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            int saved = 0;
+            for (CompletableFuture<Boolean> future : futures) {
+                if (Boolean.TRUE.equals(future.join())) {
+                    saved++;
+                }
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * Lectura bloqueante, para procesos que ya se ejecutan fuera del hilo principal. Un
+     * jugador sin datos guardados se devuelve vacío; uno cuyos datos no se pueden leer lanza
+     * {@link StorageException}.
+     */
+    PlayerData readPlayerData(UUID uuid);
+
+    /**
+     * Escritura bloqueante, para procesos que ya se ejecutan fuera del hilo principal.
+     */
+    boolean writePlayerData(PlayerData playerData);
+
+    /**
+     * Versión bloqueante de {@link #saveAllPlayerData}.
+     */
+    default int writeAllPlayerData(Collection<PlayerData> players) {
+        int saved = 0;
+        for (PlayerData playerData : players) {
+            if (writePlayerData(playerData)) {
+                saved++;
+            }
+        }
+        return saved;
+    }
+
+    Set<UUID> getStoredPlayerUUIDs();
+
+    default void close() {
+    }
+}
@@ -0,0 +1,295 @@
+package CesarCosmico.storage.method.database;
+
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.data.StatCounters;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.method.StorageException;
+import CesarCosmico.storage.method.StorageProvider;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.io.File;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+
+/**
+ * Backend embebido sobre SQLite, sin servidor externo. El plugin no incluye el driver: usa
+ * el que trae Paper (org.sqlite.JDBC).
+ *
+ * Cada estadística es una fila (uuid, type, category, item, amount); el total de una
+ * categoría se guarda con item = ''. Los rankings no se consultan aquí: la base de datos
+ * solo se actualiza al compactar el diario, así que se resuelven con el índice de
+ * puntuaciones como en el resto de backends.
+ */
+public class SQLiteProvider implements StorageProvider {
+    private static final String TOTAL_ITEM = "";
+
+    private final Plugin plugin;
+    private final File databaseFile;
+    private final ScoreIndex scoreIndex;
+    private final Executor ioExecutor;
+    private final Object connectionLock = new Object();
+    private Connection connection;
+
+    /**
+     * Abre la base de datos y crea las tablas. Si no se puede, lanza la excepción en lugar de
+     * quedar a medias, para que quien lo crea use otro backend.
+     */
+    public SQLiteProvider(Plugin plugin, ScoreIndex scoreIndex, Executor ioExecutor) throws SQLException {
+        this.plugin = plugin;
+        this.ioExecutor = ioExecutor;
+        this.scoreIndex = scoreIndex;
+        this.databaseFile = new File(plugin.getDataFolder(), "storage/stats.db");
+        databaseFile.getParentFile().mkdirs();
+        initialize();
+    }
+
+    private void initialize() throws SQLException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("SQLite driver org.sqlite.JDBC is not available", e);
+        }
+
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.execute("CREATE TABLE IF NOT EXISTS players ("
+                    + "uuid TEXT PRIMARY KEY, "
+                    + "name TEXT NOT NULL, "
+                    + "journal_seq INTEGER NOT NULL DEFAULT 0)");
+            statement.execute("CREATE TABLE IF NOT EXISTS stats ("
+                    + "uuid TEXT NOT NULL, "
+                    + "type TEXT NOT NULL, "
+                    + "category TEXT NOT NULL, "
+                    + "item TEXT NOT NULL, "
+                    + "amount INTEGER NOT NULL, "
+                    + "PRIMARY KEY (uuid, type, category, item))");
+            // Los rankings salen del índice en memoria; el índice de versiones anteriores sobra
+            statement.execute("DROP INDEX IF EXISTS idx_stats_ranking");
+
+            if (!hasColumn(statement, "players", "journal_seq")) {
+                statement.execute("ALTER TABLE players ADD COLUMN journal_seq INTEGER NOT NULL DEFAULT 0");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private boolean hasColumn(Statement statement, String table, String column) throws SQLException {
+        try (ResultSet result = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (result.next()) {
+                if (column.equalsIgnoreCase(result.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public CompletableFuture<PlayerData> loadPlayerData(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> readPlayerData(uuid), ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> savePlayerData(PlayerData playerData) {
+        return CompletableFuture.supplyAsync(() -> writePlayerData(playerData), ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Integer> saveAllPlayerData(Collection<PlayerData> players) {
+        List<PlayerData> snapshot = new ArrayList<>(players);
+        return CompletableFuture.supplyAsync(() -> writeAllPlayerData(snapshot), ioExecutor);
+    }
+
+    @Override
+    public PlayerData readPlayerData(UUID uuid) {
+        synchronized (connectionLock) {
+            try {
+                String name = null;
+                long journalSeq = 0L;
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT name, journal_seq FROM players WHERE uuid = ?")) {
+                    statement.setString(1, uuid.toString());
+                    try (ResultSet result = statement.executeQuery()) {
+                        if (result.next()) {
+                            name = result.getString(1);
+                            journalSeq = result.getLong(2);
+                        }
+                    }
+                }
+
+                if (name == null) {
+                    String playerName = Bukkit.getOfflinePlayer(uuid).getName();
+                    return new PlayerData(uuid, playerName != null ? playerName : "Unknown");
+                }
+
+                PlayerData playerData = new PlayerData(uuid, name);
+                playerData.setJournalSeq(journalSeq);
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "SELECT type, category, item, amount FROM stats WHERE uuid = ?")) {
+                    statement.setString(1, uuid.toString());
+                    try (ResultSet result = statement.executeQuery()) {
+                        while (result.next()) {
+                            String item = result.getString(3);
+                            if (item.equals(TOTAL_ITEM)) {
+                                playerData.putCategoryTotal(result.getString(1), result.getString(2), result.getLong(4));
+                            } else {
+                                playerData.putItemAmount(result.getString(1), result.getString(2), item, result.getLong(4));
+                            }
+                        }
+                    }
+                }
+                return playerData;
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Error loading player data for " + uuid, e);
+                throw new StorageException("Unreadable player data for " + uuid, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean writePlayerData(PlayerData playerData) {
+        return writeAllPlayerData(List.of(playerData)) == 1;
+    }
+
+    /**
+     * Guarda todos los jugadores en una única transacción con sentencias por lotes.
+     */
+    @Override
+    public int writeAllPlayerData(Collection<PlayerData> players) {
+        if (players.isEmpty()) return 0;
+
+        synchronized (connectionLock) {
+            try {
+                connection.setAutoCommit(false);
+
+                try (PreparedStatement upsertPlayer = connection.prepareStatement(
+                        "INSERT INTO players (uuid, name, journal_seq) VALUES (?, ?, ?) "
+                                + "ON CONFLICT(uuid) DO UPDATE SET name = excluded.name, "
+                                + "journal_seq = excluded.journal_seq");
+                     PreparedStatement deleteStats = connection.prepareStatement(
+                             "DELETE FROM stats WHERE uuid = ?");
+                     PreparedStatement insertStat = connection.prepareStatement(
+                             "INSERT INTO stats (uuid, type, category, item, amount) VALUES (?, ?, ?, ?, ?)")) {
+
+                    for (PlayerData playerData : players) {
+                        String uuid = playerData.getUuid().toString();
+
+                        upsertPlayer.setString(1, uuid);
+                        upsertPlayer.setString(2, playerData.getName() != null ? playerData.getName() : "Unknown");
+                        upsertPlayer.setLong(3, playerData.getJournalSeq());
+                        upsertPlayer.addBatch();
+
+                        deleteStats.setString(1, uuid);
+                        deleteStats.addBatch();
+
+                        addStatRows(insertStat, uuid, playerData);
+                    }
+
+                    upsertPlayer.executeBatch();
+                    deleteStats.executeBatch();
+                    insertStat.executeBatch();
+                }
+
+                connection.commit();
+            } catch (SQLException e) {
+                rollback();
+                plugin.getLogger().log(Level.SEVERE, "Error saving " + players.size() + " players", e);
+                return 0;
+            } finally {
+                resetAutoCommit();
+            }
+        }
+
+        for (PlayerData playerData : players) {
+            scoreIndex.update(playerData);
+        }
+        return players.size();
+    }
+
+    private void addStatRows(PreparedStatement insertStat, String uuid, PlayerData playerData) throws SQLException {
+        playerData.forEachStat(new StatCounters.StatVisitor<SQLException>() {
+            private String type;
+            private String category;
+
+            @Override
+            public void category(String type, String category, long total, int itemCount) throws SQLException {
+                this.type = type;
+                this.category = category;
+                if (total != 0) {
+                    addRow(TOTAL_ITEM, total);
+                }
+            }
+
+            @Override
+            public void item(String item, long amount) throws SQLException {
+                addRow(item, amount);
+            }
+
+            private void addRow(String item, long amount) throws SQLException {
+                insertStat.setString(1, uuid);
+                insertStat.setString(2, type);
+                insertStat.setString(3, category);
+                insertStat.setString(4, item);
+                insertStat.setLong(5, amount);
+                insertStat.addBatch();
+            }
+        });
+    }
+
+    @Override
+    public Set<UUID> getStoredPlayerUUIDs() {
+        Set<UUID> uuids = new HashSet<>();
+        synchronized (connectionLock) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery("SELECT uuid FROM players")) {
+                while (result.next()) {
+                    try {
+                        uuids.add(UUID.fromString(result.getString(1)));
+                    } catch (IllegalArgumentException e) {
+                        // Skip invalid rows
+                    }
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.SEVERE, "Error listing stored players", e);
+            }
+        }
+        return uuids;
+    }
+
+    @Override
+    public void close() {
+        synchronized (connectionLock) {
+            try {
+                if (connection != null && !connection.isClosed()) {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Error closing SQLite database", e);
+            }
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error rolling back transaction", e);
+        }
+    }
+
+    private void resetAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error restoring auto-commit", e);
+        }
+    }
+}
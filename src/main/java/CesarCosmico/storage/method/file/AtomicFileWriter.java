@@ -0,0 +1,156 @@
+package CesarCosmico.storage.method.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Escrituras de fichero resistentes a cierres inesperados.
+ *
+ * Cada escritura va a un fichero temporal que se sincroniza con disco (fsync); después la
+ * versión anterior pasa a ser &lt;fichero&gt;.bak y el temporal se renombra de forma atómica.
+ * Un cierre a mitad nunca deja un fichero a medio escribir: como mucho falta el principal y
+ * la lectura recurre a la copia .bak.
+ */
+public class AtomicFileWriter {
+    private final Logger logger;
+    private final boolean fsync;
+
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong fsyncNanos = new AtomicLong();
+    private final AtomicLong backupRecoveries = new AtomicLong();
+
+    @FunctionalInterface
+    public interface Reader<T> {
+        T read(File file) throws Exception;
+    }
+
+    public AtomicFileWriter(Logger logger, boolean fsync) {
+        this.logger = logger;
+        this.fsync = fsync;
+    }
+
+    public void write(File target, byte[] data) throws IOException {
+        Path targetPath = target.toPath();
+        Path tempPath = targetPath.resolveSibling(target.getName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tempPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                long start = System.nanoTime();
+                channel.force(true);
+                fsyncNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        if (Files.exists(targetPath)) {
+            Files.move(targetPath, backupOf(target).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(tempPath, targetPath, StandardCopyOption.ATOMIC_MOVE);
+
+        if (fsync) {
+            syncDirectory(targetPath.getParent());
+        }
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Lee el fichero con {@code reader}; si falta o no se puede interpretar, lo intenta con la
+     * copia .bak. Devuelve null si no existe ninguno de los dos. Si la copia sirve, el
+     * principal dañado se aparta como .corrupt-&lt;fecha&gt; para que el próximo guardado no lo
+     * convierta en la copia. Si ninguno sirve, ambos se dejan como están y se lanza
+     * IOException: quien lee no debe escribir nada en su lugar.
+     */
+    public <T> T read(File target, Reader<T> reader) throws IOException {
+        File backup = backupOf(target);
+        Exception failure = null;
+
+        if (target.exists()) {
+            try {
+                return reader.read(target);
+            } catch (Exception e) {
+                failure = e;
+                logger.log(Level.WARNING, "Could not read " + target.getName() + ", trying backup", e);
+            }
+        }
+
+        if (!backup.exists()) {
+            if (failure == null) {
+                return null;
+            }
+            throw new IOException("Unreadable file without backup: " + target.getName(), failure);
+        }
+
+        try {
+            T result = reader.read(backup);
+            backupRecoveries.incrementAndGet();
+            logger.warning("Recovered " + target.getName() + " from its backup");
+            if (failure != null) {
+                quarantine(target);
+            }
+            return result;
+        } catch (Exception e) {
+            throw new IOException("Unreadable file and backup: " + target.getName(), e);
+        }
+    }
+
+    public boolean exists(File target) {
+        return target.exists() || backupOf(target).exists();
+    }
+
+    public static File backupOf(File target) {
+        return new File(target.getParentFile(), target.getName() + ".bak");
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    public long getFsyncNanos() {
+        return fsyncNanos.get();
+    }
+
+    public long getBackupRecoveries() {
+        return backupRecoveries.get();
+    }
+
+    public boolean isFsync() {
+        return fsync;
+    }
+
+    private void quarantine(File target) {
+        File corrupt = new File(target.getParentFile(), target.getName() + ".corrupt-" + System.currentTimeMillis());
+        try {
+            Files.move(target.toPath(), corrupt.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            logger.severe("Moved unreadable file " + target.getName() + " to " + corrupt.getName());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Could not move aside unreadable file " + target.getName(), e);
+        }
+    }
+
+    /**
+     * Sincroniza el directorio para que el renombrado también sea duradero. No todos los
+     * sistemas permiten abrir un directorio, en cuyo caso se omite.
+     */
+    private void syncDirectory(Path directory) {
+        if (directory == null) return;
+
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Not supported on this platform
+        }
+        fsyncNanos.addAndGet(System.nanoTime() - start);
+    }
+}
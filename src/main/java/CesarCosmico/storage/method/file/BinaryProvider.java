@@ -0,0 +1,237 @@
+package CesarCosmico.storage.method.file;
+
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.data.StatCounters;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.method.StorageException;
+import CesarCosmico.storage.method.StorageProvider;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+
+/**
+ * Backend binario compacto: un fichero .dat por jugador con un diccionario de cadenas
+ * (types, categories e items) seguido de registros con prefijo de longitud que referencian
+ * el diccionario por índice.
+ *
+ * Formato:
+ * <pre>
+ * int magic | short version | str name | long journalSeq
+ * int dictSize | str[dictSize]
+ * int records | (int length | int type | int category | long total | int items | (int item | long amount)*)*
+ * </pre>
+ * donde str es un short sin signo con la longitud seguido de los bytes UTF-8. La versión 1
+ * no incluía journalSeq y las versiones 1 y 2 guardaban total y amount como int; se siguen
+ * leyendo y se reescriben en el formato actual al guardar.
+ */
+public class BinaryProvider implements StorageProvider {
+    private static final int MAGIC = 0x43465342;
+    private static final short VERSION = 3;
+
+    private final Plugin plugin;
+    private final File dataFolder;
+    private final ScoreIndex scoreIndex;
+    private final Executor ioExecutor;
+    private final boolean memoryMapped;
+    private final AtomicFileWriter fileWriter;
+
+    public BinaryProvider(Plugin plugin, ScoreIndex scoreIndex, boolean memoryMapped,
+                          Executor ioExecutor, AtomicFileWriter fileWriter) {
+        this.plugin = plugin;
+        this.fileWriter = fileWriter;
+        this.ioExecutor = ioExecutor;
+        this.scoreIndex = scoreIndex;
+        this.memoryMapped = memoryMapped;
+        this.dataFolder = new File(plugin.getDataFolder(), "storage/binary");
+        if (!dataFolder.exists()) {
+            dataFolder.mkdirs();
+        }
+    }
+
+    @Override
+    public CompletableFuture<PlayerData> loadPlayerData(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> readPlayerData(uuid), ioExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> savePlayerData(PlayerData playerData) {
+        return CompletableFuture.supplyAsync(() -> writePlayerData(playerData), ioExecutor);
+    }
+
+    @Override
+    public PlayerData readPlayerData(UUID uuid) {
+        try {
+            PlayerData playerData = fileWriter.read(getPlayerFile(uuid), file -> decode(uuid, readBuffer(file)));
+            if (playerData != null) {
+                return playerData;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Error loading player data for " + uuid, e);
+            throw new StorageException("Unreadable player data for " + uuid, e);
+        }
+
+        String playerName = Bukkit.getOfflinePlayer(uuid).getName();
+        return new PlayerData(uuid, playerName != null ? playerName : "Unknown");
+    }
+
+    @Override
+    public boolean writePlayerData(PlayerData playerData) {
+        try {
+            fileWriter.write(getPlayerFile(playerData.getUuid()), encode(playerData));
+            scoreIndex.update(playerData);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE,
+                    "Error saving player data for " + playerData.getUuid(), e);
+            return false;
+        }
+    }
+
+    @Override
+    public Set<UUID> getStoredPlayerUUIDs() {
+        Set<UUID> uuids = new HashSet<>();
+        File[] playerFiles = dataFolder.listFiles((dir, name) -> name.endsWith(".dat") || name.endsWith(".dat.bak"));
+        if (playerFiles == null) return uuids;
+
+        for (File file : playerFiles) {
+            try {
+                uuids.add(UUID.fromString(file.getName().replace(".bak", "").replace(".dat", "")));
+            } catch (IllegalArgumentException e) {
+                // Skip invalid files
+            }
+        }
+        return uuids;
+    }
+
+    private ByteBuffer readBuffer(File file) throws IOException {
+        if (!memoryMapped) {
+            return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private PlayerData decode(UUID uuid, ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Invalid binary player file header");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary player file version " + version);
+        }
+
+        PlayerData playerData = new PlayerData(uuid, readString(buffer));
+        if (version >= 2) {
+            playerData.setJournalSeq(buffer.getLong());
+        }
+
+        String[] dictionary = new String[buffer.getInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = readString(buffer).intern();
+        }
+
+        boolean wideCounters = version >= 3;
+        int records = buffer.getInt();
+        for (int r = 0; r < records; r++) {
+            int length = buffer.getInt();
+            int recordEnd = buffer.position() + length;
+
+            String type = dictionary[buffer.getInt()];
+            String category = dictionary[buffer.getInt()];
+
+            playerData.putCategoryTotal(type, category, wideCounters ? buffer.getLong() : buffer.getInt());
+
+            int items = buffer.getInt();
+            for (int i = 0; i < items; i++) {
+                String item = dictionary[buffer.getInt()];
+                playerData.putItemAmount(type, category, item, wideCounters ? buffer.getLong() : buffer.getInt());
+            }
+
+            buffer.position(recordEnd);
+        }
+
+        return playerData;
+    }
+
+    private byte[] encode(PlayerData playerData) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int[] recordCount = {0};
+
+        playerData.forEachStat(new StatCounters.StatVisitor<IOException>() {
+            @Override
+            public void category(String type, String category, long total, int itemCount) throws IOException {
+                records.writeInt(20 + itemCount * 12);
+                records.writeInt(intern(dictionary, type));
+                records.writeInt(intern(dictionary, category));
+                records.writeLong(total);
+                records.writeInt(itemCount);
+                recordCount[0]++;
+            }
+
+            @Override
+            public void item(String item, long amount) throws IOException {
+                records.writeInt(intern(dictionary, item));
+                records.writeLong(amount);
+            }
+        });
+
+        ByteArrayOutputStream fileBytes = new ByteArrayOutputStream(recordBytes.size() + 256);
+        DataOutputStream out = new DataOutputStream(fileBytes);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        writeString(out, playerData.getName() != null ? playerData.getName() : "Unknown");
+        out.writeLong(playerData.getJournalSeq());
+
+        out.writeInt(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            writeString(out, value);
+        }
+
+        out.writeInt(recordCount[0]);
+        recordBytes.writeTo(out);
+        out.flush();
+        return fileBytes.toByteArray();
+    }
+
+    private int intern(Map<String, Integer> dictionary, String value) {
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(value, index);
+        }
+        return index;
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private File getPlayerFile(UUID uuid) {
+        return new File(dataFolder, uuid.toString() + ".dat");
+    }
+}
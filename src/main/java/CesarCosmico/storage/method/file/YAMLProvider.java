@@ -1,50 +1,98 @@
 package CesarCosmico.storage.method.file;
 
 import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.data.StatCounters;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.method.StorageException;
+import CesarCosmico.storage.method.StorageProvider;
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
-public class YAMLProvider {
+public class YAMLProvider implements StorageProvider {
     private final Plugin plugin;
     private final File dataFolder;
+    private final ScoreIndex scoreIndex;
+    private final Executor ioExecutor;
+    private final AtomicFileWriter fileWriter;
 
-    public YAMLProvider(Plugin plugin) {
+    public YAMLProvider(Plugin plugin, ScoreIndex scoreIndex, Executor ioExecutor, AtomicFileWriter fileWriter) {
         this.plugin = plugin;
+        this.ioExecutor = ioExecutor;
+        this.fileWriter = fileWriter;
+        this.scoreIndex = scoreIndex;
         this.dataFolder = new File(plugin.getDataFolder(), "storage/data");
         if (!dataFolder.exists()) {
             dataFolder.mkdirs();
         }
     }
 
+    @Override
     public CompletableFuture<PlayerData> loadPlayerData(UUID uuid) {
-        return CompletableFuture.supplyAsync(() -> {
-            File playerFile = getPlayerFile(uuid);
-            if (!playerFile.exists()) {
-                String playerName = Bukkit.getOfflinePlayer(uuid).getName();
-                return new PlayerData(uuid, playerName != null ? playerName : "Unknown");
+        return CompletableFuture.supplyAsync(() -> readPlayerData(uuid), ioExecutor);
+    }
+
+    @Override
+    public PlayerData readPlayerData(UUID uuid) {
+        try {
+            PlayerData playerData = fileWriter.read(getPlayerFile(uuid), file -> parse(uuid, file));
+            if (playerData != null) {
+                return playerData;
             }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Error loading player data for " + uuid, e);
+            throw new StorageException("Unreadable player data for " + uuid, e);
+        }
+
+        String playerName = Bukkit.getOfflinePlayer(uuid).getName();
+        return new PlayerData(uuid, playerName != null ? playerName : "Unknown");
+    }
+
+    /**
+     * A diferencia de loadConfiguration, load lanza excepción ante un YAML inválido. Un
+     * fichero sin nombre (por ejemplo vacío tras un corte) también se considera dañado.
+     */
+    private PlayerData parse(UUID uuid, File file) throws IOException, InvalidConfigurationException {
+        YamlConfiguration config = new YamlConfiguration();
+        config.load(file);
+
+        String name = config.getString("name");
+        if (name == null) {
+            throw new InvalidConfigurationException("Missing player name in " + file.getName());
+        }
+
+        PlayerData playerData = new PlayerData(uuid, name);
+        playerData.setJournalSeq(config.getLong("journal-seq", 0L));
+        loadContexts(playerData, config);
+        return playerData;
+    }
+
+    @Override
+    public Set<UUID> getStoredPlayerUUIDs() {
+        Set<UUID> uuids = new HashSet<>();
+        File[] playerFiles = dataFolder.listFiles((dir, name) -> name.endsWith(".yml") || name.endsWith(".yml.bak"));
+        if (playerFiles == null) return uuids;
+
+        for (File file : playerFiles) {
             try {
-                YamlConfiguration config = YamlConfiguration.loadConfiguration(playerFile);
-                String name = config.getString("name", "Unknown");
-                PlayerData playerData = new PlayerData(uuid, name);
-                loadContexts(playerData, config);
-                return playerData;
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Error loading player data for " + uuid, e);
-                return new PlayerData(uuid, "Unknown");
+                uuids.add(UUID.fromString(file.getName().replace(".bak", "").replace(".yml", "")));
+            } catch (IllegalArgumentException e) {
+                // Skip invalid files
             }
-        });
+        }
+        return uuids;
     }
 
     private void loadContexts(PlayerData playerData, YamlConfiguration config) {
@@ -59,70 +107,64 @@ public class YAMLProvider {
                 ConfigurationSection categorySection = typeSection.getConfigurationSection(category);
                 if (categorySection == null) continue;
 
-                Map<String, Integer> data = new ConcurrentHashMap<>();
-                data.put("total", categorySection.getInt("total", 0));
+                playerData.putCategoryTotal(type, category, categorySection.getLong("total", 0L));
 
                 ConfigurationSection itemsSection = categorySection.getConfigurationSection("items");
                 if (itemsSection != null) {
                     for (String itemId : itemsSection.getKeys(false)) {
-                        data.put(itemId, itemsSection.getInt(itemId, 0));
+                        playerData.putItemAmount(type, category, itemId, itemsSection.getLong(itemId, 0L));
                     }
                 }
-
-                playerData.getStatsInternal()
-                        .computeIfAbsent(type, k -> new ConcurrentHashMap<>())
-                        .put(category, data);
             }
         }
     }
 
+    @Override
     public CompletableFuture<Boolean> savePlayerData(PlayerData playerData) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                YamlConfiguration config = new YamlConfiguration();
-                config.set("name", playerData.getName());
-                saveContexts(playerData, config);
-                config.save(getPlayerFile(playerData.getUuid()));
-                return true;
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE,
-                        "Error saving player data for " + playerData.getUuid(), e);
-                return false;
-            }
-        });
+        return CompletableFuture.supplyAsync(() -> writePlayerData(playerData), ioExecutor);
+    }
+
+    @Override
+    public boolean writePlayerData(PlayerData playerData) {
+        try {
+            YamlConfiguration config = new YamlConfiguration();
+            config.set("name", playerData.getName());
+            config.set("journal-seq", playerData.getJournalSeq());
+            saveContexts(playerData, config);
+            fileWriter.write(getPlayerFile(playerData.getUuid()),
+                    config.saveToString().getBytes(StandardCharsets.UTF_8));
+            scoreIndex.update(playerData);
+            return true;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE,
+                    "Error saving player data for " + playerData.getUuid(), e);
+            return false;
+        }
     }
 
     private void saveContexts(PlayerData playerData, YamlConfiguration config) {
         ConfigurationSection contextsSection = config.createSection("contexts");
-        Map<String, Map<String, Map<String, Integer>>> allStats = playerData.getStatsInternal();
-
-        for (Map.Entry<String, Map<String, Map<String, Integer>>> typeEntry : allStats.entrySet()) {
-            String type = typeEntry.getKey();
-            Map<String, Map<String, Integer>> typeData = typeEntry.getValue();
-
-            ConfigurationSection typeSection = contextsSection.createSection(type);
 
-            for (Map.Entry<String, Map<String, Integer>> categoryEntry : typeData.entrySet()) {
-                String category = categoryEntry.getKey();
-                Map<String, Integer> categoryData = categoryEntry.getValue();
+        playerData.forEachStat(new StatCounters.StatVisitor<RuntimeException>() {
+            private ConfigurationSection itemsSection;
 
-                int total = categoryData.getOrDefault("total", 0);
-                Map<String, Integer> items = new HashMap<>(categoryData);
-                items.remove("total");
-
-                if (total == 0 && items.isEmpty()) continue;
+            @Override
+            public void category(String type, String category, long total, int itemCount) {
+                ConfigurationSection typeSection = contextsSection.getConfigurationSection(type);
+                if (typeSection == null) {
+                    typeSection = contextsSection.createSection(type);
+                }
 
                 ConfigurationSection categorySection = typeSection.createSection(category);
                 categorySection.set("total", total);
+                itemsSection = itemCount > 0 ? categorySection.createSection("items") : null;
+            }
 
-                if (!items.isEmpty()) {
-                    ConfigurationSection itemsSection = categorySection.createSection("items");
-                    for (Map.Entry<String, Integer> itemEntry : items.entrySet()) {
-                        itemsSection.set(itemEntry.getKey(), itemEntry.getValue());
-                    }
-                }
+            @Override
+            public void item(String item, long amount) {
+                itemsSection.set(item, amount);
             }
-        }
+        });
     }
 
     private File getPlayerFile(UUID uuid) {
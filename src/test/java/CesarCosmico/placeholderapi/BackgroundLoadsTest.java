@@ -0,0 +1,55 @@
+package CesarCosmico.placeholderapi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundLoadsTest {
+    private final Map<String, String> memory = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final BackgroundLoads<String, String> values = new BackgroundLoads<>(memory::get, key -> {
+        loads.incrementAndGet();
+        CompletableFuture<Void> load = new CompletableFuture<>();
+        pending.put(key, load);
+        return load;
+    });
+
+    @Test
+    void valuesInMemoryNeverLoad() {
+        memory.put("steve", "42");
+        assertEquals("42", values.get("steve"));
+        assertEquals(0, loads.get());
+    }
+
+    /**
+     * Mientras la carga no termina, cada petición vuelve al momento sin valor y sin lanzar
+     * otra carga; al terminar, el valor se lee de memoria.
+     */
+    @Test
+    void missStartsOneLoadAndNeverWaits() {
+        for (int i = 0; i < 100; i++) {
+            assertNull(values.get("steve"));
+        }
+        assertEquals(1, loads.get());
+
+        memory.put("steve", "42");
+        pending.get("steve").complete(null);
+        assertEquals("42", values.get("steve"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void failedLoadIsRetriedOnNextMiss() {
+        assertNull(values.get("steve"));
+        pending.get("steve").completeExceptionally(new IllegalStateException("unreadable"));
+
+        assertNull(values.get("steve"));
+        assertEquals(2, loads.get());
+    }
+}
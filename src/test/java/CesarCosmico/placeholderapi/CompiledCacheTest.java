@@ -0,0 +1,244 @@
+package CesarCosmico.placeholderapi;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.data.StatLayout;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledCacheTest {
+    private static final String[] PARAMS = {
+            "player_category_total_fish_common",
+            "player_category_total_fish_rare",
+            "player_category_item_fish_common_cod",
+            "player_category_item_fish_rare_salmon",
+            "player_total_fish",
+            "player_total_loot",
+            "player_category_total_loot_treasure"
+    };
+
+    @Test
+    void compilesEachKeyOnce() {
+        CompiledCache<String, String> cache = new CompiledCache<>(16);
+        AtomicInteger compiles = new AtomicInteger();
+        Function<String, String> compiler = key -> {
+            compiles.incrementAndGet();
+            return key.toUpperCase();
+        };
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("A", cache.get("a", compiler));
+            assertEquals("B", cache.get("b", compiler));
+        }
+        assertEquals(2, compiles.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        CompiledCache<String, String> cache = new CompiledCache<>(4);
+        AtomicInteger compiles = new AtomicInteger();
+        Function<String, String> compiler = key -> {
+            compiles.incrementAndGet();
+            return key;
+        };
+
+        for (String key : new String[]{"a", "b", "c", "d", "a", "e"}) {
+            cache.get(key, compiler);
+        }
+        // Al pasar de 4 quedan las 3 usadas más recientemente: a, d y e
+        assertEquals(3, cache.size());
+        assertEquals(5, compiles.get());
+
+        for (String key : new String[]{"a", "d", "e"}) {
+            cache.get(key, compiler);
+        }
+        assertEquals(5, compiles.get());
+        cache.get("b", compiler);
+        assertEquals(6, compiles.get());
+    }
+
+    /**
+     * Los valores por jugador se sustituyen sin crecer y, al pasar del máximo, se descarta
+     * de una vez la cuarta parte usada hace más tiempo.
+     */
+    @Test
+    void storedValuesAreTrimmedInBatches() {
+        CompiledCache<UUID, String> cache = new CompiledCache<>(8);
+        UUID[] players = new UUID[9];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new UUID(0, i);
+        }
+
+        for (int i = 0; i < 8; i++) {
+            cache.put(players[i], "v" + i);
+        }
+        cache.put(players[0], "v0b");
+        assertEquals(8, cache.size());
+        assertEquals("v0b", cache.peek(players[0]));
+
+        cache.peek(players[1]);
+        cache.put(players[8], "v8");
+        // Quedan 6: se van 2, 3 y 4, los usados hace más tiempo
+        assertEquals(6, cache.size());
+        for (int i = 2; i <= 4; i++) {
+            assertNull(cache.peek(players[i]));
+        }
+        for (int i : new int[]{0, 1, 5, 6, 7, 8}) {
+            assertNotNull(cache.peek(players[i]));
+        }
+    }
+
+    @Test
+    void concurrentLookupsStayBounded() throws Exception {
+        CompiledCache<String, String> cache = new CompiledCache<>(64);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    // Unas pocas claves muy usadas y muchas que solo aparecen una vez
+                    String key = i % 2 == 0 ? "hot" + (i % 8) : "cold" + thread + "_" + i;
+                    assertEquals(key, cache.get(key, Function.identity()));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(cache.size() <= 64 + threads.length, "cache grew to " + cache.size());
+    }
+
+    /**
+     * Micro-benchmark de una petición de placeholder personal: analizar el texto en cada
+     * petición y leer por nombre, como hacía onRequest, frente a buscar el placeholder
+     * compilado y leer por ranura. Además compara la búsqueda con 1 a 8 hilos frente a la
+     * LRU sincronizada que se usaba antes.
+     */
+    @Test
+    @Tag("benchmark")
+    void compiledLookupBenchmark() throws InterruptedException {
+        PlayerData data = new PlayerData(UUID.randomUUID(), "player");
+        for (String[] stat : new String[][]{
+                {"fish", "common", "cod"}, {"fish", "rare", "salmon"}, {"loot", "treasure", "gold"}}) {
+            data.addStats(FishingStatContext.builder().type(stat[0]).category(stat[1]).item(stat[2]).amount(3).build());
+        }
+
+        CompiledCache<String, Function<PlayerData, String>> cache = new CompiledCache<>(1024);
+        for (String params : PARAMS) {
+            assertEquals(parseAndResolve(params, data), cache.get(params, CompiledCacheTest::compile).apply(data));
+        }
+
+        int requests = 200_000;
+        long sink = 0;
+        for (int i = 0; i < requests; i++) {
+            String params = PARAMS[i % PARAMS.length];
+            sink += parseAndResolve(params, data).length() + cache.get(params, CompiledCacheTest::compile).apply(data).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            sink += parseAndResolve(PARAMS[i % PARAMS.length], data).length();
+        }
+        long parseNanos = (System.nanoTime() - start) / requests;
+
+        start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            sink += cache.get(PARAMS[i % PARAMS.length], CompiledCacheTest::compile).apply(data).length();
+        }
+        long compiledNanos = (System.nanoTime() - start) / requests;
+
+        System.out.printf("placeholder request: parse per request %d ns/op, compiled lookup %d ns/op (%d)%n",
+                parseNanos, compiledNanos, sink);
+        assertTrue(compiledNanos < parseNanos, "compiled lookup should beat parsing every request");
+
+        SynchronizedLru<Function<PlayerData, String>> lru = new SynchronizedLru<>(1024);
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            long lruNanos = measureLookups(threads, params -> lru.get(params, CompiledCacheTest::compile));
+            long cacheNanos = measureLookups(threads, params -> cache.get(params, CompiledCacheTest::compile));
+            System.out.printf("compiled lookup, %d threads: synchronized LRU %d ns/op, concurrent cache %d ns/op%n",
+                    threads, lruNanos, cacheNanos);
+        }
+    }
+
+    private static long measureLookups(int threads, Function<String, Function<PlayerData, String>> lookup)
+            throws InterruptedException {
+        int lookups = 200_000;
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    assertNotNull(lookup.apply(PARAMS[i % PARAMS.length]));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (System.nanoTime() - start) / ((long) threads * lookups);
+    }
+
+    /**
+     * La caché que había antes en FishingStatsExpansion: LinkedHashMap por orden de acceso
+     * bajo un único monitor.
+     */
+    private static final class SynchronizedLru<V> {
+        private final Map<String, V> entries;
+
+        private SynchronizedLru(int maxSize) {
+            entries = new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        private V get(String key, Function<String, V> compiler) {
+            synchronized (entries) {
+                return entries.computeIfAbsent(key, compiler);
+            }
+        }
+    }
+
+    private static String parseAndResolve(String params, PlayerData data) {
+        String[] args = params.toLowerCase().split("_");
+        if (args[1].equals("total")) {
+            return String.valueOf(data.getTotalByType(args[2]));
+        }
+        if (args[2].equals("total")) {
+            return String.valueOf(data.getCategoryTotal(args[3], join(args, 4, args.length)));
+        }
+        return String.valueOf(data.getItemAmount(args[3], join(args, 4, args.length - 1), args[args.length - 1]));
+    }
+
+    private static Function<PlayerData, String> compile(String params) {
+        String[] args = params.toLowerCase().split("_");
+        if (args[1].equals("total")) {
+            int typeId = StatLayout.findTypeId(args[2]);
+            return data -> String.valueOf(data.getTotalByType(typeId));
+        }
+        int slot = StatLayout.findSlot(args[3], join(args, 4, args[2].equals("total") ? args.length : args.length - 1));
+        if (args[2].equals("total")) {
+            return data -> String.valueOf(data.getCategoryTotal(slot));
+        }
+        int itemId = StatLayout.findItemId(args[args.length - 1]);
+        return data -> String.valueOf(data.getItemAmount(slot, itemId));
+    }
+
+    private static String join(String[] array, int from, int to) {
+        return String.join("_", Arrays.copyOfRange(array, from, to));
+    }
+}
@@ -0,0 +1,145 @@
+package CesarCosmico.services;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.storage.journal.StatJournal;
+import CesarCosmico.storage.method.file.AtomicFileWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalStatsServiceTest {
+    private static final Logger LOGGER = Logger.getLogger("GlobalStatsServiceTest");
+    private static final FishingStatContext[] CATCH = {
+            FishingStatContext.builder().type("fish").category("common").item("cod").amount(1).build()
+    };
+
+    @TempDir
+    File folder;
+
+    /**
+     * Cada registro suma 1, así que en cualquier copia guardada el total debe ser igual a la
+     * secuencia: si no, la reproducción tras un reinicio duplicaría o perdería incrementos.
+     */
+    @Test
+    void savedSeqMatchesSavedCounters() throws Exception {
+        AtomicFileWriter fileWriter = new AtomicFileWriter(LOGGER, false);
+        GlobalStatsService globalStats = new GlobalStatsService(LOGGER, folder, false, fileWriter);
+        StatJournal journal = new StatJournal(LOGGER, new File(folder, "storage"));
+        journal.open();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread writer = new Thread(() -> {
+                while (running.get()) {
+                    journal.beginAppend();
+                    try {
+                        globalStats.increment(CATCH, journal.append(null, StatJournal.FLAG_GLOBAL, CATCH));
+                    } finally {
+                        journal.endAppend();
+                    }
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+
+        try {
+            for (int i = 0; i < 50; i++) {
+                GlobalStatsService.Snapshot snapshot;
+                journal.pauseAppends();
+                try {
+                    snapshot = globalStats.snapshot();
+                } finally {
+                    journal.resumeAppends();
+                }
+                assertTrue(globalStats.save(snapshot));
+
+                GlobalStatsService loaded = new GlobalStatsService(LOGGER, folder, false, fileWriter);
+                loaded.load();
+                assertEquals(loaded.getJournalSeq(), loaded.getCategoryTotal("fish", "common"));
+            }
+        } finally {
+            running.set(false);
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            journal.close();
+        }
+        assertEquals(journal.getLastSeq(), globalStats.getCategoryTotal("fish", "common"));
+    }
+
+    /**
+     * Un guardado lento no debe retrasar los incrementos del hilo principal: solo la copia de
+     * los contadores los excluye, no la serialización ni la escritura.
+     */
+    @Test
+    void incrementsDoNotWaitForSaves() throws Exception {
+        long writeMillis = 200;
+        AtomicInteger writes = new AtomicInteger();
+        AtomicFileWriter slowWriter = new AtomicFileWriter(LOGGER, false) {
+            @Override
+            public void write(File target, byte[] data) throws IOException {
+                try {
+                    Thread.sleep(writeMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(target, data);
+                writes.incrementAndGet();
+            }
+        };
+        GlobalStatsService globalStats = new GlobalStatsService(LOGGER, folder, false, slowWriter);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread saver = new Thread(() -> {
+            while (running.get()) {
+                assertTrue(globalStats.save());
+            }
+        });
+        saver.start();
+
+        long maxNanos = 0;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(writeMillis * 3);
+        long increments = 0;
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            globalStats.increment(CATCH, 0L);
+            maxNanos = Math.max(maxNanos, System.nanoTime() - start);
+            increments++;
+        }
+        running.set(false);
+        saver.join();
+
+        assertTrue(writes.get() >= 2);
+        assertTrue(maxNanos < TimeUnit.MILLISECONDS.toNanos(writeMillis / 2),
+                "an increment waited " + TimeUnit.NANOSECONDS.toMillis(maxNanos) + "ms");
+        assertEquals(increments, globalStats.getCategoryTotal("fish", "common"));
+    }
+
+    @Test
+    void totalsPastIntRangeSurviveSaveAndLoad() {
+        AtomicFileWriter fileWriter = new AtomicFileWriter(LOGGER, false);
+        GlobalStatsService globalStats = new GlobalStatsService(LOGGER, folder, false, fileWriter);
+        FishingStatContext large = FishingStatContext.builder()
+                .type("fish").category("common").item("cod").amount(Integer.MAX_VALUE).build();
+        for (int i = 0; i < 3; i++) {
+            globalStats.increment(large);
+        }
+        assertTrue(globalStats.save());
+
+        GlobalStatsService loaded = new GlobalStatsService(LOGGER, folder, false, fileWriter);
+        loaded.load();
+        assertEquals(3L * Integer.MAX_VALUE, loaded.getCategoryTotal("fish", "common"));
+        assertEquals(3L * Integer.MAX_VALUE, loaded.getTotalByType("fish"));
+    }
+}
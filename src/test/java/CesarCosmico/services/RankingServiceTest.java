@@ -0,0 +1,223 @@
+package CesarCosmico.services;
+
+import CesarCosmico.storage.data.StatLayout;
+import net.momirealms.customfishing.api.mechanic.statistic.FishingStatistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankingServiceTest {
+    private static final String[] ITEMS = {
+            "cod", "salmon", "pufferfish", "tropical_fish", "gold_fish", "carp", "pike", "tuna"
+    };
+
+    @Test
+    void scoresEveryKeyFromOneStatistics() {
+        FishingStatistics stats = statistics(Map.of("cod", 3, "salmon", 2, "gold", 5));
+        int[] keys = {
+                ~StatLayout.typeId("category"),
+                StatLayout.slot("category", "river"),
+                StatLayout.slot("category", "gold")
+        };
+        // gold no tiene miembros: cuenta el objeto con ese nombre
+        List<List<String>> members = Arrays.asList(null, List.of("cod", "salmon", "carp"), null);
+
+        assertArrayEquals(new long[]{10, 5, 5}, RankingService.customFishingScores(stats, keys, members));
+        assertArrayEquals(new long[]{0, 0, 0}, RankingService.customFishingScores(null, keys, members));
+    }
+
+    /**
+     * Las peticiones que llegan mientras se construye un ranking reciben el mismo futuro y
+     * un único cálculo; al terminar, la clave queda libre para el siguiente.
+     */
+    @Test
+    void concurrentRequestsShareOneBuild() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+        AtomicInteger builds = new AtomicInteger();
+
+        CompletableFuture<String> first = RankingService.singleFlight(tasks::add, inFlight, "fish",
+                () -> "ranking" + builds.incrementAndGet());
+        CompletableFuture<String> second = RankingService.singleFlight(tasks::add, inFlight, "fish",
+                () -> "ranking" + builds.incrementAndGet());
+        assertSame(first, second);
+        assertFalse(first.isDone());
+        assertEquals(1, tasks.size());
+
+        tasks.poll().run();
+        assertEquals("ranking1", second.join());
+        assertTrue(inFlight.isEmpty());
+
+        RankingService.singleFlight(tasks::add, inFlight, "fish", () -> "ranking" + builds.incrementAndGet());
+        tasks.poll().run();
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void failedBuildReachesEveryWaiterAndIsRetried() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+        CompletableFuture<String> first = RankingService.singleFlight(tasks::add, inFlight, "fish", () -> {
+            throw new IllegalStateException("timed out");
+        });
+        CompletableFuture<String> second = RankingService.singleFlight(tasks::add, inFlight, "fish", () -> "unused");
+        tasks.poll().run();
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        assertTrue(inFlight.isEmpty());
+
+        CompletableFuture<String> rejected = RankingService.singleFlight(task -> {
+            throw new RejectedExecutionException("shutting down");
+        }, inFlight, "fish", () -> "unused");
+        assertTrue(rejected.isCompletedExceptionally());
+        assertTrue(inFlight.isEmpty());
+    }
+
+    /**
+     * Una captura solo marca los rankings de las categorías que contienen el objeto, con su
+     * progreso; un objeto que no está en ninguna no marca ninguno.
+     */
+    @Test
+    void itemSlotsListOnlyCategoriesContainingTheItem() {
+        Map<Integer, int[]> itemSlots = RankingService.itemSlots(Map.of(
+                "river", List.of("cod", "carp"),
+                "sea", List.of("cod", "tuna")));
+
+        Set<Integer> codSlots = new HashSet<>();
+        for (int slot : itemSlots.get(StatLayout.itemId("cod"))) {
+            codSlots.add(slot);
+        }
+        assertEquals(Set.of(
+                StatLayout.slot("category", "river"), StatLayout.slot("progress", "river"),
+                StatLayout.slot("category", "sea"), StatLayout.slot("progress", "sea")), codSlots);
+        assertArrayEquals(new int[]{StatLayout.slot("category", "river"), StatLayout.slot("progress", "river")},
+                itemSlots.get(StatLayout.itemId("carp")));
+        assertNull(itemSlots.get(StatLayout.itemId("pufferfish")));
+    }
+
+    /**
+     * El recálculo conjunto carga a cada jugador una vez para todas las claves; el de una
+     * clave cada vez, como hacía calculateRankings, lo carga una vez por clave. Ambos dan las
+     * mismas puntuaciones.
+     */
+    @Test
+    void fusedPassLoadsEachPlayerOnce() {
+        Fixture fixture = new Fixture(200);
+
+        long[] perKey = perKeyPass(fixture);
+        assertEquals(200L * fixture.keys.length, fixture.loads.sumThenReset());
+
+        assertArrayEquals(perKey, fusedPass(fixture));
+        assertEquals(200L, fixture.loads.sumThenReset());
+    }
+
+    /**
+     * Recálculo sobre 5.000 jugadores con el agregado del tipo y cuatro categorías. Cada
+     * carga analiza las estadísticas guardadas del jugador, como haría la de CustomFishing
+     * desde disco.
+     */
+    @Test
+    @Tag("benchmark")
+    void fusedPassBenchmark() {
+        Fixture fixture = new Fixture(5_000);
+        for (int i = 0; i < 3; i++) {
+            perKeyPass(fixture);
+            fusedPass(fixture);
+        }
+
+        long start = System.nanoTime();
+        perKeyPass(fixture);
+        long perKeyNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        fusedPass(fixture);
+        long fusedNanos = System.nanoTime() - start;
+
+        System.out.printf("ranking pass, %d players x %d keys: one key at a time %d ms, all keys per load %d ms%n",
+                fixture.stored.size(), fixture.keys.length, perKeyNanos / 1_000_000, fusedNanos / 1_000_000);
+    }
+
+    /**
+     * Una clave cada vez: recorre a todos los jugadores por clave y los vuelve a cargar.
+     */
+    private static long[] perKeyPass(Fixture fixture) {
+        long[] sums = new long[fixture.keys.length];
+        for (int k = 0; k < fixture.keys.length; k++) {
+            int[] key = {fixture.keys[k]};
+            List<List<String>> members = Collections.singletonList(fixture.members.get(k));
+            for (UUID uuid : fixture.stored.keySet()) {
+                sums[k] += RankingService.customFishingScores(fixture.load(uuid), key, members)[0];
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Todas las claves a la vez: una carga por jugador.
+     */
+    private static long[] fusedPass(Fixture fixture) {
+        long[] sums = new long[fixture.keys.length];
+        for (UUID uuid : fixture.stored.keySet()) {
+            long[] scores = RankingService.customFishingScores(fixture.load(uuid), fixture.keys, fixture.members);
+            for (int k = 0; k < scores.length; k++) {
+                sums[k] += scores[k];
+            }
+        }
+        return sums;
+    }
+
+    private static final class Fixture {
+        private final Map<UUID, String> stored = new HashMap<>();
+        private final LongAdder loads = new LongAdder();
+        private final int[] keys = {
+                ~StatLayout.typeId("category"),
+                StatLayout.slot("category", "sea"),
+                StatLayout.slot("category", "river"),
+                StatLayout.slot("category", "rare"),
+                StatLayout.slot("category", "cod")
+        };
+        private final List<List<String>> members = Arrays.asList(null,
+                List.of("cod", "salmon", "tuna"), List.of("carp", "pike"), List.of("pufferfish", "gold_fish"), null);
+
+        private Fixture(int players) {
+            Random random = new Random(1);
+            for (int i = 0; i < players; i++) {
+                StringBuilder data = new StringBuilder();
+                for (String item : ITEMS) {
+                    data.append(item).append('=').append(random.nextInt(100)).append(';');
+                }
+                stored.put(new UUID(0, i), data.toString());
+            }
+        }
+
+        private FishingStatistics load(UUID uuid) {
+            loads.increment();
+            Map<String, Integer> amounts = new HashMap<>();
+            for (String entry : stored.get(uuid).split(";")) {
+                String[] pair = entry.split("=");
+                amounts.put(pair[0], Integer.parseInt(pair[1]));
+            }
+            return statistics(amounts);
+        }
+    }
+
+    private static FishingStatistics statistics(Map<String, Integer> amounts) {
+        return (FishingStatistics) Proxy.newProxyInstance(FishingStatistics.class.getClassLoader(),
+                new Class<?>[]{FishingStatistics.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getAmount" -> amounts.getOrDefault((String) args[0], 0);
+                    case "amountOfFishCaught" -> amounts.values().stream().mapToInt(Integer::intValue).sum();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,142 @@
+package CesarCosmico.services.ranking;
+
+import CesarCosmico.services.RankingService.PlayerRankEntry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    @Test
+    void rankAndScoreMatchSortedOrder() {
+        Random random = new Random(1);
+        Leaderboard leaderboard = new Leaderboard();
+        Map<UUID, Long> scores = new HashMap<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            long score = 1 + random.nextInt(500);
+            scores.put(uuid, score);
+            leaderboard.update(uuid, "player" + i, score);
+        }
+
+        // Cambia y elimina algunos jugadores para recorrer también erase
+        List<UUID> uuids = new ArrayList<>(scores.keySet());
+        for (int i = 0; i < 500; i++) {
+            UUID uuid = uuids.get(random.nextInt(uuids.size()));
+            long score = random.nextInt(500);
+            leaderboard.update(uuid, null, score);
+            if (score <= 0) {
+                scores.remove(uuid);
+            } else {
+                scores.put(uuid, score);
+            }
+        }
+
+        List<PlayerRankEntry> expected = sorted(scores);
+        assertEquals(expected.size(), leaderboard.size());
+
+        List<PlayerRankEntry> all = leaderboard.top(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            UUID uuid = expected.get(i).getUuid();
+            assertEquals(uuid, all.get(i).getUuid());
+            assertEquals(i + 1, leaderboard.rankOf(uuid));
+            assertEquals((long) scores.get(uuid), all.get(i).getScore());
+        }
+        assertEquals(0, leaderboard.rankOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void renameKeepsRank() {
+        Leaderboard leaderboard = new Leaderboard();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        leaderboard.update(first, "Old", 10);
+        leaderboard.update(second, "Other", 5);
+
+        leaderboard.update(first, "New", 10);
+
+        assertEquals(1, leaderboard.rankOf(first));
+        assertEquals("New", leaderboard.top(1).get(0).getName());
+    }
+
+    @Test
+    void pageReturnsRequestedWindow() {
+        Leaderboard leaderboard = new Leaderboard();
+        for (int i = 1; i <= 25; i++) {
+            leaderboard.update(new UUID(0, i), "p" + i, i);
+        }
+
+        List<PlayerRankEntry> page = leaderboard.range(10, 10);
+        assertEquals(10, page.size());
+        assertEquals(15, page.get(0).getScore());
+        assertEquals(6, page.get(9).getScore());
+        assertTrue(leaderboard.range(25, 10).isEmpty());
+    }
+
+    /**
+     * Micro-benchmark de la búsqueda de posición: rankOf sobre el árbol frente a recorrer la
+     * lista ordenada comparando nombres, como hacía CachedRanking.getRank.
+     */
+    @Test
+    @Tag("benchmark")
+    void rankLookupBenchmark() {
+        for (int size : new int[]{10_000, 100_000}) {
+            Random random = new Random(size);
+            Leaderboard leaderboard = new Leaderboard();
+            UUID[] uuids = new UUID[size];
+            for (int i = 0; i < size; i++) {
+                uuids[i] = new UUID(random.nextLong(), random.nextLong());
+                leaderboard.update(uuids[i], "player" + i, 1 + random.nextInt(1_000_000));
+            }
+            List<PlayerRankEntry> list = leaderboard.top(size);
+
+            int lookups = 2_000;
+            int[] targets = new int[lookups];
+            for (int i = 0; i < lookups; i++) {
+                targets[i] = random.nextInt(size);
+            }
+
+            long sink = 0;
+            for (int i = 0; i < lookups; i++) {
+                sink += leaderboard.rankOf(uuids[targets[i]]) + linearRank(list, "player" + targets[i]);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                sink += leaderboard.rankOf(uuids[targets[i]]);
+            }
+            long treeNanos = (System.nanoTime() - start) / lookups;
+
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                sink += linearRank(list, "player" + targets[i]);
+            }
+            long linearNanos = (System.nanoTime() - start) / lookups;
+
+            System.out.printf("rank lookup, %d entries: rankOf %d ns/op, linear scan %d ns/op (%d)%n",
+                    size, treeNanos, linearNanos, sink);
+            assertTrue(treeNanos < linearNanos, "rankOf should beat a linear scan at " + size + " entries");
+        }
+    }
+
+    private static int linearRank(List<PlayerRankEntry> list, String name) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getName().equals(name)) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static List<PlayerRankEntry> sorted(Map<UUID, Long> scores) {
+        List<PlayerRankEntry> entries = new ArrayList<>();
+        scores.forEach((uuid, score) -> entries.add(new PlayerRankEntry(uuid, "", score)));
+        entries.sort(Comparator.comparingLong(PlayerRankEntry::getScore).reversed()
+                .thenComparing(PlayerRankEntry::getUuid));
+        return entries;
+    }
+}
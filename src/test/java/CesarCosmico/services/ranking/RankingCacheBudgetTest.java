@@ -0,0 +1,104 @@
+package CesarCosmico.services.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankingCacheBudgetTest {
+    private final Map<String, Ranking> categories = new ConcurrentHashMap<>();
+    private final Map<String, Ranking> progress = new ConcurrentHashMap<>();
+    private final RankingCacheBudget budget = new RankingCacheBudget(List.of(categories, progress));
+
+    @Test
+    void weightFollowsPutsReplacementsAndClear() {
+        assertTrue(put(categories, "fish:common", new Ranking(30)));
+        assertTrue(put(progress, "common", new Ranking(20)));
+        assertTrue(put(categories, "fish:common", new Ranking(10)));
+        assertEquals(30L, budget.getWeight());
+
+        budget.clear();
+        assertEquals(0L, budget.getWeight());
+        assertTrue(categories.isEmpty());
+        assertTrue(progress.isEmpty());
+        assertEquals(0L, budget.getEvictions());
+    }
+
+    /**
+     * Superado el peso máximo se descarta el ranking consultado hace más tiempo, aunque
+     * esté en la otra caché.
+     */
+    @Test
+    void overBudgetEvictsLeastRecentlyReadAcrossCaches() throws InterruptedException {
+        budget.setMaxWeight(100);
+        put(progress, "common", new Ranking(40));
+        Thread.sleep(5);
+        put(categories, "fish:common", new Ranking(40));
+        Thread.sleep(5);
+        categories.get("fish:common").touch();
+        Thread.sleep(5);
+
+        assertTrue(put(categories, "fish:rare", new Ranking(40)));
+        assertFalse(progress.containsKey("common"));
+        assertEquals(Set.of("fish:common", "fish:rare"), categories.keySet());
+        assertEquals(80L, budget.getWeight());
+        assertEquals(1L, budget.getEvictions());
+    }
+
+    /**
+     * max-entries solo cuenta y descarta rankings del mismo tipo.
+     */
+    @Test
+    void maxEntriesEvictsOnlyTheSameType() throws InterruptedException {
+        put(categories, "loot:old", new Ranking(1), 1);
+        Thread.sleep(5);
+        put(categories, "fish:old", new Ranking(1), 1);
+        Thread.sleep(5);
+        put(categories, "fish:new", new Ranking(1), 1);
+
+        assertEquals(Set.of("loot:old", "fish:new"), categories.keySet());
+        assertEquals(2L, budget.getWeight());
+    }
+
+    /**
+     * Un ranking que por sí solo supera el máximo no se guarda, y la versión anterior de su
+     * clave se descarta en lugar de seguir sirviéndose; el resto no se toca.
+     */
+    @Test
+    void rankingHeavierThanBudgetIsNotKept() {
+        budget.setMaxWeight(100);
+        put(categories, "fish:common", new Ranking(10));
+        put(categories, "fish:rare", new Ranking(10));
+
+        assertFalse(put(categories, "fish:common", new Ranking(500)));
+        assertEquals(Set.of("fish:rare"), categories.keySet());
+        assertEquals(10L, budget.getWeight());
+        assertEquals(1L, budget.getEvictions());
+    }
+
+    private boolean put(Map<String, Ranking> cache, String key, Ranking ranking) {
+        return put(cache, key, ranking, 256);
+    }
+
+    private boolean put(Map<String, Ranking> cache, String key, Ranking ranking, int maxEntries) {
+        String type = key.substring(0, Math.max(0, key.indexOf(':')));
+        return budget.put(cache, key, ranking, other -> other.startsWith(type), maxEntries);
+    }
+
+    private static final class Ranking extends RankingCache.Entry {
+        private final int weight;
+
+        private Ranking(int weight) {
+            this.weight = weight;
+        }
+
+        @Override
+        public int getWeight() {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package CesarCosmico.services.ranking;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankingCachePolicyTest {
+
+    @Test
+    void missingSectionUsesDefaults() {
+        assertSame(RankingCachePolicy.DEFAULT, RankingCachePolicy.from(null, RankingCachePolicy.DEFAULT));
+    }
+
+    /**
+     * ttl va en segundos y refresh-ahead es una fracción del ttl; lo que una política de
+     * tipo no indica se hereda de la general.
+     */
+    @Test
+    void typeSectionOverridesOnlyWhatItSets() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("ttl", 60);
+        config.set("refresh-ahead", 0.5);
+        config.set("max-entries", 10);
+        config.set("types.progress.ttl", 600);
+
+        RankingCachePolicy general = RankingCachePolicy.from(config, RankingCachePolicy.DEFAULT);
+        assertEquals(60_000L, general.getTtlMillis());
+        assertEquals(30_000L, general.getRefreshAheadMillis());
+        assertEquals(10, general.getMaxEntries());
+
+        RankingCachePolicy progress = RankingCachePolicy.from(config.getConfigurationSection("types.progress"), general);
+        assertEquals(600_000L, progress.getTtlMillis());
+        assertEquals(300_000L, progress.getRefreshAheadMillis());
+        assertEquals(10, progress.getMaxEntries());
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("ttl", 0);
+        config.set("refresh-ahead", 1.5);
+        config.set("max-entries", -3);
+
+        RankingCachePolicy policy = RankingCachePolicy.from(config, RankingCachePolicy.DEFAULT);
+        assertEquals(1_000L, policy.getTtlMillis());
+        assertEquals(1_000L, policy.getRefreshAheadMillis());
+        assertEquals(1, policy.getMaxEntries());
+    }
+}
@@ -0,0 +1,154 @@
+package CesarCosmico.services.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankingCacheTest {
+    private static final RankingCachePolicy POLICY = new RankingCachePolicy(60_000L, 60_000L, 16);
+
+    // Las tareas en segundo plano solo se ejecutan cuando el test lo decide
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Map<String, Ranking> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger calculations = new AtomicInteger();
+    private final RankingCache<String, Ranking> cache = new RankingCache<>(entries, tasks::add,
+            key -> POLICY, key -> {
+                Ranking ranking = new Ranking(calculations.incrementAndGet());
+                entries.put(key, ranking);
+                return ranking;
+            });
+
+    /**
+     * Una entrada desactualizada se devuelve una vez mientras se recalcula y la siguiente
+     * consulta ya recibe el ranking nuevo.
+     */
+    @Test
+    void staleEntryIsServedOnceThenRefreshed() {
+        CompletableFuture<Ranking> first = cache.get("fish");
+        assertFalse(first.isDone());
+        runTasks();
+        assertEquals(1, first.join().version);
+
+        assertEquals(1, cache.get("fish").join().version);
+        assertTrue(tasks.isEmpty());
+
+        entries.get("fish").markStale();
+        assertEquals(1, cache.get("fish").join().version);
+        assertEquals(1, tasks.size());
+        runTasks();
+
+        assertEquals(2, cache.get("fish").join().version);
+        assertTrue(tasks.isEmpty());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getStaleServed());
+        assertEquals(2, cache.getHits());
+        assertEquals(2, calculations.get());
+    }
+
+    @Test
+    void concurrentRequestsShareOneCalculation() {
+        CompletableFuture<Ranking> first = cache.get("fish");
+        CompletableFuture<Ranking> second = cache.get("fish");
+        assertNull(cache.peek("fish"));
+        assertEquals(1, tasks.size());
+
+        runTasks();
+        assertSame(first.join(), second.join());
+        assertEquals(1, calculations.get());
+    }
+
+    /**
+     * peek nunca espera: sin entrada devuelve null y deja un único cálculo pendiente, y la
+     * siguiente consulta tras el cálculo ya recibe el ranking.
+     */
+    @Test
+    void peekStartsOneCalculationWithoutWaiting() {
+        assertNull(cache.peek("fish"));
+        assertNull(cache.peek("fish"));
+        assertEquals(1, tasks.size());
+        assertEquals(0, calculations.get());
+
+        runTasks();
+        assertEquals(1, cache.peek("fish").version);
+        assertTrue(tasks.isEmpty());
+    }
+
+    /**
+     * El barrido recalcula las entradas desactualizadas aunque nadie las consulte, y deja
+     * en paz las vigentes y las que ya se están calculando.
+     */
+    @Test
+    void sweepRecalculatesOnlyDueEntries() {
+        cache.get("fish");
+        cache.get("loot");
+        cache.get("trash");
+        runTasks();
+
+        entries.get("fish").markStale();
+        entries.get("trash").markStale();
+        // trash ya se está recalculando por una consulta
+        cache.get("trash");
+        assertEquals(List.of("fish", "trash"), sorted(cache.dueKeys()));
+
+        cache.recalculate(cache.dueKeys());
+        assertEquals(4, entries.get("fish").version);
+        assertEquals(2, entries.get("loot").version);
+        assertTrue(entries.get("trash").isStale());
+        assertEquals(List.of("trash"), cache.dueKeys());
+
+        runTasks();
+        assertEquals(5, entries.get("trash").version);
+        assertTrue(cache.dueKeys().isEmpty());
+    }
+
+    @Test
+    void refreshAheadMakesFreshEntriesDue() {
+        RankingCache<String, Ranking> eager = new RankingCache<>(entries, tasks::add,
+                key -> new RankingCachePolicy(60_000L, 0L, 16), key -> {
+                    Ranking ranking = new Ranking(calculations.incrementAndGet());
+                    entries.put(key, ranking);
+                    return ranking;
+                });
+        eager.get("fish");
+        runTasks();
+
+        assertEquals(List.of("fish"), eager.dueKeys());
+        // Pasado el umbral se sigue sirviendo como acierto, pero se recalcula en segundo plano
+        assertEquals(1, eager.get("fish").join().version);
+        assertEquals(1, eager.getHits());
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(2, entries.get("fish").version);
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static List<String> sorted(Collection<String> keys) {
+        List<String> list = new ArrayList<>(keys);
+        Collections.sort(list);
+        return list;
+    }
+
+    private static final class Ranking extends RankingCache.Entry {
+        private final int version;
+
+        private Ranking(int version) {
+            this.version = version;
+        }
+
+        @Override
+        public int getWeight() {
+            return 1;
+        }
+    }
+}
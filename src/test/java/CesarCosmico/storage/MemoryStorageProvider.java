@@ -0,0 +1,96 @@
+package CesarCosmico.storage;
+
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.method.StorageException;
+import CesarCosmico.storage.method.StorageProvider;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Backend en memoria para los tests. Los datos guardados viven en un mapa que se puede
+ * compartir entre instancias para simular un reinicio.
+ */
+class MemoryStorageProvider implements StorageProvider {
+    private final Map<UUID, PlayerData> stored;
+    private final ScoreIndex scoreIndex;
+    private final Set<UUID> unreadable = ConcurrentHashMap.newKeySet();
+    private volatile long maxWriteDelayNanos;
+
+    MemoryStorageProvider(Map<UUID, PlayerData> stored, ScoreIndex scoreIndex) {
+        this.stored = stored;
+        this.scoreIndex = scoreIndex;
+    }
+
+    MemoryStorageProvider() {
+        this(new ConcurrentHashMap<>(), null);
+    }
+
+    @Override
+    public CompletableFuture<PlayerData> loadPlayerData(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> readPlayerData(uuid));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> savePlayerData(PlayerData playerData) {
+        return CompletableFuture.supplyAsync(() -> writePlayerData(playerData));
+    }
+
+    @Override
+    public PlayerData readPlayerData(UUID uuid) {
+        if (unreadable.contains(uuid)) {
+            throw new StorageException("Unreadable player data for " + uuid, null);
+        }
+        PlayerData playerData = stored.get(uuid);
+        if (playerData == null) {
+            return new PlayerData(uuid, "Unknown");
+        }
+        PlayerData copy = playerData.snapshot();
+        copy.markSaved(copy.getVersion());
+        return copy;
+    }
+
+    /**
+     * Retrasa cada escritura un tiempo aleatorio de hasta {@code nanos}, para que los
+     * guardados se solapen.
+     */
+    void setMaxWriteDelayNanos(long nanos) {
+        this.maxWriteDelayNanos = nanos;
+    }
+
+    @Override
+    public boolean writePlayerData(PlayerData playerData) {
+        long delay = maxWriteDelayNanos;
+        if (delay > 0) {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(delay));
+        }
+        stored.put(playerData.getUuid(), playerData.snapshot());
+        if (scoreIndex != null) {
+            scoreIndex.update(playerData);
+        }
+        return true;
+    }
+
+    @Override
+    public Set<UUID> getStoredPlayerUUIDs() {
+        return new HashSet<>(stored.keySet());
+    }
+
+    /**
+     * Simula unos datos guardados dañados: leerlos lanza {@link StorageException}.
+     */
+    void markUnreadable(UUID uuid) {
+        unreadable.add(uuid);
+    }
+
+    PlayerData getStored(UUID uuid) {
+        return stored.get(uuid);
+    }
+}
@@ -0,0 +1,109 @@
+package CesarCosmico.storage;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.storage.data.PlayerData;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveQueueTest {
+    private static final FishingStatContext CATCH = FishingStatContext.builder()
+            .type("fish").category("common").item("cod").amount(1).build();
+
+    /**
+     * Reproduce el ciclo desconexión/conexión de StorageManager: al conectarse se reutilizan
+     * los datos cuyo guardado sigue pendiente y solo se lee de disco si no hay ninguno.
+     */
+    @Test
+    void quitJoinCyclesNeverLoseUpdates() throws Exception {
+        MemoryStorageProvider provider = new MemoryStorageProvider();
+        provider.setMaxWriteDelayNanos(TimeUnit.MICROSECONDS.toNanos(200));
+        SaveQueue saveQueue = new SaveQueue(provider);
+        Map<UUID, PlayerData> pendingPlayers = new ConcurrentHashMap<>();
+
+        int players = 8;
+        int cycles = 400;
+        int catchesPerSession = 3;
+        ExecutorService threads = Executors.newFixedThreadPool(players);
+        List<Future<List<CompletableFuture<Boolean>>>> results = new ArrayList<>();
+
+        for (int p = 0; p < players; p++) {
+            UUID uuid = new UUID(0, p);
+            provider.writePlayerData(new PlayerData(uuid, "player" + p));
+
+            results.add(threads.submit(() -> {
+                List<CompletableFuture<Boolean>> saves = new ArrayList<>();
+                for (int cycle = 0; cycle < cycles; cycle++) {
+                    PlayerData playerData = pendingPlayers.remove(uuid);
+                    if (playerData == null) {
+                        playerData = provider.readPlayerData(uuid);
+                    }
+
+                    for (int i = 0; i < catchesPerSession; i++) {
+                        playerData.addStats(CATCH);
+                    }
+
+                    PlayerData quitting = playerData;
+                    pendingPlayers.put(uuid, quitting);
+                    saves.add(saveQueue.save(quitting).thenApply(success -> {
+                        if (success && !quitting.isDirty()) {
+                            pendingPlayers.remove(uuid, quitting);
+                        }
+                        return success;
+                    }));
+                }
+                return saves;
+            }));
+        }
+
+        for (Future<List<CompletableFuture<Boolean>>> result : results) {
+            for (CompletableFuture<Boolean> save : result.get(60, TimeUnit.SECONDS)) {
+                assertTrue(save.get(60, TimeUnit.SECONDS));
+            }
+        }
+        threads.shutdown();
+
+        assertEquals(0, saveQueue.getInFlight());
+        for (int p = 0; p < players; p++) {
+            assertEquals((long) cycles * catchesPerSession,
+                    provider.getStored(new UUID(0, p)).getCategoryTotal("fish", "common"),
+                    "player" + p + " lost updates");
+        }
+    }
+
+    @Test
+    void concurrentSavesLeaveLatestSnapshotOnDisk() throws Exception {
+        MemoryStorageProvider provider = new MemoryStorageProvider();
+        provider.setMaxWriteDelayNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        SaveQueue saveQueue = new SaveQueue(provider);
+        UUID uuid = UUID.randomUUID();
+        PlayerData playerData = new PlayerData(uuid, "player");
+
+        int writers = 4;
+        int saves = 500;
+        ExecutorService threads = Executors.newFixedThreadPool(writers);
+        List<Future<?>> done = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            done.add(threads.submit(() -> {
+                for (int i = 0; i < saves; i++) {
+                    playerData.addStats(CATCH);
+                    saveQueue.save(playerData);
+                }
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        threads.shutdown();
+
+        assertTrue(saveQueue.save(playerData).get(60, TimeUnit.SECONDS));
+        PlayerData stored = provider.getStored(uuid);
+        assertEquals((long) writers * saves, stored.getCategoryTotal("fish", "common"));
+        assertEquals(playerData.getVersion(), stored.getVersion());
+        assertFalse(playerData.isDirty());
+        assertTrue(saveQueue.getCoalesced() > 0);
+    }
+}
@@ -0,0 +1,227 @@
+package CesarCosmico.storage;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.services.GlobalStatsService;
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.journal.StatJournal;
+import CesarCosmico.storage.method.file.AtomicFileWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StartupRecoveryTest {
+    private static final Logger LOGGER = Logger.getLogger("StartupRecoveryTest");
+    private static final FishingStatContext CATCH = FishingStatContext.builder()
+            .type("fish").category("common").item("cod").amount(1).build();
+
+    @TempDir
+    File folder;
+
+    private final Map<UUID, PlayerData> disk = new ConcurrentHashMap<>();
+
+    /**
+     * Capturas posteriores a la última compactación que solo llegaron al diario: tras el
+     * cierre inesperado, el índice cargado debe incluir la reproducción y no sobrescribirla.
+     */
+    @Test
+    void crashReplayRestartKeepsIndexAndStats() throws IOException {
+        UUID alex = UUID.randomUUID();
+        UUID sam = UUID.randomUUID();
+
+        Session first = new Session();
+        assertFalse(first.start().isIndexValid());
+        first.scoreIndex.rebuild(List.of(), first.globalStats.getJournalSeq());
+        first.openJournal();
+
+        PlayerData alexData = new PlayerData(alex, "Alex");
+        PlayerData samData = new PlayerData(sam, "Sam");
+        first.record(alexData, 3);
+        first.compact(alexData, samData);
+        first.record(alexData, 2);
+        first.record(samData, 4);
+        // Cierre inesperado: el diario llegó a disco, los jugadores y el índice no
+        first.journal.flush();
+
+        Session second = new Session();
+        StartupRecovery.Result recovery = second.start();
+        assertTrue(recovery.isIndexValid());
+        assertTrue(recovery.getUnsaved().isEmpty());
+        assertEquals(5L, second.indexedTotal(alex));
+        assertEquals(4L, second.indexedTotal(sam));
+        assertEquals(5L, disk.get(alex).getCategoryTotal("fish", "common"));
+        assertEquals(4L, disk.get(sam).getCategoryTotal("fish", "common"));
+        assertEquals(9L, second.globalStats.getCategoryTotal("fish", "common"));
+        second.openJournal();
+        second.journal.close();
+
+        // Un reinicio limpio no vuelve a aplicar nada ni descarta el índice
+        Session third = new Session();
+        assertTrue(third.start().isIndexValid());
+        assertEquals(5L, third.indexedTotal(alex));
+        assertEquals(4L, third.indexedTotal(sam));
+        assertEquals(5L, disk.get(alex).getCategoryTotal("fish", "common"));
+        assertEquals(9L, third.globalStats.getCategoryTotal("fish", "common"));
+    }
+
+    @Test
+    void indexFlushedWithOlderSeqIsRebuilt() throws IOException {
+        UUID alex = UUID.randomUUID();
+
+        Session first = new Session();
+        first.start();
+        first.scoreIndex.rebuild(List.of(), first.globalStats.getJournalSeq());
+        first.openJournal();
+
+        PlayerData alexData = new PlayerData(alex, "Alex");
+        first.record(alexData, 3);
+        first.compact(alexData);
+        // Un guardado fuera del diario que el índice en disco no llegó a ver
+        alexData.putCategoryTotal("fish", "common", 10);
+        first.provider.writePlayerData(alexData);
+        first.record(alexData, 1);
+        first.rotateAndSaveGlobals();
+        first.journal.close();
+
+        Session second = new Session();
+        assertFalse(second.start().isIndexValid());
+    }
+
+    /**
+     * Los registros de un jugador cuyos datos no se pueden leer no se aplican sobre datos
+     * vacíos ni se pierden: el segmento queda apartado y no se vuelve a reproducir.
+     */
+    @Test
+    void unreadablePlayerIsNotReplayedOverAndJournalIsSetAside() throws IOException {
+        UUID alex = UUID.randomUUID();
+        UUID sam = UUID.randomUUID();
+
+        Session first = new Session();
+        first.start();
+        first.scoreIndex.rebuild(List.of(), first.globalStats.getJournalSeq());
+        first.openJournal();
+        first.record(new PlayerData(alex, "Alex"), 2);
+        first.record(new PlayerData(sam, "Sam"), 3);
+        first.journal.flush();
+
+        Session second = new Session();
+        second.provider.markUnreadable(sam);
+        assertTrue(second.start().getUnsaved().isEmpty());
+        assertEquals(2L, disk.get(alex).getCategoryTotal("fish", "common"));
+        assertNull(disk.get(sam));
+
+        File journalFolder = new File(folder, "storage/journal");
+        assertEquals(0, journalFolder.list((dir, name) -> name.endsWith(".log")).length);
+        assertEquals(1, journalFolder.list((dir, name) -> name.endsWith(".unapplied")).length);
+
+        Session third = new Session();
+        third.start();
+        assertEquals(2L, disk.get(alex).getCategoryTotal("fish", "common"));
+        assertEquals(5L, third.globalStats.getCategoryTotal("fish", "common"));
+    }
+
+    /**
+     * Los cambios de los administradores a un jugador conectado y a las globales solo se
+     * guardan al compactar: el diario debe recuperarlos tras un cierre inesperado, también
+     * las restas, y un reinicio limpio no debe volver a aplicarlos.
+     */
+    @Test
+    void adminEditsAreReplayedAfterCrash() throws IOException {
+        UUID alex = UUID.randomUUID();
+
+        Session first = new Session();
+        first.start();
+        first.scoreIndex.rebuild(List.of(), first.globalStats.getJournalSeq());
+        first.openJournal();
+
+        PlayerData alexData = new PlayerData(alex, "Alex");
+        first.record(alexData, 5);
+        first.compact(alexData);
+        first.recorder.record(alexData, new FishingStatContext[]{catches(3)});
+        assertEquals(8, first.recorder.remove(alexData, catches(10)));
+        first.recorder.record(null, new FishingStatContext[]{catches(7)});
+        assertEquals(2, first.recorder.remove(null, catches(2)));
+        assertEquals(0L, alexData.getCategoryTotal("fish", "common"));
+        assertEquals(5L, first.globalStats.getCategoryTotal("fish", "common"));
+        first.journal.flush();
+
+        Session second = new Session();
+        assertTrue(second.start().getUnsaved().isEmpty());
+        assertEquals(0L, disk.get(alex).getCategoryTotal("fish", "common"));
+        assertEquals(0L, disk.get(alex).getItemAmount("fish", "common", "cod"));
+        assertEquals(5L, second.globalStats.getCategoryTotal("fish", "common"));
+        second.openJournal();
+        second.journal.close();
+
+        Session third = new Session();
+        third.start();
+        assertEquals(0L, disk.get(alex).getCategoryTotal("fish", "common"));
+        assertEquals(5L, third.globalStats.getCategoryTotal("fish", "common"));
+    }
+
+    private static FishingStatContext catches(int amount) {
+        return FishingStatContext.builder()
+                .type("fish").category("common").item("cod").amount(amount).build();
+    }
+
+    private class Session {
+        private final AtomicFileWriter fileWriter = new AtomicFileWriter(LOGGER, false);
+        private final GlobalStatsService globalStats = new GlobalStatsService(LOGGER, folder, false, fileWriter);
+        private final File storageFolder = new File(folder, "storage");
+        private final ScoreIndex scoreIndex = new ScoreIndex(LOGGER, storageFolder);
+        private final StatJournal journal = new StatJournal(LOGGER, storageFolder);
+        private final MemoryStorageProvider provider = new MemoryStorageProvider(disk, scoreIndex);
+        private final StatRecorder recorder = new StatRecorder(journal, globalStats, true);
+
+        private StartupRecovery.Result start() {
+            globalStats.load();
+            return new StartupRecovery(LOGGER, provider, journal, scoreIndex, globalStats).run();
+        }
+
+        private void openJournal() throws IOException {
+            journal.advanceTo(globalStats.getJournalSeq());
+            journal.open();
+        }
+
+        private void record(PlayerData playerData, int catches) {
+            for (int i = 0; i < catches; i++) {
+                long seq = journal.append(playerData.getUuid(),
+                        (byte) (StatJournal.FLAG_PLAYER | StatJournal.FLAG_GLOBAL), CATCH);
+                playerData.addStats(CATCH, seq);
+                globalStats.increment(CATCH, seq);
+            }
+        }
+
+        private void compact(PlayerData... players) {
+            List<File> sealed = journal.rotate();
+            for (PlayerData playerData : players) {
+                PlayerData snapshot = playerData.snapshot();
+                assertTrue(provider.writePlayerData(snapshot));
+                playerData.markSaved(snapshot.getVersion());
+            }
+            GlobalStatsService.Snapshot snapshot = globalStats.snapshot();
+            assertTrue(globalStats.save(snapshot));
+            scoreIndex.flush(snapshot.getJournalSeq());
+            journal.discard(sealed);
+        }
+
+        private void rotateAndSaveGlobals() {
+            journal.rotate();
+            assertTrue(globalStats.save());
+        }
+
+        private long indexedTotal(UUID uuid) {
+            ScoreIndex.Summary summary = scoreIndex.get(uuid);
+            return summary != null ? summary.getCategoryTotal("fish", "common") : 0L;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package CesarCosmico.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageExecutorTest {
+    private static final Logger LOGGER = Logger.getLogger("StorageExecutorTest");
+
+    @Test
+    void saturatedQueueNeverRunsTasksOnTheSubmitter() throws InterruptedException {
+        StorageExecutor executor = new StorageExecutor(LOGGER, 1, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread submitter = Thread.currentThread();
+        AtomicInteger onSubmitter = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        int tasks = 50;
+
+        executor.execute(() -> await(release));
+        for (int i = 0; i < tasks; i++) {
+            executor.execute(() -> {
+                if (Thread.currentThread() == submitter) {
+                    onSubmitter.incrementAndGet();
+                }
+                done.incrementAndGet();
+            });
+        }
+
+        // Con el único hilo bloqueado, enviar no espera ni ejecuta nada
+        assertEquals(0, done.get());
+        assertTrue(executor.getOverflowed() > 0);
+
+        release.countDown();
+        executor.shutdown(10);
+
+        assertEquals(tasks, done.get());
+        assertEquals(0, onSubmitter.get());
+        assertEquals(0, executor.getOverflowQueued());
+    }
+
+    @Test
+    void shutdownDrainsOverflowInOrder() {
+        StorageExecutor executor = new StorageExecutor(LOGGER, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringBuilder order = new StringBuilder();
+
+        executor.execute(() -> await(release));
+        for (int i = 0; i < 10; i++) {
+            int task = i;
+            executor.execute(() -> order.append(task));
+        }
+
+        release.countDown();
+        executor.shutdown(10);
+        assertEquals("0123456789", order.toString());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package CesarCosmico.storage.data;
+
+import CesarCosmico.actions.FishingStatContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerDataTest {
+    private static final String[] TYPES = {"fish", "loot", "competition"};
+
+    /**
+     * Un objeto llamado "total" es un objeto más: no se confunde con el total de su
+     * categoría, que ahora se guarda aparte.
+     */
+    @Test
+    void totalsAreKeptApartFromItems() {
+        PlayerData playerData = new PlayerData(UUID.randomUUID(), "player");
+        playerData.addStats(context("fish", "common", "total", 2));
+        playerData.addStats(context("fish", "common", "cod", 3));
+        playerData.addStats(context("fish", "rare", "pike", 4));
+
+        assertEquals(2L, playerData.getItemAmount("fish", "common", "total"));
+        assertEquals(5L, playerData.getCategoryTotal("fish", "common"));
+        assertEquals(9L, playerData.getTotalByType("fish"));
+
+        playerData.removeStats(context("fish", "common", "cod", 1));
+        assertEquals(2L, playerData.getItemAmount("fish", "common", "cod"));
+        assertEquals(4L, playerData.getCategoryTotal("fish", "common"));
+        assertEquals(8L, playerData.getTotalByType("fish"));
+        assertEquals(0L, playerData.getTotalByType("loot"));
+    }
+
+    /**
+     * Cada (ranura, objeto) cambiado se anota una vez y el jugador solo se encola con el
+     * primer cambio desde la última aplicación.
+     */
+    @Test
+    void rankingChangesQueueThePlayerOnce() {
+        PlayerData playerData = new PlayerData(UUID.randomUUID(), "player");
+        FishingStatContext cod = context("fish", "common", "cod", 1);
+        FishingStatContext pike = context("fish", "rare", "pike", 1);
+
+        assertTrue(playerData.markRankingDirty(cod.getSlot(), cod.getItemId()));
+        assertFalse(playerData.markRankingDirty(cod.getSlot(), cod.getItemId()));
+        assertFalse(playerData.markRankingDirty(pike.getSlot(), pike.getItemId()));
+        assertArrayEquals(new int[]{cod.getSlot(), cod.getItemId(), pike.getSlot(), pike.getItemId()},
+                playerData.drainRankingChanges());
+
+        assertEquals(0, playerData.drainRankingChanges().length);
+        assertTrue(playerData.markRankingDirty(pike.getSlot(), pike.getItemId()));
+    }
+
+    /**
+     * Memoria retenida por 10.000 jugadores con 120 capturas aleatorias cada uno sobre 3
+     * tipos, 12 categorías y 60 objetos: mapas anidados de ConcurrentHashMap con Integer y
+     * clave "total", como antes guardaba PlayerData, frente a la representación actual.
+     */
+    @Test
+    @Tag("benchmark")
+    void memoryFootprintReport() {
+        int players = 10_000;
+        Random random = new Random(1);
+        List<NestedPlayerData> nested = new ArrayList<>(players);
+        List<PlayerData> compact = new ArrayList<>(players);
+
+        for (int p = 0; p < players; p++) {
+            UUID uuid = new UUID(0, p);
+            String name = "player" + p;
+            Map<String, Map<String, Map<String, Integer>>> stats = new ConcurrentHashMap<>();
+            PlayerData playerData = new PlayerData(uuid, name);
+            for (int i = 0; i < 120; i++) {
+                String type = TYPES[random.nextInt(TYPES.length)];
+                String category = ("category" + random.nextInt(12)).intern();
+                String item = ("item" + random.nextInt(60)).intern();
+                int amount = 1 + random.nextInt(5);
+
+                Map<String, Integer> items = stats.computeIfAbsent(type, k -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(category, k -> new ConcurrentHashMap<>());
+                items.merge(item, amount, Integer::sum);
+                items.merge("total", amount, Integer::sum);
+                playerData.addStats(context(type, category, item, amount));
+            }
+            nested.add(new NestedPlayerData(uuid, name, stats));
+            compact.add(playerData);
+        }
+
+        long nestedBytes = GraphLayout.parseInstance(nested).totalSize();
+        long compactBytes = GraphLayout.parseInstance(compact).totalSize();
+        System.out.printf("%d players: nested maps %.1f MB (%d B/player), primitive arrays %.1f MB (%d B/player)%n",
+                players, nestedBytes / 1e6, nestedBytes / players, compactBytes / 1e6, compactBytes / players);
+    }
+
+    private record NestedPlayerData(UUID uuid, String name, Map<String, Map<String, Map<String, Integer>>> stats) {
+    }
+
+    private static FishingStatContext context(String type, String category, String item, int amount) {
+        return FishingStatContext.builder().type(type).category(category).item(item).amount(amount).build();
+    }
+}
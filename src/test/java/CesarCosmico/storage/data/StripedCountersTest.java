@@ -0,0 +1,198 @@
+package CesarCosmico.storage.data;
+
+import CesarCosmico.actions.FishingStatContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedCountersTest {
+    private static final FishingStatContext COD = context("cod");
+
+    @Test
+    void concurrentRemovesStopAtZero() throws Exception {
+        StripedCounters counters = new StripedCounters();
+        counters.setTotal(COD.getSlot(), 1_000);
+        counters.setItem(COD.getSlot(), COD.getItemId(), 1_000);
+        AtomicBoolean negative = new AtomicBoolean();
+
+        // Entre todos restan el doble de lo que hay
+        runConcurrently(8, thread -> {
+            for (int i = 0; i < 250; i++) {
+                counters.remove(COD.getSlot(), COD.getItemId(), 1);
+                if (counters.getTotal(COD.getSlot()) < 0 || counters.getItem(COD.getSlot(), COD.getItemId()) < 0) {
+                    negative.set(true);
+                }
+            }
+        });
+
+        assertFalse(negative.get());
+        assertEquals(0, counters.getTotal(COD.getSlot()));
+        assertEquals(0, counters.getItem(COD.getSlot(), COD.getItemId()));
+    }
+
+    @Test
+    void removesRacingAddsNeverGoNegative() throws Exception {
+        StripedCounters counters = new StripedCounters();
+        counters.setTotal(COD.getSlot(), 0);
+        int adds = 20_000;
+
+        runConcurrently(8, thread -> {
+            for (int i = 0; i < adds; i++) {
+                if (thread % 2 == 0) {
+                    counters.add(COD.getSlot(), COD.getItemId(), 1);
+                } else {
+                    counters.remove(COD.getSlot(), COD.getItemId(), 1);
+                }
+                assertTrue(counters.getTotal(COD.getSlot()) >= 0);
+            }
+        });
+
+        long total = counters.getTotal(COD.getSlot());
+        assertTrue(total >= 0 && total <= 4L * adds, "total out of range: " + total);
+    }
+
+    @Test
+    void concurrentSetsLeaveOneOfTheValues() throws Exception {
+        StripedCounters counters = new StripedCounters();
+
+        runConcurrently(8, thread -> {
+            for (int i = 0; i < 5_000; i++) {
+                counters.setTotal(COD.getSlot(), 1_000 + thread);
+            }
+        });
+
+        long total = counters.getTotal(COD.getSlot());
+        assertTrue(total >= 1_000 && total < 1_008, "sets were summed: " + total);
+    }
+
+    /**
+     * Incrementos repartidos entre 1 y 16 hilos sobre 8 contextos, con otro hilo copiando los
+     * contadores sin parar como haría un guardado: contadores con bloqueo de
+     * lectura/escritura, como antes tenía GlobalStatsService, frente a StripedCounters.
+     */
+    @Test
+    @Tag("benchmark")
+    void incrementContentionBenchmark() throws Exception {
+        FishingStatContext[] contexts = new FishingStatContext[8];
+        for (int i = 0; i < contexts.length; i++) {
+            contexts[i] = context("item" + i);
+        }
+        int increments = 400_000;
+        measure(4, increments, contexts, new LockedCounters());
+        measure(4, increments, contexts, new Striped());
+
+        for (int threads : new int[]{1, 2, 4, 8, 16}) {
+            double locked = measure(threads, increments, contexts, new LockedCounters());
+            double striped = measure(threads, increments, contexts, new Striped());
+            System.out.printf("global increments, %d threads: read/write lock %.1f Mops/s, striped %.1f Mops/s%n",
+                    threads, locked, striped);
+        }
+    }
+
+    private double measure(int threads, int increments, FishingStatContext[] contexts, Counters counters)
+            throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread saver = new Thread(() -> {
+            while (running.get()) {
+                counters.snapshot();
+            }
+        });
+        saver.start();
+
+        int perThread = increments / threads;
+        long start = System.nanoTime();
+        runConcurrently(threads, thread -> {
+            for (int i = 0; i < perThread; i++) {
+                FishingStatContext context = contexts[(thread + i) % contexts.length];
+                counters.add(context.getSlot(), context.getItemId(), 1);
+            }
+        });
+        long nanos = System.nanoTime() - start;
+        running.set(false);
+        saver.join();
+
+        // Todos los contextos comparten ranura (fish, common)
+        assertEquals((long) perThread * threads, counters.snapshot().getTotal(contexts[0].getSlot()));
+        return (double) perThread * threads / nanos * 1_000;
+    }
+
+    private interface Counters {
+        void add(int slot, int itemId, long amount);
+
+        StatCounters snapshot();
+    }
+
+    private static final class LockedCounters implements Counters {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final StatCounters counters = new StatCounters();
+
+        @Override
+        public void add(int slot, int itemId, long amount) {
+            lock.writeLock().lock();
+            try {
+                counters.add(slot, itemId, amount);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public StatCounters snapshot() {
+            lock.readLock().lock();
+            try {
+                return counters.copy();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static final class Striped implements Counters {
+        private final StripedCounters counters = new StripedCounters();
+
+        @Override
+        public void add(int slot, int itemId, long amount) {
+            counters.add(slot, itemId, amount);
+        }
+
+        @Override
+        public StatCounters snapshot() {
+            return counters.snapshot();
+        }
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    private static void runConcurrently(int threads, Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            done.add(executor.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private static FishingStatContext context(String item) {
+        return FishingStatContext.builder().type("fish").category("common").item(item).amount(1).build();
+    }
+}
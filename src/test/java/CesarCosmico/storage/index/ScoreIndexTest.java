@@ -0,0 +1,123 @@
+package CesarCosmico.storage.index;
+
+import CesarCosmico.storage.data.PlayerData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreIndexTest {
+    private static final Logger LOGGER = Logger.getLogger("ScoreIndexTest");
+
+    @TempDir
+    File folder;
+
+    @Test
+    void flushStoresJournalSeq() {
+        ScoreIndex index = new ScoreIndex(LOGGER, folder);
+        index.rebuild(List.of(player(UUID.randomUUID(), 7)), 42L);
+
+        ScoreIndex loaded = new ScoreIndex(LOGGER, folder);
+        assertTrue(loaded.load());
+        assertEquals(42L, loaded.getJournalSeq());
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    void flushRewritesWhenOnlySeqChanges() {
+        UUID uuid = UUID.randomUUID();
+        ScoreIndex index = new ScoreIndex(LOGGER, folder);
+        index.rebuild(List.of(player(uuid, 3)), 10L);
+        index.flush(15L);
+
+        ScoreIndex loaded = new ScoreIndex(LOGGER, folder);
+        assertTrue(loaded.load());
+        assertEquals(15L, loaded.getJournalSeq());
+        assertEquals(3L, loaded.get(uuid).getCategoryTotal("fish", "common"));
+    }
+
+    @Test
+    void updatesAfterFlushAreNotOnDiskUntilNextFlush() {
+        UUID uuid = UUID.randomUUID();
+        ScoreIndex index = new ScoreIndex(LOGGER, folder);
+        index.rebuild(List.of(player(uuid, 3)), 10L);
+        index.update(player(uuid, 9));
+
+        ScoreIndex stale = new ScoreIndex(LOGGER, folder);
+        assertTrue(stale.load());
+        assertEquals(3L, stale.get(uuid).getCategoryTotal("fish", "common"));
+
+        index.flush(11L);
+        ScoreIndex fresh = new ScoreIndex(LOGGER, folder);
+        assertTrue(fresh.load());
+        assertEquals(11L, fresh.getJournalSeq());
+        assertEquals(9L, fresh.get(uuid).getCategoryTotal("fish", "common"));
+    }
+
+    @Test
+    void versionTwoFileLoadsWithoutSeq() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        try (DataOutputStream out = new DataOutputStream(
+                new FileOutputStream(new File(folder, "score_index.dat")))) {
+            out.writeInt(0x43465349);
+            out.writeInt(2);
+            out.writeInt(1);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeUTF("Old");
+            out.writeInt(1);
+            out.writeUTF("fish");
+            out.writeInt(1);
+            out.writeUTF("common");
+            out.writeLong(5L);
+        }
+
+        ScoreIndex index = new ScoreIndex(LOGGER, folder);
+        assertTrue(index.load());
+        assertEquals(-1L, index.getJournalSeq());
+        assertEquals(5L, index.get(uuid).getCategoryTotal("fish", "common"));
+    }
+
+    @Test
+    void versionOneFileLoadsIntTotals() throws IOException {
+        UUID uuid = UUID.randomUUID();
+        try (DataOutputStream out = new DataOutputStream(
+                new FileOutputStream(new File(folder, "score_index.dat")))) {
+            out.writeInt(0x43465349);
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeUTF("Old");
+            out.writeInt(1);
+            out.writeUTF("fish");
+            out.writeInt(1);
+            out.writeUTF("common");
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        ScoreIndex index = new ScoreIndex(LOGGER, folder);
+        assertTrue(index.load());
+        assertEquals(Integer.MAX_VALUE, index.get(uuid).getCategoryTotal("fish", "common"));
+
+        index.update(player(uuid, Integer.MAX_VALUE + 5L));
+        index.flush(1L);
+        ScoreIndex upgraded = new ScoreIndex(LOGGER, folder);
+        assertTrue(upgraded.load());
+        assertEquals(Integer.MAX_VALUE + 5L, upgraded.get(uuid).getCategoryTotal("fish", "common"));
+    }
+
+    private static PlayerData player(UUID uuid, long total) {
+        PlayerData playerData = new PlayerData(uuid, "player");
+        playerData.putCategoryTotal("fish", "common", total);
+        return playerData;
+    }
+}
@@ -0,0 +1,273 @@
+package CesarCosmico.storage.journal;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.services.GlobalStatsService;
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.method.file.AtomicFileWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatJournalTest {
+    private static final Logger LOGGER = Logger.getLogger("StatJournalTest");
+    private static final byte FLAGS = StatJournal.FLAG_PLAYER | StatJournal.FLAG_GLOBAL;
+    private static final FishingStatContext[] CATCH = {
+            FishingStatContext.builder().type("fish").category("common").item("cod").amount(1).build(),
+            FishingStatContext.builder().type("fish").category("common").amount(1).build()
+    };
+
+    @TempDir
+    File folder;
+
+    @Test
+    void concurrentAppendsAreReadBackInSeqOrder() throws Exception {
+        StatJournal journal = new StatJournal(LOGGER, folder);
+        journal.open();
+
+        int threads = 8;
+        int appends = 2_000;
+        runConcurrently(threads, thread -> {
+            UUID uuid = new UUID(0, thread);
+            for (int i = 0; i < appends; i++) {
+                journal.append(uuid, FLAGS, CATCH);
+            }
+        });
+        journal.close();
+
+        List<StatJournal.Entry> entries = new StatJournal(LOGGER, folder).readAll();
+        assertEquals(threads * appends * CATCH.length, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1L, entries.get(i).getSeq());
+        }
+    }
+
+    /**
+     * Con las escrituras en pausa, todas las secuencias asignadas deben estar ya aplicadas:
+     * es lo que permite a la compactación tomar una copia coherente sin un monitor global.
+     */
+    @Test
+    void pauseNeverSplitsAppendFromApply() throws Exception {
+        StatJournal journal = new StatJournal(LOGGER, folder);
+        journal.open();
+        AtomicLong applied = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        Thread sealer = new Thread(() -> {
+            while (running.get()) {
+                journal.pauseAppends();
+                try {
+                    assertEquals(journal.getLastSeq(), applied.get());
+                } finally {
+                    journal.resumeAppends();
+                }
+                journal.discard(journal.rotate());
+            }
+        });
+        sealer.start();
+
+        runConcurrently(4, thread -> {
+            for (int i = 0; i < 5_000; i++) {
+                journal.beginAppend();
+                try {
+                    journal.append(null, StatJournal.FLAG_GLOBAL, CATCH);
+                    applied.addAndGet(CATCH.length);
+                } finally {
+                    journal.endAppend();
+                }
+            }
+        });
+        running.set(false);
+        sealer.join();
+        journal.close();
+
+        assertEquals(journal.getLastSeq(), applied.get());
+    }
+
+    /**
+     * Los registros de un hilo que ya ha terminado siguen en su buffer hasta el siguiente
+     * flush, y ese flush los lleva al segmento.
+     */
+    @Test
+    void flushDrainsBuffersOfFinishedThreads() throws Exception {
+        StatJournal journal = new StatJournal(LOGGER, folder);
+        journal.open();
+
+        Thread worker = new Thread(() -> journal.append(new UUID(0, 1), FLAGS, CATCH));
+        worker.start();
+        worker.join();
+        journal.append(new UUID(0, 2), FLAGS, CATCH);
+        assertTrue(new StatJournal(LOGGER, folder).readAll().isEmpty());
+
+        journal.flush();
+        assertEquals(2 * CATCH.length, new StatJournal(LOGGER, folder).readAll().size());
+        journal.close();
+    }
+
+    /**
+     * Si no se puede crear el segmento, los registros no se escriben pero las secuencias
+     * siguen avanzando, y el siguiente sellado vuelve a intentar abrirlo.
+     */
+    @Test
+    void rotateReopensAJournalThatFailedToOpen() throws Exception {
+        File journalFolder = new File(folder, "journal");
+        assertTrue(journalFolder.createNewFile());
+        StatJournal journal = new StatJournal(LOGGER, folder, true);
+        assertThrows(IOException.class, journal::open);
+        assertFalse(journal.isOpen());
+
+        assertEquals(1L, journal.append(null, StatJournal.FLAG_GLOBAL, CATCH));
+        journal.flush();
+
+        assertTrue(journalFolder.delete());
+        journal.rotate();
+        assertTrue(journal.isOpen());
+        assertEquals(3L, journal.append(null, StatJournal.FLAG_GLOBAL, CATCH));
+        journal.close();
+
+        List<StatJournal.Entry> entries = new StatJournal(LOGGER, folder).readAll();
+        assertEquals(CATCH.length, entries.size());
+        assertEquals(3L, entries.get(0).getSeq());
+    }
+
+    /**
+     * La ruta de cada captura (añadir al diario y aplicar al jugador y a las globales) no
+     * reserva memoria una vez calentada, contando también los flush periódicos.
+     */
+    @Test
+    void appendPathDoesNotAllocate() throws Exception {
+        StatJournal journal = new StatJournal(LOGGER, folder);
+        journal.open();
+        GlobalStatsService globalStats = new GlobalStatsService(LOGGER, folder, false,
+                new AtomicFileWriter(LOGGER, false));
+        PlayerData playerData = new PlayerData(new UUID(0, 1), "player");
+
+        recordCatches(journal, globalStats, playerData, 100_000);
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        int ops = 200_000;
+        long before = threads.getThreadAllocatedBytes(threadId);
+        recordCatches(journal, globalStats, playerData, ops);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        journal.close();
+
+        assertTrue(allocated < ops, "allocated " + allocated + " bytes for " + ops + " catches");
+    }
+
+    private static void recordCatches(StatJournal journal, GlobalStatsService globalStats,
+                                      PlayerData playerData, int catches) {
+        for (int i = 0; i < catches; i++) {
+            journal.beginAppend();
+            try {
+                long firstSeq = journal.append(playerData.getUuid(), FLAGS, CATCH);
+                playerData.addStats(CATCH, firstSeq + CATCH.length - 1);
+                globalStats.increment(CATCH, firstSeq);
+            } finally {
+                journal.endAppend();
+            }
+            if (i % 1_000 == 0) {
+                journal.flush();
+            }
+        }
+    }
+
+    /**
+     * Compara la ruta de cada captura con 1 a 16 hilos: un monitor global alrededor de
+     * todo, como hacía StorageManager.recordStats, frente al buffer propio de cada hilo.
+     */
+    @Test
+    @Tag("benchmark")
+    void appendContentionBenchmark() throws Exception {
+        int appends = 20_000;
+        measure(4, appends, true);
+        measure(4, appends, false);
+        for (int threads : new int[]{1, 2, 4, 8, 16}) {
+            long monitorNanos = measure(threads, appends, true);
+            long bufferNanos = measure(threads, appends, false);
+            System.out.printf("journal append, %d threads: global monitor %d ns/op, per-thread buffers %d ns/op%n",
+                    threads, monitorNanos, bufferNanos);
+        }
+    }
+
+    private long measure(int threads, int appends, boolean globalMonitor) throws Exception {
+        File segmentFolder = Files.createTempDirectory(folder.toPath(), "journal").toFile();
+        StatJournal journal = new StatJournal(LOGGER, segmentFolder);
+        journal.open();
+        GlobalStatsService globalStats = new GlobalStatsService(LOGGER, segmentFolder, false,
+                new AtomicFileWriter(LOGGER, false));
+        PlayerData[] players = new PlayerData[threads];
+
+        long start = System.nanoTime();
+        runConcurrently(threads, thread -> {
+            PlayerData playerData = new PlayerData(new UUID(0, thread), "player" + thread);
+            players[thread] = playerData;
+            for (int i = 0; i < appends; i++) {
+                if (globalMonitor) {
+                    synchronized (journal) {
+                        long firstSeq = journal.append(playerData.getUuid(), FLAGS, CATCH);
+                        playerData.addStats(CATCH, firstSeq + CATCH.length - 1);
+                        globalStats.increment(CATCH, firstSeq);
+                    }
+                } else {
+                    journal.beginAppend();
+                    try {
+                        synchronized (playerData) {
+                            long firstSeq = journal.append(playerData.getUuid(), FLAGS, CATCH);
+                            playerData.addStats(CATCH, firstSeq + CATCH.length - 1);
+                            globalStats.increment(CATCH, firstSeq);
+                        }
+                    } finally {
+                        journal.endAppend();
+                    }
+                }
+            }
+        });
+        long nanos = (System.nanoTime() - start) / ((long) threads * appends);
+        journal.close();
+
+        assertEquals((long) threads * appends * CATCH.length, globalStats.getCategoryTotal("fish", "common"));
+        for (PlayerData playerData : players) {
+            assertEquals((long) appends * CATCH.length, playerData.getCategoryTotal("fish", "common"));
+        }
+        assertEquals(journal.getLastSeq(), globalStats.getJournalSeq());
+        return nanos;
+    }
+
+    private interface Worker {
+        void run(int thread) throws IOException;
+    }
+
+    private static void runConcurrently(int threads, Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            done.add(executor.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : done) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+}
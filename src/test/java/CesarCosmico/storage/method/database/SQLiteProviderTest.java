@@ -0,0 +1,104 @@
+package CesarCosmico.storage.method.database;
+
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SQLiteProviderTest {
+    private static final Logger LOGGER = Logger.getLogger("SQLiteProviderTest");
+
+    @TempDir
+    File dataFolder;
+
+    /**
+     * Lo guardado se lee igual tras cerrar y volver a abrir la base de datos, incluida la
+     * secuencia del diario que usa la reproducción al arrancar.
+     */
+    @Test
+    void playerSurvivesReopen() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        PlayerData playerData = new PlayerData(uuid, "player");
+        playerData.putCategoryTotal("fish", "common", 42L);
+        playerData.putItemAmount("fish", "common", "cod", 30L);
+        playerData.putItemAmount("fish", "common", "salmon", 12L);
+        playerData.putCategoryTotal("loot", "rare", 3L);
+        playerData.setJournalSeq(17L);
+
+        SQLiteProvider provider = provider();
+        assertTrue(provider.writePlayerData(playerData));
+        provider.close();
+
+        SQLiteProvider reopened = provider();
+        try {
+            PlayerData read = reopened.readPlayerData(uuid);
+            assertEquals("player", read.getName());
+            assertEquals(17L, read.getJournalSeq());
+            assertEquals(42L, read.getCategoryTotal("fish", "common"));
+            assertEquals(30L, read.getItemAmount("fish", "common", "cod"));
+            assertEquals(12L, read.getItemAmount("fish", "common", "salmon"));
+            assertEquals(3L, read.getCategoryTotal("loot", "rare"));
+            assertEquals(45L, read.getTotalByType("fish") + read.getTotalByType("loot"));
+            assertEquals(Set.of(uuid), reopened.getStoredPlayerUUIDs());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    /**
+     * Guardar de nuevo a un jugador sustituye todas sus filas: lo que ya no tiene desaparece
+     * y los demás jugadores del lote no se tocan.
+     */
+    @Test
+    void rewriteReplacesPreviousRows() throws SQLException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        PlayerData firstData = new PlayerData(first, "first");
+        firstData.putCategoryTotal("fish", "common", 5L);
+        firstData.putItemAmount("fish", "common", "cod", 5L);
+        PlayerData secondData = new PlayerData(second, "second");
+        secondData.putCategoryTotal("fish", "rare", 2L);
+
+        SQLiteProvider provider = provider();
+        try {
+            assertEquals(2, provider.writeAllPlayerData(List.of(firstData, secondData)));
+
+            PlayerData renamed = new PlayerData(first, "renamed");
+            renamed.putCategoryTotal("loot", "common", 1L);
+            assertTrue(provider.writePlayerData(renamed));
+
+            PlayerData read = provider.readPlayerData(first);
+            assertEquals("renamed", read.getName());
+            assertEquals(0L, read.getCategoryTotal("fish", "common"));
+            assertEquals(0L, read.getItemAmount("fish", "common", "cod"));
+            assertEquals(1L, read.getCategoryTotal("loot", "common"));
+            assertEquals(2L, provider.readPlayerData(second).getCategoryTotal("fish", "rare"));
+        } finally {
+            provider.close();
+        }
+    }
+
+    private SQLiteProvider provider() throws SQLException {
+        return new SQLiteProvider(plugin(), new ScoreIndex(LOGGER, new File(dataFolder, "index")), Runnable::run);
+    }
+
+    private Plugin plugin() {
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getDataFolder" -> dataFolder;
+                    case "getLogger" -> LOGGER;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,195 @@
+package CesarCosmico.storage.method.file;
+
+import CesarCosmico.actions.FishingStatContext;
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.method.StorageProvider;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryProviderTest {
+    private static final Logger LOGGER = Logger.getLogger("BinaryProviderTest");
+    private static final String[] TYPES = {"fish", "loot", "competition"};
+    private static final String[] CATEGORIES = {"common", "rare", "epic", "legendary"};
+    private static final String[] ITEMS = {"cod", "salmon", "pufferfish", "tropical_fish", "gold_fish"};
+
+    @TempDir
+    File dataFolder;
+
+    @Test
+    void playerRoundTrips() {
+        assertRoundTrips(false);
+    }
+
+    @Test
+    void playerRoundTripsMemoryMapped() {
+        assertRoundTrips(true);
+    }
+
+    /**
+     * Los ficheros de las versiones 1 y 2, con contadores int, se siguen leyendo; al
+     * guardarlos se reescriben en la versión 3 y admiten totales por encima de 2^31.
+     */
+    @Test
+    void intCounterFilesAreUpgradedToLongCounters() throws IOException {
+        for (short version = 1; version <= 2; version++) {
+            BinaryProvider provider = new BinaryProvider(plugin(), scoreIndex(), false, Runnable::run,
+                    new AtomicFileWriter(LOGGER, false));
+            UUID uuid = UUID.randomUUID();
+            File file = new File(dataFolder, "storage/binary/" + uuid + ".dat");
+            Files.write(file.toPath(), legacyFile(version, Integer.MAX_VALUE - 1, 7));
+
+            PlayerData playerData = provider.readPlayerData(uuid);
+            assertEquals(version >= 2 ? 12L : 0L, playerData.getJournalSeq());
+            assertEquals(Integer.MAX_VALUE - 1, playerData.getCategoryTotal("fish", "common"));
+            assertEquals(7L, playerData.getItemAmount("fish", "common", "cod"));
+
+            playerData.addStats(FishingStatContext.builder()
+                    .type("fish").category("common").item("cod").amount(Integer.MAX_VALUE).build());
+            assertTrue(provider.writePlayerData(playerData));
+            assertEquals(3, ByteBuffer.wrap(Files.readAllBytes(file.toPath())).getShort(4));
+
+            PlayerData upgraded = provider.readPlayerData(uuid);
+            assertEquals(2L * Integer.MAX_VALUE - 1, upgraded.getCategoryTotal("fish", "common"));
+            assertEquals(Integer.MAX_VALUE + 7L, upgraded.getItemAmount("fish", "common", "cod"));
+        }
+    }
+
+    /**
+     * Guardado y carga de 10.000 jugadores con YAML y con el formato binario, con los
+     * mismos datos en ambos.
+     */
+    @Test
+    @Tag("benchmark")
+    void yamlVsBinaryBenchmark() {
+        List<PlayerData> players = new ArrayList<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            players.add(randomPlayer(new UUID(0, i), random));
+        }
+
+        AtomicFileWriter fileWriter = new AtomicFileWriter(LOGGER, false);
+        measure("yaml", new YAMLProvider(plugin(), scoreIndex(), Runnable::run, fileWriter), players);
+        measure("binary", new BinaryProvider(plugin(), scoreIndex(), false, Runnable::run, fileWriter), players);
+        measure("binary mapped", new BinaryProvider(plugin(), scoreIndex(), true, Runnable::run, fileWriter), players);
+    }
+
+    private void measure(String name, StorageProvider provider, List<PlayerData> players) {
+        long start = System.nanoTime();
+        for (PlayerData playerData : players) {
+            assertTrue(provider.writePlayerData(playerData));
+        }
+        long saveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long total = 0;
+        for (PlayerData playerData : players) {
+            total += provider.readPlayerData(playerData.getUuid()).getTotalByType("fish");
+        }
+        long loadNanos = System.nanoTime() - start;
+        assertTrue(total > 0);
+
+        System.out.printf("%s, %d players: save %d players/s, load %d players/s%n", name, players.size(),
+                players.size() * 1_000_000_000L / saveNanos, players.size() * 1_000_000_000L / loadNanos);
+    }
+
+    private void assertRoundTrips(boolean memoryMapped) {
+        BinaryProvider provider = new BinaryProvider(plugin(), scoreIndex(), memoryMapped, Runnable::run,
+                new AtomicFileWriter(LOGGER, false));
+        PlayerData playerData = randomPlayer(UUID.randomUUID(), new Random(7));
+        playerData.setJournalSeq(99L);
+        assertTrue(provider.writePlayerData(playerData));
+
+        PlayerData read = provider.readPlayerData(playerData.getUuid());
+        assertEquals(playerData.getName(), read.getName());
+        assertEquals(99L, read.getJournalSeq());
+        for (String type : TYPES) {
+            assertEquals(playerData.getTotalByType(type), read.getTotalByType(type));
+            for (String category : CATEGORIES) {
+                assertEquals(playerData.getCategoryTotal(type, category), read.getCategoryTotal(type, category));
+                for (String item : ITEMS) {
+                    assertEquals(playerData.getItemAmount(type, category, item),
+                            read.getItemAmount(type, category, item));
+                }
+            }
+        }
+        assertEquals(List.of(playerData.getUuid()), new ArrayList<>(provider.getStoredPlayerUUIDs()));
+    }
+
+    /**
+     * Fichero con un solo registro fish/common en el formato de una versión anterior.
+     */
+    private static byte[] legacyFile(short version, int total, int codAmount) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x43465342);
+        out.writeShort(version);
+        out.writeShort(3);
+        out.write("Old".getBytes(StandardCharsets.UTF_8));
+        if (version >= 2) {
+            out.writeLong(12L);
+        }
+        out.writeInt(3);
+        for (String value : new String[]{"fish", "common", "cod"}) {
+            out.writeShort(value.length());
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeInt(1);
+        out.writeInt(16 + 8);
+        out.writeInt(0);
+        out.writeInt(1);
+        out.writeInt(total);
+        out.writeInt(1);
+        out.writeInt(2);
+        out.writeInt(codAmount);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static PlayerData randomPlayer(UUID uuid, Random random) {
+        PlayerData playerData = new PlayerData(uuid, "player" + uuid.getLeastSignificantBits());
+        for (String type : TYPES) {
+            for (String category : CATEGORIES) {
+                long total = 0;
+                for (String item : ITEMS) {
+                    long amount = 1 + random.nextInt(100);
+                    playerData.putItemAmount(type, category, item, amount);
+                    total += amount;
+                }
+                playerData.putCategoryTotal(type, category, total);
+            }
+        }
+        return playerData;
+    }
+
+    private ScoreIndex scoreIndex() {
+        return new ScoreIndex(LOGGER, new File(dataFolder, "index"));
+    }
+
+    private Plugin plugin() {
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getDataFolder" -> dataFolder;
+                    case "getLogger" -> LOGGER;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,99 @@
+package CesarCosmico.storage.method.file;
+
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import CesarCosmico.storage.method.StorageException;
+import CesarCosmico.storage.method.StorageProvider;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorruptPlayerFileTest {
+    private static final Logger LOGGER = Logger.getLogger("CorruptPlayerFileTest");
+    private static final byte[] GARBAGE = {0x00, 0x13, 0x37, (byte) 0xFF, 0x7F, 0x01};
+
+    @TempDir
+    File dataFolder;
+
+    @Test
+    void unreadableYamlIsNeverReplaced() throws IOException {
+        AtomicFileWriter fileWriter = new AtomicFileWriter(LOGGER, false);
+        YAMLProvider provider = new YAMLProvider(plugin(), scoreIndex(), Runnable::run, fileWriter);
+
+        assertFailsAndKeepsFile(provider, new File(dataFolder, "storage/data"), ".yml", new byte[0]);
+    }
+
+    @Test
+    void unreadableBinaryIsNeverReplaced() throws IOException {
+        AtomicFileWriter fileWriter = new AtomicFileWriter(LOGGER, false);
+        BinaryProvider provider = new BinaryProvider(plugin(), scoreIndex(), false, Runnable::run, fileWriter);
+
+        assertFailsAndKeepsFile(provider, new File(dataFolder, "storage/binary"), ".dat", GARBAGE);
+    }
+
+    @Test
+    void readableBackupRecoversAndSetsCorruptFileAside() throws IOException {
+        AtomicFileWriter fileWriter = new AtomicFileWriter(LOGGER, false);
+        BinaryProvider provider = new BinaryProvider(plugin(), scoreIndex(), false, Runnable::run, fileWriter);
+        UUID uuid = UUID.randomUUID();
+        File folder = new File(dataFolder, "storage/binary");
+        File file = new File(folder, uuid + ".dat");
+
+        PlayerData playerData = new PlayerData(uuid, "player");
+        playerData.putCategoryTotal("fish", "common", 42L);
+        assertTrue(provider.writePlayerData(playerData));
+        Files.copy(file.toPath(), AtomicFileWriter.backupOf(file).toPath());
+        Files.write(file.toPath(), GARBAGE);
+
+        PlayerData recovered = provider.readPlayerData(uuid);
+        assertEquals(42L, recovered.getCategoryTotal("fish", "common"));
+        assertEquals(1, fileWriter.getBackupRecoveries());
+        assertFalse(file.exists());
+        assertEquals(1, folder.listFiles((dir, name) -> name.contains(".corrupt-")).length);
+    }
+
+    /**
+     * Ni la lectura directa ni la asíncrona devuelven datos vacíos, y el fichero dañado sigue
+     * intacto y sin copias: nada puede escribirse encima de él.
+     */
+    private void assertFailsAndKeepsFile(StorageProvider provider, File folder, String extension, byte[] content)
+            throws IOException {
+        UUID uuid = UUID.randomUUID();
+        File file = new File(folder, uuid + extension);
+        Files.write(file.toPath(), content);
+
+        assertThrows(StorageException.class, () -> provider.readPlayerData(uuid));
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> provider.loadPlayerData(uuid).join());
+        assertTrue(failure.getCause() instanceof StorageException);
+
+        assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+        String[] files = folder.list();
+        assertNotNull(files);
+        assertEquals(1, files.length, "unexpected files: " + Arrays.toString(files));
+    }
+
+    private ScoreIndex scoreIndex() {
+        return new ScoreIndex(LOGGER, new File(dataFolder, "index"));
+    }
+
+    private Plugin plugin() {
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getDataFolder" -> dataFolder;
+                    case "getLogger" -> LOGGER;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
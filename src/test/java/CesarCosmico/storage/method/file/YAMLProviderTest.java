@@ -0,0 +1,48 @@
+package CesarCosmico.storage.method.file;
+
+import CesarCosmico.storage.data.PlayerData;
+import CesarCosmico.storage.index.ScoreIndex;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YAMLProviderTest {
+    private static final Logger LOGGER = Logger.getLogger("YAMLProviderTest");
+
+    @TempDir
+    File dataFolder;
+
+    @Test
+    void countersPastIntRangeRoundTrip() {
+        YAMLProvider provider = new YAMLProvider(plugin(), new ScoreIndex(LOGGER, new File(dataFolder, "index")),
+                Runnable::run, new AtomicFileWriter(LOGGER, false));
+        UUID uuid = UUID.randomUUID();
+        PlayerData playerData = new PlayerData(uuid, "player");
+        playerData.putCategoryTotal("fish", "common", 5_000_000_000L);
+        playerData.putItemAmount("fish", "common", "cod", 3_000_000_000L);
+        playerData.setJournalSeq(8L);
+        assertTrue(provider.writePlayerData(playerData));
+
+        PlayerData read = provider.readPlayerData(uuid);
+        assertEquals(8L, read.getJournalSeq());
+        assertEquals(5_000_000_000L, read.getCategoryTotal("fish", "common"));
+        assertEquals(3_000_000_000L, read.getItemAmount("fish", "common", "cod"));
+        assertEquals(5_000_000_000L, read.getTotalByType("fish"));
+    }
+
+    private Plugin plugin() {
+        return (Plugin) Proxy.newProxyInstance(Plugin.class.getClassLoader(), new Class<?>[]{Plugin.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getDataFolder" -> dataFolder;
+                    case "getLogger" -> LOGGER;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}